@@ -0,0 +1,69 @@
+package src.ajedrez;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Construcción del árbol a partir de turnos ya analizados ({@code ChessGameParser.construirArbol}),
+ * que crea los nodos al recorrerlo, sola y seguida de un recorrido completo, y lo mismo con
+ * {@link ArbolCompacto}
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ArbolBenchmark {
+    @Param({"10", "1000", "100000", "1000000"})
+    public int turnos;
+
+    private ChessGameParser parser;
+
+    @Setup
+    public void preparar() {
+        parser = new ChessGameParser();
+        if (!parser.parse(PartidasDePrueba.generar(turnos))) {
+            throw new IllegalStateException("La partida de prueba no es válida");
+        }
+    }
+
+    @Benchmark
+    public ArbolBinario construirArbol() {
+        parser.construirArbol();
+        return parser.obtenerArbol();
+    }
+
+    /** Construye el árbol y lo recorre entero, lo que crea todos sus nodos */
+    @Benchmark
+    public int construirYRecorrer() {
+        parser.construirArbol();
+        int nodos = 0;
+        for (Nodo nodo : parser.obtenerArbol().recorridoPreorden()) {
+            nodos++;
+        }
+        return nodos;
+    }
+
+    /** Construye el árbol en arreglos y lo recorre entero en preorden */
+    @Benchmark
+    public int construirYRecorrerCompacto() {
+        CursorArbol cursor = new ArbolCompacto(parser.getTurnoStore()).recorrer(OrdenRecorrido.PREORDEN);
+        int nodos = 0;
+        while (cursor.siguiente()) {
+            nodos++;
+        }
+        return nodos;
+    }
+}
@@ -0,0 +1,88 @@
+package src.ajedrez;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Recarga de partidas desde el formato binario de {@link ArchivoPartidas} frente a volver a
+ * analizar su texto
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ArchivoBenchmark {
+    private static final int TURNOS_POR_PARTIDA = 40;
+
+    @Param({"1000", "100000"})
+    public int partidas;
+
+    private String[] textos;
+    private Path archivo;
+    private ArchivoPartidas lector;
+    private final int[] jugadas = new int[TURNOS_POR_PARTIDA * 2];
+
+    @Setup
+    public void preparar() throws IOException {
+        textos = new String[partidas];
+        archivo = Files.createTempFile("partidas", ".bin");
+        try (EscritorArchivoPartidas escritor = new EscritorArchivoPartidas(archivo)) {
+            ChessGameParser parser = new ChessGameParser();
+            for (int i = 0; i < partidas; i++) {
+                textos[i] = PartidasDePrueba.generar(TURNOS_POR_PARTIDA);
+                parser.parse(textos[i]);
+                escritor.agregar(parser.getTurnoStore());
+            }
+        }
+        lector = ArchivoPartidas.abrir(archivo);
+    }
+
+    @TearDown
+    public void limpiar() throws IOException {
+        lector.close();
+        Files.deleteIfExists(archivo);
+    }
+
+    @Benchmark
+    public long leerBinario() {
+        long suma = 0;
+        for (int i = 0; i < partidas; i++) {
+            int cantidad = lector.leerJugadas(i, jugadas);
+            for (int j = 0; j < cantidad; j++) {
+                suma += jugadas[j];
+            }
+        }
+        return suma;
+    }
+
+    @Benchmark
+    public long analizarTexto() {
+        long suma = 0;
+        ChessGameParser parser = new ChessGameParser();
+        for (String texto : textos) {
+            parser.parse(texto);
+            TurnoStore turnos = parser.getTurnoStore();
+            for (int j = 0; j < turnos.size(); j++) {
+                suma += turnos.getCodigoBlanca(j) + turnos.getCodigoNegra(j);
+            }
+        }
+        return suma;
+    }
+}
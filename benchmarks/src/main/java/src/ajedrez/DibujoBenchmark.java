@@ -0,0 +1,89 @@
+package src.ajedrez;
+
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Dibujo del árbol con {@code ArbolPanel} sobre una imagen fuera de pantalla del tamaño de una
+ * ventana, centrada en la raíz, como lo vería el usuario al abrir el visualizador, con los
+ * mosaicos ya dibujados y desde cero
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class DibujoBenchmark {
+    private static final int ANCHO_VISTA = 1280;
+    private static final int ALTO_VISTA = 800;
+
+    @Param({"10", "1000", "50000"})
+    public int turnos;
+
+    @Param({"0.05", "0.5", "1.0", "2.0"})
+    public double zoom;
+
+    private VisualizadorArbol.ArbolPanel panel;
+    private BufferedImage imagen;
+    private Graphics2D grafico;
+
+    @Setup
+    public void preparar() {
+        ChessGameParser parser = new ChessGameParser();
+        if (!parser.parse(PartidasDePrueba.generar(turnos))) {
+            throw new IllegalStateException("La partida de prueba no es válida");
+        }
+        panel = new VisualizadorArbol.ArbolPanel();
+        panel.setArbol(parser.obtenerArbol());
+        panel.setZoom(zoom);
+        Dimension tamano = panel.getPreferredSize();
+        panel.setSize(tamano);
+        imagen = new BufferedImage(ANCHO_VISTA, ALTO_VISTA, BufferedImage.TYPE_INT_ARGB);
+
+        // Vista del tamaño de la ventana centrada horizontalmente sobre la raíz
+        int x = tamano.width / 2 - ANCHO_VISTA / 2;
+        grafico = imagen.createGraphics();
+        grafico.translate(-x, 0);
+        grafico.setClip(x, 0, ANCHO_VISTA, ALTO_VISTA);
+    }
+
+    @TearDown
+    public void liberar() {
+        grafico.dispose();
+    }
+
+    /**
+     * Repintado de la misma vista: los mosaicos ya dibujados solo se copian
+     */
+    @Benchmark
+    public BufferedImage dibujar() {
+        panel.paintComponent(grafico);
+        return imagen;
+    }
+
+    /**
+     * Primer repintado tras cambiar el árbol o el zoom: se dibujan todos los mosaicos visibles
+     */
+    @Benchmark
+    public BufferedImage dibujarSinMosaicos() {
+        panel.descartarMosaicos();
+        panel.paintComponent(grafico);
+        return imagen;
+    }
+}
@@ -0,0 +1,38 @@
+package src.ajedrez;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Validación de una jugada aislada con {@link JugadaSAN#clasificar(CharSequence)}, por tipo de jugada
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JugadaBenchmark {
+    @Param({"O-O", "O-O-O", "Nf3", "Nbxd7+", "R1e2", "e4", "exd5", "e8=Q", "exf1=N#", "Zz9"})
+    public String jugada;
+
+    @Benchmark
+    public int clasificar() {
+        return JugadaSAN.clasificar(jugada);
+    }
+
+    @Benchmark
+    public String clasificarYReconstruir() {
+        return JugadaSAN.aSAN(JugadaSAN.clasificar(jugada));
+    }
+}
@@ -0,0 +1,78 @@
+package src.ajedrez;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Coste de la comprobación de legalidad con {@link Tablero} frente al análisis solo sintáctico
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LegalidadBenchmark {
+    @Param({"ejemplo", "inmortal"})
+    public String partida;
+
+    private String texto;
+    private int[] codigos;
+    private final Tablero tablero = new Tablero();
+    private final ChessGameParser sintactico = new ChessGameParser();
+    private final ChessGameParser legal = new ChessGameParser();
+
+    @Setup
+    public void preparar() {
+        texto = partida.equals("ejemplo") ? PartidasDePrueba.EJEMPLO : PartidasDePrueba.INMORTAL;
+        legal.setValidarLegalidad(true);
+        if (!legal.parse(texto)) {
+            throw new IllegalStateException("La partida de prueba no es legal: " + legal.getErrorMessage());
+        }
+
+        TurnoStore turnos = legal.getTurnoStore();
+        int jugadas = 0;
+        codigos = new int[turnos.size() * 2];
+        for (int i = 0; i < turnos.size(); i++) {
+            codigos[jugadas++] = turnos.getCodigoBlanca(i);
+            if (turnos.tieneJugadaNegra(i)) {
+                codigos[jugadas++] = turnos.getCodigoNegra(i);
+            }
+        }
+        codigos = Arrays.copyOf(codigos, jugadas);
+    }
+
+    /** Solo la reproducción de las jugadas ya clasificadas sobre el tablero */
+    @Benchmark
+    public boolean reproducir() {
+        tablero.reiniciar();
+        for (int codigo : codigos) {
+            if (tablero.aplicar(codigo) != ResultadoJugada.LEGAL) {
+                return false;
+            }
+        }
+        return tablero.estaTerminada();
+    }
+
+    @Benchmark
+    public boolean parseSintactico() {
+        return sintactico.parse(texto);
+    }
+
+    @Benchmark
+    public boolean parseLegal() {
+        return legal.parse(texto);
+    }
+}
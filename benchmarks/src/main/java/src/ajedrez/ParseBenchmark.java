@@ -0,0 +1,63 @@
+package src.ajedrez;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Análisis completo de una partida con {@link ChessGameParser#parse(String)}, incluido el árbol,
+ * y con {@link ChessGameParser#analizar(String)} sobre un analizador compartido, sin el árbol
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParseBenchmark {
+    /** 0 usa la partida de ejemplo de la interfaz (6 turnos) */
+    @Param({"0", "100", "10000", "200000"})
+    public int turnos;
+
+    private String partida;
+    private final ChessGameParser compartido = new ChessGameParser();
+
+    @Setup
+    public void preparar() {
+        partida = turnos == 0 ? PartidasDePrueba.EJEMPLO : PartidasDePrueba.generar(turnos);
+        if (!new ChessGameParser().parse(partida)) {
+            throw new IllegalStateException("La partida de prueba no es válida");
+        }
+    }
+
+    @Benchmark
+    public ChessGameParser parse() {
+        ChessGameParser parser = new ChessGameParser();
+        parser.parse(partida);
+        return parser;
+    }
+
+    /** Igual que {@link #parse()}, repartiendo las partidas largas entre los hilos del pool común */
+    @Benchmark
+    public ChessGameParser parseParalelo() {
+        ChessGameParser parser = new ChessGameParser();
+        parser.parseParalelo(partida);
+        return parser;
+    }
+
+    /** Un mismo analizador para todas las llamadas; el árbol no se pide */
+    @Benchmark
+    public ResultadoAnalisis analizar() {
+        return compartido.analizar(partida);
+    }
+}
@@ -0,0 +1,40 @@
+package src.ajedrez;
+
+/**
+ * Genera partidas sintácticamente válidas de cualquier longitud para los benchmarks
+ */
+final class PartidasDePrueba {
+    // Apertura española con capturas, enroques, jaques y promociones para cubrir todos los tipos de jugada
+    private static final String[] JUGADAS = {
+            "e4", "e5", "Nf3", "Nc6", "Bb5", "a6", "Ba4", "Nf6", "O-O", "Be7",
+            "Re1", "b5", "Bb3", "d6", "c3", "O-O", "h3", "Nb8", "d4", "Nbd7",
+            "exd5", "Qxd8+", "Nbxd2", "O-O-O", "a8=Q", "exf1=N#", "R1e2", "Kh1"
+    };
+
+    /** La partida de ejemplo de la interfaz */
+    static final String EJEMPLO = "1. d4 d5 2. Bf4 Nf6 3. e3 e6 4. c3 c5 5. Nd2 Nc6 6. Bd3 Bd6";
+
+    /** Partida real y legal (Anderssen - Kieseritzky, 1851), con capturas, jaques y mate */
+    static final String INMORTAL = "1. e4 e5 2. f4 exf4 3. Bc4 Qh4+ 4. Kf1 b5 5. Bxb5 Nf6 6. Nf3 Qh6 "
+            + "7. d3 Nh5 8. Nh4 Qg5 9. Nf5 c6 10. g4 Nf6 11. Rg1 cxb5 12. h4 Qg6 13. h5 Qg5 14. Qf3 Ng8 "
+            + "15. Bxf4 Qf6 16. Nc3 Bc5 17. Nd5 Qxb2 18. Bd6 Bxg1 19. e5 Qxa1+ 20. Ke2 Na6 "
+            + "21. Nxg7+ Kd8 22. Qf6+ Nxf6 23. Be7#";
+
+    private PartidasDePrueba() {
+    }
+
+    /**
+     * @param turnos Número de turnos completos de la partida
+     * @return La partida en notación SAN, un turno por línea
+     */
+    static String generar(int turnos) {
+        StringBuilder partida = new StringBuilder(turnos * 16);
+        int jugada = 0;
+        for (int turno = 1; turno <= turnos; turno++) {
+            partida.append(turno).append(". ")
+                    .append(JUGADAS[jugada++ % JUGADAS.length]).append(' ')
+                    .append(JUGADAS[jugada++ % JUGADAS.length]).append('\n');
+        }
+        return partida.toString();
+    }
+}
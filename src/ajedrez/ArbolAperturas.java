@@ -0,0 +1,348 @@
+package src.ajedrez;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Libro de aperturas: une las jugadas de muchas partidas en un único árbol de prefijos (trie)
+ * en el que cada nodo es una secuencia de jugadas desde la posición inicial.
+ *
+ * A diferencia de {@link ArbolBinario}, que representa una sola partida, aquí las partidas que
+ * comparten apertura comparten nodos. Cada nodo guarda cuántas partidas pasaron por él y cómo
+ * terminaron. Los nodos viven en arreglos paralelos de enteros (código de la jugada, primer
+ * hijo, siguiente hermano y contadores), sin un objeto por nodo. Solo se guardan las primeras
+ * {@code profundidadMaxima} jugadas de cada partida y nunca más de {@code maximoNodos} nodos,
+ * así que la memoria queda acotada sea cual sea el tamaño del archivo.
+ *
+ * Es segura entre hilos. Las inserciones recorren las jugadas ya conocidas con un cerrojo de
+ * lectura compartido y suman los contadores de forma atómica; solo la creación de nodos nuevos
+ * toma el cerrojo de escritura. Una consulta concurrente con inserciones puede ver una partida
+ * contada en parte de su recorrido.
+ */
+public class ArbolAperturas {
+    /** Jugadas (medios turnos) que se guardan de cada partida por defecto */
+    public static final int PROFUNDIDAD_POR_DEFECTO = 40;
+    /** Límite de nodos por defecto: unos 112 MB con todos los arreglos llenos */
+    public static final int MAXIMO_NODOS_POR_DEFECTO = 1 << 22;
+
+    private static final int RAIZ = 0;
+    private static final int SIN_NODO = -1;
+    private static final int CAPACIDAD_INICIAL = 1024;
+
+    // Contadores de cada nodo, contiguos en estadisticas[nodo * CAMPOS + campo]
+    private static final int CAMPOS = 4;
+    private static final int PARTIDAS = 0;
+    private static final int BLANCAS = 1;
+    private static final int TABLAS = 2;
+    private static final int NEGRAS = 3;
+
+    private static final VarHandle CONTADOR = MethodHandles.arrayElementVarHandle(int[].class);
+
+    private final int profundidadMaxima;
+    private final int maximoNodos;
+    private final ReentrantReadWriteLock cerrojo = new ReentrantReadWriteLock();
+
+    // Solo cambian con el cerrojo de escritura
+    private int[] codigos;
+    private int[] primerHijo;
+    private int[] siguienteHermano;
+    private int[] estadisticas;
+    private int numeroNodos;
+    private boolean lleno;
+
+    public ArbolAperturas() {
+        this(PROFUNDIDAD_POR_DEFECTO, MAXIMO_NODOS_POR_DEFECTO);
+    }
+
+    /**
+     * @param profundidadMaxima Jugadas que se guardan de cada partida; las siguientes se ignoran
+     * @param maximoNodos Nodos como máximo; al alcanzarlo las partidas solo suman en los nodos que ya existen
+     */
+    public ArbolAperturas(int profundidadMaxima, int maximoNodos) {
+        if (profundidadMaxima < 1 || maximoNodos < 1) {
+            throw new IllegalArgumentException("La profundidad y el número de nodos deben ser positivos");
+        }
+        this.profundidadMaxima = profundidadMaxima;
+        this.maximoNodos = maximoNodos;
+
+        int capacidad = Math.min(CAPACIDAD_INICIAL, maximoNodos);
+        codigos = new int[capacidad];
+        primerHijo = new int[capacidad];
+        siguienteHermano = new int[capacidad];
+        estadisticas = new int[capacidad * CAMPOS];
+        crearNodo(JugadaSAN.INVALIDA);
+    }
+
+    /**
+     * Añade una partida analizada
+     * @param turnos Turnos de una partida válida, por ejemplo {@link ChessGameParser#getTurnoStore()}
+     * @param resultado Cómo terminó la partida
+     */
+    public void insertar(TurnoStore turnos, ResultadoPartida resultado) {
+        int[] jugadas = new int[Math.min(turnos.size() * 2, profundidadMaxima)];
+        int cantidad = 0;
+        for (int i = 0; i < turnos.size() && cantidad < jugadas.length; i++) {
+            jugadas[cantidad++] = turnos.getCodigoBlanca(i);
+            if (turnos.tieneJugadaNegra(i) && cantidad < jugadas.length) {
+                jugadas[cantidad++] = turnos.getCodigoNegra(i);
+            }
+        }
+        insertar(jugadas, cantidad, resultado);
+    }
+
+    /**
+     * Añade una partida dada por los códigos de sus jugadas, alternando blancas y negras
+     * @param jugadas Códigos de {@link JugadaSAN} desde la primera jugada
+     * @param cantidad Cuántas jugadas del arreglo pertenecen a la partida
+     * @param resultado Cómo terminó la partida
+     */
+    public void insertar(int[] jugadas, int cantidad, ResultadoPartida resultado) {
+        int limite = Math.min(cantidad, profundidadMaxima);
+        for (int i = 0; i < limite; i++) {
+            if (!JugadaSAN.esValida(jugadas[i])) {
+                throw new IllegalArgumentException("La jugada " + (i + 1) + " no es una jugada válida");
+            }
+        }
+
+        // Primero el tramo que ya existe, compartido con el resto de inserciones
+        int nodo = RAIZ;
+        int profundidad = 0;
+        Lock lectura = cerrojo.readLock();
+        lectura.lock();
+        try {
+            contar(RAIZ, resultado);
+            while (profundidad < limite) {
+                int hijo = buscarHijo(nodo, jugadas[profundidad]);
+                if (hijo == SIN_NODO) {
+                    break;
+                }
+                contar(hijo, resultado);
+                nodo = hijo;
+                profundidad++;
+            }
+        } finally {
+            lectura.unlock();
+        }
+        if (profundidad == limite) {
+            return;
+        }
+
+        // El resto crea nodos; otro hilo pudo crear alguno mientras tanto
+        Lock escritura = cerrojo.writeLock();
+        escritura.lock();
+        try {
+            while (profundidad < limite) {
+                int hijo = buscarHijo(nodo, jugadas[profundidad]);
+                if (hijo == SIN_NODO) {
+                    if (numeroNodos == maximoNodos) {
+                        lleno = true;
+                        return;
+                    }
+                    hijo = crearNodo(jugadas[profundidad]);
+                    siguienteHermano[hijo] = primerHijo[nodo];
+                    primerHijo[nodo] = hijo;
+                }
+                contar(hijo, resultado);
+                nodo = hijo;
+                profundidad++;
+            }
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    /**
+     * Continuaciones conocidas tras un prefijo escrito en notación SAN
+     * @param prefijoSAN Por ejemplo "1. d4 d5 2. Bf4"; una cadena vacía consulta la posición inicial
+     * @return Las jugadas siguientes ordenadas de más a menos partidas; vacía si el prefijo no está en el libro
+     * @throws IllegalArgumentException Si el prefijo no es una secuencia de turnos válida
+     */
+    public List<Continuacion> continuaciones(String prefijoSAN) {
+        return continuaciones(codigosDe(prefijoSAN));
+    }
+
+    /**
+     * Continuaciones conocidas tras un prefijo dado por los códigos de sus jugadas
+     * @return Las jugadas siguientes ordenadas de más a menos partidas; vacía si el prefijo no está en el libro
+     */
+    public List<Continuacion> continuaciones(int... prefijo) {
+        Lock lectura = cerrojo.readLock();
+        lectura.lock();
+        try {
+            int nodo = buscarNodo(prefijo);
+            if (nodo == SIN_NODO) {
+                return Collections.emptyList();
+            }
+            List<Continuacion> resultado = new ArrayList<>();
+            for (int hijo = primerHijo[nodo]; hijo != SIN_NODO; hijo = siguienteHermano[hijo]) {
+                resultado.add(aContinuacion(hijo));
+            }
+            resultado.sort((a, b) -> Integer.compare(b.getPartidas(), a.getPartidas()));
+            return resultado;
+        } finally {
+            lectura.unlock();
+        }
+    }
+
+    /**
+     * Estadísticas de la posición a la que lleva un prefijo escrito en notación SAN
+     * @return La última jugada del prefijo con sus contadores, o null si el prefijo no está en el libro
+     * @throws IllegalArgumentException Si el prefijo no es una secuencia de turnos válida
+     */
+    public Continuacion estadisticas(String prefijoSAN) {
+        return estadisticas(codigosDe(prefijoSAN));
+    }
+
+    /**
+     * Estadísticas de la posición a la que lleva un prefijo. Con un prefijo vacío se obtienen los
+     * totales del libro, con la jugada {@link JugadaSAN#INVALIDA}.
+     * @return La última jugada del prefijo con sus contadores, o null si el prefijo no está en el libro
+     */
+    public Continuacion estadisticas(int... prefijo) {
+        Lock lectura = cerrojo.readLock();
+        lectura.lock();
+        try {
+            int nodo = buscarNodo(prefijo);
+            return nodo == SIN_NODO ? null : aContinuacion(nodo);
+        } finally {
+            lectura.unlock();
+        }
+    }
+
+    /**
+     * @return Partidas añadidas al libro
+     */
+    public int getPartidas() {
+        Lock lectura = cerrojo.readLock();
+        lectura.lock();
+        try {
+            return (int) CONTADOR.getVolatile(estadisticas, RAIZ * CAMPOS + PARTIDAS);
+        } finally {
+            lectura.unlock();
+        }
+    }
+
+    /**
+     * @return Nodos del libro, contando la raíz
+     */
+    public int getNumeroNodos() {
+        Lock lectura = cerrojo.readLock();
+        lectura.lock();
+        try {
+            return numeroNodos;
+        } finally {
+            lectura.unlock();
+        }
+    }
+
+    public int getProfundidadMaxima() {
+        return profundidadMaxima;
+    }
+
+    /**
+     * @return true si se alcanzó el límite de nodos y alguna partida no se guardó completa
+     */
+    public boolean isLleno() {
+        Lock lectura = cerrojo.readLock();
+        lectura.lock();
+        try {
+            return lleno;
+        } finally {
+            lectura.unlock();
+        }
+    }
+
+    private static int[] codigosDe(String prefijoSAN) {
+        if (prefijoSAN.trim().isEmpty()) {
+            return new int[0];
+        }
+        ChessGameParser parser = new ChessGameParser();
+        if (!parser.parse(prefijoSAN)) {
+            throw new IllegalArgumentException(parser.getErrorMessage());
+        }
+        TurnoStore turnos = parser.getTurnoStore();
+        int[] codigos = new int[turnos.size() * 2];
+        int cantidad = 0;
+        for (int i = 0; i < turnos.size(); i++) {
+            codigos[cantidad++] = turnos.getCodigoBlanca(i);
+            if (turnos.tieneJugadaNegra(i)) {
+                codigos[cantidad++] = turnos.getCodigoNegra(i);
+            }
+        }
+        return Arrays.copyOf(codigos, cantidad);
+    }
+
+    /**
+     * Con el cerrojo de lectura o escritura tomado
+     */
+    private int buscarNodo(int[] prefijo) {
+        int nodo = RAIZ;
+        for (int i = 0; i < prefijo.length && nodo != SIN_NODO; i++) {
+            nodo = buscarHijo(nodo, prefijo[i]);
+        }
+        return nodo;
+    }
+
+    private int buscarHijo(int nodo, int codigo) {
+        for (int hijo = primerHijo[nodo]; hijo != SIN_NODO; hijo = siguienteHermano[hijo]) {
+            if (codigos[hijo] == codigo) {
+                return hijo;
+            }
+        }
+        return SIN_NODO;
+    }
+
+    private Continuacion aContinuacion(int nodo) {
+        int base = nodo * CAMPOS;
+        return new Continuacion(codigos[nodo],
+                (int) CONTADOR.getVolatile(estadisticas, base + PARTIDAS),
+                (int) CONTADOR.getVolatile(estadisticas, base + BLANCAS),
+                (int) CONTADOR.getVolatile(estadisticas, base + TABLAS),
+                (int) CONTADOR.getVolatile(estadisticas, base + NEGRAS));
+    }
+
+    /**
+     * Suma una partida al nodo. Con el cerrojo de lectura varios hilos cuentan a la vez, de ahí la suma atómica.
+     */
+    private void contar(int nodo, ResultadoPartida resultado) {
+        int base = nodo * CAMPOS;
+        CONTADOR.getAndAdd(estadisticas, base + PARTIDAS, 1);
+        switch (resultado) {
+            case GANAN_BLANCAS:
+                CONTADOR.getAndAdd(estadisticas, base + BLANCAS, 1);
+                break;
+            case TABLAS:
+                CONTADOR.getAndAdd(estadisticas, base + TABLAS, 1);
+                break;
+            case GANAN_NEGRAS:
+                CONTADOR.getAndAdd(estadisticas, base + NEGRAS, 1);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Con el cerrojo de escritura tomado, o desde el constructor
+     */
+    private int crearNodo(int codigo) {
+        if (numeroNodos == codigos.length) {
+            int capacidad = (int) Math.min((long) codigos.length + (codigos.length >> 1) + 1, maximoNodos);
+            codigos = Arrays.copyOf(codigos, capacidad);
+            primerHijo = Arrays.copyOf(primerHijo, capacidad);
+            siguienteHermano = Arrays.copyOf(siguienteHermano, capacidad);
+            estadisticas = Arrays.copyOf(estadisticas, capacidad * CAMPOS);
+        }
+        int nodo = numeroNodos++;
+        codigos[nodo] = codigo;
+        primerHijo[nodo] = SIN_NODO;
+        siguienteHermano[nodo] = SIN_NODO;
+        return nodo;
+    }
+}
@@ -1,21 +1,533 @@
 package src.ajedrez;
 
-public class ArbolBinario {
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+public class ArbolBinario implements ArbolPartida {
+    public static final String VALOR_RAIZ = "Partida";
+
     private Nodo raiz;
 
+    // Estado para añadir turnos en tiempo constante
+    private Nodo ultimoTurnoIzquierdo;
+    private int profundidadUltimoTurnoIzquierdo;
+    private int numeroTurnos;
+    // En un árbol diferido el último turno izquierdo se busca al añadir el primer turno
+    private boolean ramaPendiente;
+
+    // Metadatos que se mantienen al añadir nodos (la raíz está en el nivel 1)
+    private int numeroNodos;
+    private int altura;
+    private int[] nodosPorNivel = new int[16];
+    private final int[] nodosPorTipo = new int[TipoNodo.values().length];
+
     public ArbolBinario() {
         this.raiz = null;
     }
 
     public ArbolBinario(String valorRaiz) {
-        this.raiz = new Nodo(valorRaiz);
+        this.raiz = new Nodo(valorRaiz, TipoNodo.RAIZ);
+        registrarNodo(TipoNodo.RAIZ, 1, 1);
+    }
+
+    /**
+     * Crea el árbol de unos turnos sin crear sus nodos: cada nodo crea sus hijos la primera vez
+     * que se piden, así que un árbol que nadie recorre solo ocupa su raíz. La forma, los
+     * metadatos y los recorridos son los mismos que al añadir los turnos con
+     * {@link #appendTurno(int, int, int)}.
+     *
+     * Los nodos se leen de {@code turnos}, que no debe modificarse mientras el árbol exista.
+     * Los nodos se pueden crear desde varios hilos a la vez; modificar el árbol, en cambio, no es
+     * seguro entre hilos, y añadirle turnos crea toda la rama izquierda.
+     */
+    public static ArbolBinario diferido(TurnoStore turnos) {
+        ArbolBinario arbol = new ArbolBinario();
+        int n = turnos.size();
+        if (n == 0) {
+            return arbol;
+        }
+        arbol.raiz = new NodoDiferido(turnos);
+        arbol.numeroTurnos = n;
+        arbol.ramaPendiente = true;
+
+        // Metadatos sin crear nodos: los turnos impares forman la rama izquierda de la raíz y
+        // conservan su jugada negra; el último par cuelga a la derecha con sus dos jugadas
+        arbol.registrarNodo(TipoNodo.RAIZ, 1, 1);
+        for (int i = 0; i < n; i += 2) {
+            int profundidad = 2 + i / 2;
+            arbol.registrarNodo(TipoNodo.TURNO, profundidad, 1);
+            if (turnos.tieneJugadaNegra(i)) {
+                arbol.registrarNodo(TipoNodo.JUGADA_NEGRA, profundidad + 1, 1);
+            }
+        }
+        // Solo el último turno impar conserva su jugada blanca
+        arbol.registrarNodo(TipoNodo.JUGADA_BLANCA, (n + 1) / 2 + 2, 1);
+        if (n >= 2) {
+            int ultimoPar = n % 2 == 0 ? n - 1 : n - 2;
+            arbol.registrarNodo(TipoNodo.TURNO, 2, 1);
+            arbol.registrarNodo(TipoNodo.JUGADA_BLANCA, 3, 1);
+            if (turnos.tieneJugadaNegra(ultimoPar)) {
+                arbol.registrarNodo(TipoNodo.JUGADA_NEGRA, 3, 1);
+            }
+        }
+        return arbol;
     }
 
+    /**
+     * Reemplaza la raíz y recalcula los metadatos recorriendo el árbol una vez
+     */
     public void setRaiz(Nodo raiz) {
         this.raiz = raiz;
+        this.ultimoTurnoIzquierdo = null;
+        this.profundidadUltimoTurnoIzquierdo = 0;
+        this.numeroTurnos = 0;
+        this.ramaPendiente = false;
+
+        numeroNodos = 0;
+        altura = 0;
+        Arrays.fill(nodosPorNivel, 0);
+        Arrays.fill(nodosPorTipo, 0);
+        if (raiz != null) {
+            agregarSubarbol(raiz, 1, false, true, 1);
+        }
     }
 
     public Nodo getRaiz() {
         return raiz;
     }
+
+    /**
+     * Añade un turno al árbol en tiempo constante, sin reconstruirlo.
+     * El primer turno cuelga a la izquierda de la raíz; los turnos pares pasan a ser el hijo
+     * derecho de la raíz y los impares se encadenan por la izquierda del último turno impar.
+     * Si el árbol está vacío se crea la raíz "Partida". Las jugadas se guardan con su instancia
+     * canónica de {@link TablaJugadas} y la etiqueta del turno no se guarda.
+     * @param turno El siguiente turno de la partida
+     */
+    public void appendTurno(Turno turno) {
+        agregarTurno(turno.getNumeroTurno(),
+                TablaJugadas.canonica(turno.getJugadaBlanca()),
+                TablaJugadas.canonica(turno.getJugadaNegra()));
+    }
+
+    /**
+     * Añade un turno a partir de los códigos de sus jugadas, sin crear un {@link Turno}
+     * @param codigoNegra Código de la jugada negra o {@link JugadaSAN#INVALIDA} si no hay
+     */
+    public void appendTurno(int numeroTurno, int codigoBlanca, int codigoNegra) {
+        agregarTurno(numeroTurno, TablaJugadas.texto(codigoBlanca),
+                codigoNegra != JugadaSAN.INVALIDA ? TablaJugadas.texto(codigoNegra) : null);
+    }
+
+    private void agregarTurno(int numeroTurno, String jugadaBlanca, String jugadaNegra) {
+        if (raiz == null) {
+            raiz = new Nodo(VALOR_RAIZ, TipoNodo.RAIZ);
+            registrarNodo(TipoNodo.RAIZ, 1, 1);
+        }
+        if (ramaPendiente) {
+            // Los turnos impares bajan por la izquierda desde el primero
+            ramaPendiente = false;
+            ultimoTurnoIzquierdo = raiz.getHijoIzquierdo();
+            profundidadUltimoTurnoIzquierdo = 2;
+            for (int i = 2; i < numeroTurnos; i += 2) {
+                ultimoTurnoIzquierdo = ultimoTurnoIzquierdo.getHijoIzquierdo();
+                profundidadUltimoTurnoIzquierdo++;
+            }
+        }
+
+        Nodo nodoTurno = Nodo.deTurno(numeroTurno);
+        Nodo reemplazado;
+        int profundidad;
+        boolean esDerecho = false;
+        if (ultimoTurnoIzquierdo == null) {
+            reemplazado = raiz.getHijoIzquierdo();
+            raiz.setHijoIzquierdo(nodoTurno);
+            ultimoTurnoIzquierdo = nodoTurno;
+            profundidad = 2;
+            profundidadUltimoTurnoIzquierdo = profundidad;
+        } else if (numeroTurnos % 2 == 1) {
+            reemplazado = raiz.getHijoDerecho();
+            raiz.setHijoDerecho(nodoTurno);
+            profundidad = 2;
+            esDerecho = true;
+        } else {
+            reemplazado = ultimoTurnoIzquierdo.getHijoIzquierdo();
+            ultimoTurnoIzquierdo.setHijoIzquierdo(nodoTurno);
+            ultimoTurnoIzquierdo = nodoTurno;
+            profundidad = profundidadUltimoTurnoIzquierdo + 1;
+            profundidadUltimoTurnoIzquierdo = profundidad;
+        }
+        numeroTurnos++;
+
+        // Añadir jugadas blanca y negra del turno
+        nodoTurno.setHijoIzquierdo(new Nodo(jugadaBlanca, TipoNodo.JUGADA_BLANCA));
+        if (jugadaNegra != null && !jugadaNegra.isEmpty()) {
+            nodoTurno.setHijoDerecho(new Nodo(jugadaNegra, TipoNodo.JUGADA_NEGRA));
+        }
+
+        // Primero se suman los nodos nuevos y después se descuenta lo que quedó desenganchado
+        agregarSubarbol(nodoTurno, profundidad, esDerecho, false, 1);
+        if (reemplazado != null) {
+            agregarSubarbol(reemplazado, profundidad, esDerecho, false, -1);
+        }
+    }
+
+    /**
+     * @return El número de turnos añadidos con {@link #appendTurno(Turno)}
+     */
+    @Override
+    public int getNumeroTurnos() {
+        return numeroTurnos;
+    }
+
+    /**
+     * @return El número de nodos alcanzables desde la raíz, sin recorrer el árbol
+     */
+    @Override
+    public int getNumeroNodos() {
+        return numeroNodos;
+    }
+
+    /**
+     * @return El número de niveles del árbol (0 si está vacío), sin recorrer el árbol
+     */
+    @Override
+    public int getAltura() {
+        return altura;
+    }
+
+    /**
+     * @return Cuántos nodos de la clase indicada contiene el árbol
+     */
+    @Override
+    public int contarNodos(TipoNodo tipo) {
+        return nodosPorTipo[tipo.ordinal()];
+    }
+
+    /**
+     * Determina la clase de un nodo: la indicada al crearlo o, si no se indicó, la que
+     * corresponde a su posición (la raíz, "T..." para turnos, blancas a la izquierda y negras
+     * a la derecha)
+     */
+    static TipoNodo tipoDe(Nodo nodo, boolean esRaiz, boolean esHijoDerecho) {
+        if (nodo.getTipo() != null) {
+            return nodo.getTipo();
+        }
+        if (esRaiz) {
+            return TipoNodo.RAIZ;
+        }
+        if (nodo.getValor().startsWith("T")) {
+            return TipoNodo.TURNO;
+        }
+        return esHijoDerecho ? TipoNodo.JUGADA_NEGRA : TipoNodo.JUGADA_BLANCA;
+    }
+
+    /**
+     * Suma (signo 1) o resta (signo -1) a los metadatos todos los nodos de un subárbol
+     */
+    private void agregarSubarbol(Nodo inicio, int profundidad, boolean esHijoDerecho, boolean esRaiz, int signo) {
+        IteradorPreorden iterador = new IteradorPreorden(inicio, profundidad, esHijoDerecho, esRaiz);
+        while (iterador.hasNext()) {
+            Nodo nodo = iterador.next();
+            TipoNodo tipo = tipoDe(nodo, iterador.esRaiz(), iterador.esHijoDerecho());
+            registrarNodo(tipo, iterador.getProfundidad(), signo);
+        }
+    }
+
+    private void registrarNodo(TipoNodo tipo, int profundidad, int signo) {
+        if (profundidad >= nodosPorNivel.length) {
+            nodosPorNivel = Arrays.copyOf(nodosPorNivel, Math.max(nodosPorNivel.length * 2, profundidad + 1));
+        }
+        numeroNodos += signo;
+        nodosPorTipo[tipo.ordinal()] += signo;
+        nodosPorNivel[profundidad] += signo;
+        if (signo > 0) {
+            altura = Math.max(altura, profundidad);
+        } else {
+            while (altura > 0 && nodosPorNivel[altura] == 0) {
+                altura--;
+            }
+        }
+    }
+
+    // Recorridos iterativos: no usan la pila de llamadas, así que admiten árboles de cualquier profundidad
+
+    public Iterable<Nodo> recorridoPreorden() {
+        return () -> new IteradorPreorden(raiz, 1, false, true);
+    }
+
+    public Iterable<Nodo> recorridoInorden() {
+        return () -> new IteradorInorden(raiz);
+    }
+
+    public Iterable<Nodo> recorridoPostorden() {
+        return () -> new IteradorPostorden(raiz);
+    }
+
+    public Iterable<Nodo> recorridoPorNiveles() {
+        return () -> new IteradorPorNiveles(raiz);
+    }
+
+    @Override
+    public CursorArbol recorrer(OrdenRecorrido orden) {
+        return new CursorNodos(orden, raiz);
+    }
+
+    /**
+     * Recorrido en preorden (nodo, izquierdo, derecho) con una pila explícita. Tras cada
+     * {@link #next()} se puede consultar la profundidad y el lado del nodo devuelto.
+     */
+    static class IteradorPreorden implements Iterator<Nodo> {
+        private Nodo[] pilaNodos = new Nodo[16];
+        private int[] pilaProfundidades = new int[16];
+        private boolean[] pilaDerechos = new boolean[16];
+        private int cima;
+        private final Nodo inicio;
+        private final boolean inicioEsRaiz;
+
+        private Nodo actual;
+        private int profundidad;
+        private boolean derecho;
+
+        IteradorPreorden(Nodo inicio, int profundidadInicial, boolean esHijoDerecho, boolean esRaiz) {
+            this.inicio = inicio;
+            this.inicioEsRaiz = esRaiz;
+            if (inicio != null) {
+                apilar(inicio, profundidadInicial, esHijoDerecho);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return cima > 0;
+        }
+
+        @Override
+        public Nodo next() {
+            if (cima == 0) {
+                throw new NoSuchElementException();
+            }
+            cima--;
+            actual = pilaNodos[cima];
+            profundidad = pilaProfundidades[cima];
+            derecho = pilaDerechos[cima];
+            pilaNodos[cima] = null;
+
+            // Se apila primero el hijo derecho para visitar antes el izquierdo
+            if (actual.getHijoDerecho() != null) {
+                apilar(actual.getHijoDerecho(), profundidad + 1, true);
+            }
+            if (actual.getHijoIzquierdo() != null) {
+                apilar(actual.getHijoIzquierdo(), profundidad + 1, false);
+            }
+            return actual;
+        }
+
+        /**
+         * @return La profundidad del último nodo devuelto (la raíz del árbol está en el nivel 1)
+         */
+        int getProfundidad() {
+            return profundidad;
+        }
+
+        /**
+         * @return true si el último nodo devuelto es hijo derecho de su padre
+         */
+        boolean esHijoDerecho() {
+            return derecho;
+        }
+
+        /**
+         * @return true si el último nodo devuelto es la raíz del árbol
+         */
+        boolean esRaiz() {
+            return inicioEsRaiz && actual == inicio;
+        }
+
+        private void apilar(Nodo nodo, int profundidadNodo, boolean esDerecho) {
+            if (cima == pilaNodos.length) {
+                pilaNodos = Arrays.copyOf(pilaNodos, cima * 2);
+                pilaProfundidades = Arrays.copyOf(pilaProfundidades, cima * 2);
+                pilaDerechos = Arrays.copyOf(pilaDerechos, cima * 2);
+            }
+            pilaNodos[cima] = nodo;
+            pilaProfundidades[cima] = profundidadNodo;
+            pilaDerechos[cima] = esDerecho;
+            cima++;
+        }
+    }
+
+    /**
+     * Cursor sobre nodos enlazados. Cada nodo pendiente ocupa una posición de una tabla, que se
+     * reutiliza cuando el recorrido lo deja atrás, así que la tabla no pasa del tamaño de la pila.
+     */
+    private static class CursorNodos extends CursorArbol {
+        private Nodo[] tabla = new Nodo[16];
+        private int usadas;
+        private int[] libres = new int[16];
+        private int numeroLibres;
+
+        CursorNodos(OrdenRecorrido orden, Nodo raiz) {
+            super(orden);
+            empezar(registrar(raiz));
+        }
+
+        @Override
+        int hijoIzquierdo(int nodo) {
+            return registrar(tabla[nodo].getHijoIzquierdo());
+        }
+
+        @Override
+        int hijoDerecho(int nodo) {
+            return registrar(tabla[nodo].getHijoDerecho());
+        }
+
+        @Override
+        String valor(int nodo) {
+            return tabla[nodo].getValor();
+        }
+
+        @Override
+        TipoNodo tipo(int nodo, boolean esRaiz, boolean esHijoDerecho) {
+            return tipoDe(tabla[nodo], esRaiz, esHijoDerecho);
+        }
+
+        @Override
+        void liberar(int nodo) {
+            tabla[nodo] = null;
+            if (numeroLibres == libres.length) {
+                libres = Arrays.copyOf(libres, numeroLibres * 2);
+            }
+            libres[numeroLibres++] = nodo;
+        }
+
+        private int registrar(Nodo nodo) {
+            if (nodo == null) {
+                return NINGUNO;
+            }
+            int posicion;
+            if (numeroLibres > 0) {
+                posicion = libres[--numeroLibres];
+            } else {
+                if (usadas == tabla.length) {
+                    tabla = Arrays.copyOf(tabla, usadas * 2);
+                }
+                posicion = usadas++;
+            }
+            tabla[posicion] = nodo;
+            return posicion;
+        }
+    }
+
+    /**
+     * Recorrido en inorden (izquierdo, nodo, derecho) con una pila explícita
+     */
+    private static class IteradorInorden implements Iterator<Nodo> {
+        private final ArrayDeque<Nodo> pila = new ArrayDeque<>();
+
+        IteradorInorden(Nodo raiz) {
+            apilarIzquierdos(raiz);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !pila.isEmpty();
+        }
+
+        @Override
+        public Nodo next() {
+            if (pila.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            Nodo nodo = pila.pop();
+            apilarIzquierdos(nodo.getHijoDerecho());
+            return nodo;
+        }
+
+        private void apilarIzquierdos(Nodo nodo) {
+            while (nodo != null) {
+                pila.push(nodo);
+                nodo = nodo.getHijoIzquierdo();
+            }
+        }
+    }
+
+    /**
+     * Recorrido en postorden (izquierdo, derecho, nodo) con una pila explícita
+     */
+    private static class IteradorPostorden implements Iterator<Nodo> {
+        private final ArrayDeque<Nodo> pila = new ArrayDeque<>();
+        private Nodo ultimoVisitado;
+
+        IteradorPostorden(Nodo raiz) {
+            bajar(raiz);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !pila.isEmpty();
+        }
+
+        @Override
+        public Nodo next() {
+            if (pila.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            // La cima siempre tiene sus hijos ya visitados
+            Nodo nodo = pila.pop();
+            ultimoVisitado = nodo;
+            if (!pila.isEmpty()) {
+                Nodo padre = pila.peek();
+                if (padre.getHijoIzquierdo() == ultimoVisitado && padre.getHijoDerecho() != null) {
+                    bajar(padre.getHijoDerecho());
+                }
+            }
+            return nodo;
+        }
+
+        /**
+         * Desciende hasta la primera hoja en postorden, prefiriendo la izquierda
+         */
+        private void bajar(Nodo nodo) {
+            while (nodo != null) {
+                pila.push(nodo);
+                nodo = nodo.getHijoIzquierdo() != null ? nodo.getHijoIzquierdo() : nodo.getHijoDerecho();
+            }
+        }
+    }
+
+    /**
+     * Recorrido por niveles, de arriba abajo y de izquierda a derecha
+     */
+    private static class IteradorPorNiveles implements Iterator<Nodo> {
+        private final ArrayDeque<Nodo> cola = new ArrayDeque<>();
+
+        IteradorPorNiveles(Nodo raiz) {
+            if (raiz != null) {
+                cola.add(raiz);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !cola.isEmpty();
+        }
+
+        @Override
+        public Nodo next() {
+            if (cola.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            Nodo nodo = cola.poll();
+            if (nodo.getHijoIzquierdo() != null) {
+                cola.add(nodo.getHijoIzquierdo());
+            }
+            if (nodo.getHijoDerecho() != null) {
+                cola.add(nodo.getHijoDerecho());
+            }
+            return nodo;
+        }
+    }
 }
@@ -0,0 +1,193 @@
+package src.ajedrez;
+
+/**
+ * Árbol de una partida guardado en arreglos paralelos de primitivos en lugar de un {@link Nodo}
+ * por nodo: hijos izquierdo y derecho como índices, la clase del nodo en un byte y un código
+ * por nodo (el de {@link JugadaSAN} en las jugadas, el número en los turnos). El texto de las
+ * jugadas queda en {@link TablaJugadas}.
+ *
+ * Tiene la misma forma que el {@link ArbolBinario} de los mismos turnos, con unos 13 bytes por
+ * nodo y sin punteros entre objetos. Los nodos se guardan en preorden, así que recorrer los
+ * índices de 0 a {@link #getNumeroNodos()} - 1 es un recorrido en preorden secuencial en memoria.
+ * Es inmutable y puede compartirse entre hilos.
+ */
+public final class ArbolCompacto implements ArbolPartida {
+    /** Índice de un hijo que no existe */
+    public static final int NINGUNO = CursorArbol.NINGUNO;
+
+    private static final TipoNodo[] TIPOS = TipoNodo.values();
+
+    private final int[] izquierdos;
+    private final int[] derechos;
+    private final byte[] tipos;
+    private final int[] codigos;
+    private final int numeroTurnos;
+    private final int altura;
+    private final int[] nodosPorTipo = new int[TIPOS.length];
+
+    /**
+     * Construye el árbol de unos turnos sin modificarlos; vacío si no hay turnos
+     */
+    public ArbolCompacto(TurnoStore turnos) {
+        int n = turnos.size();
+        int impares = (n + 1) / 2;
+        int negrasImpares = 0;
+        for (int i = 0; i < n; i += 2) {
+            if (turnos.tieneJugadaNegra(i)) {
+                negrasImpares++;
+            }
+        }
+        int ultimoPar = n % 2 == 0 ? n - 1 : n - 2;
+        int numeroNodos = n == 0 ? 0 : 2 + impares + negrasImpares
+                + (n >= 2 ? (turnos.tieneJugadaNegra(ultimoPar) ? 3 : 2) : 0);
+
+        this.izquierdos = new int[numeroNodos];
+        this.derechos = new int[numeroNodos];
+        this.tipos = new byte[numeroNodos];
+        this.codigos = new int[numeroNodos];
+        this.numeroTurnos = n;
+        this.altura = n == 0 ? 0 : impares + 2;
+        if (n == 0) {
+            return;
+        }
+
+        // Preorden: la raíz, la rama izquierda de turnos impares, la jugada blanca del último,
+        // las negras de los impares de abajo arriba y por último el turno par de la derecha
+        int siguiente = 0;
+        siguiente = agregar(siguiente, TipoNodo.RAIZ, 0);
+        int primerImpar = siguiente;
+        for (int k = 0; k < impares; k++) {
+            siguiente = agregar(siguiente, TipoNodo.TURNO, 2 * k + 1);
+        }
+        int blanca = siguiente;
+        siguiente = agregar(siguiente, TipoNodo.JUGADA_BLANCA, turnos.getCodigoBlanca(2 * (impares - 1)));
+        izquierdos[0] = primerImpar;
+        for (int k = 0; k < impares; k++) {
+            izquierdos[primerImpar + k] = k + 1 < impares ? primerImpar + k + 1 : blanca;
+        }
+        for (int k = impares - 1; k >= 0; k--) {
+            if (turnos.tieneJugadaNegra(2 * k)) {
+                derechos[primerImpar + k] = siguiente;
+                siguiente = agregar(siguiente, TipoNodo.JUGADA_NEGRA, turnos.getCodigoNegra(2 * k));
+            }
+        }
+        if (n >= 2) {
+            int par = siguiente;
+            derechos[0] = par;
+            siguiente = agregar(siguiente, TipoNodo.TURNO, ultimoPar + 1);
+            izquierdos[par] = siguiente;
+            siguiente = agregar(siguiente, TipoNodo.JUGADA_BLANCA, turnos.getCodigoBlanca(ultimoPar));
+            if (turnos.tieneJugadaNegra(ultimoPar)) {
+                derechos[par] = siguiente;
+                agregar(siguiente, TipoNodo.JUGADA_NEGRA, turnos.getCodigoNegra(ultimoPar));
+            }
+        }
+    }
+
+    /**
+     * @return El índice del siguiente nodo libre
+     */
+    private int agregar(int indice, TipoNodo tipo, int codigo) {
+        izquierdos[indice] = NINGUNO;
+        derechos[indice] = NINGUNO;
+        tipos[indice] = (byte) tipo.ordinal();
+        codigos[indice] = codigo;
+        nodosPorTipo[tipo.ordinal()]++;
+        return indice + 1;
+    }
+
+    /**
+     * @return El índice de la raíz (0), o {@link #NINGUNO} si el árbol está vacío
+     */
+    public int getRaiz() {
+        return tipos.length > 0 ? 0 : NINGUNO;
+    }
+
+    public int getHijoIzquierdo(int nodo) {
+        return izquierdos[nodo];
+    }
+
+    public int getHijoDerecho(int nodo) {
+        return derechos[nodo];
+    }
+
+    public TipoNodo getTipo(int nodo) {
+        return TIPOS[tipos[nodo]];
+    }
+
+    /**
+     * @return El código de {@link JugadaSAN} en las jugadas, el número en los turnos y 0 en la raíz
+     */
+    public int getCodigo(int nodo) {
+        return codigos[nodo];
+    }
+
+    /**
+     * @return El texto del nodo, como {@link Nodo#getValor()}; el de los turnos se crea al pedirlo
+     */
+    public String getValor(int nodo) {
+        switch (getTipo(nodo)) {
+            case RAIZ:
+                return ArbolBinario.VALOR_RAIZ;
+            case TURNO:
+                return "T" + codigos[nodo];
+            default:
+                return TablaJugadas.texto(codigos[nodo]);
+        }
+    }
+
+    @Override
+    public int getNumeroNodos() {
+        return tipos.length;
+    }
+
+    @Override
+    public int getAltura() {
+        return altura;
+    }
+
+    @Override
+    public int getNumeroTurnos() {
+        return numeroTurnos;
+    }
+
+    @Override
+    public int contarNodos(TipoNodo tipo) {
+        return nodosPorTipo[tipo.ordinal()];
+    }
+
+    @Override
+    public CursorArbol recorrer(OrdenRecorrido orden) {
+        return new CursorCompacto(orden);
+    }
+
+    /**
+     * Cursor sobre los índices de los arreglos, sin tabla de nodos
+     */
+    private class CursorCompacto extends CursorArbol {
+        CursorCompacto(OrdenRecorrido orden) {
+            super(orden);
+            empezar(getRaiz());
+        }
+
+        @Override
+        int hijoIzquierdo(int nodo) {
+            return izquierdos[nodo];
+        }
+
+        @Override
+        int hijoDerecho(int nodo) {
+            return derechos[nodo];
+        }
+
+        @Override
+        String valor(int nodo) {
+            return ArbolCompacto.this.getValor(nodo);
+        }
+
+        @Override
+        TipoNodo tipo(int nodo, boolean esRaiz, boolean esHijoDerecho) {
+            return TIPOS[tipos[nodo]];
+        }
+    }
+}
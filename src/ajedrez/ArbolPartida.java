@@ -0,0 +1,34 @@
+package src.ajedrez;
+
+/**
+ * Árbol de una partida, sea de nodos enlazados ({@link ArbolBinario}) o en arreglos
+ * ({@link ArbolCompacto}). El dibujo y los recorridos funcionan con cualquiera de los dos.
+ */
+public interface ArbolPartida {
+
+    /**
+     * @return El número de nodos alcanzables desde la raíz
+     */
+    int getNumeroNodos();
+
+    /**
+     * @return El número de niveles del árbol (0 si está vacío)
+     */
+    int getAltura();
+
+    /**
+     * @return El número de turnos de la partida
+     */
+    int getNumeroTurnos();
+
+    /**
+     * @return Cuántos nodos de la clase indicada contiene el árbol
+     */
+    int contarNodos(TipoNodo tipo);
+
+    /**
+     * Recorre el árbol sin recursión y sin crear un objeto por nodo visitado
+     * @return Un cursor situado antes del primer nodo
+     */
+    CursorArbol recorrer(OrdenRecorrido orden);
+}
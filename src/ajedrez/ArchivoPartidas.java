@@ -0,0 +1,226 @@
+package src.ajedrez;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lector de archivos binarios de partidas ya analizadas, escritos con {@link EscritorArchivoPartidas}.
+ *
+ * El archivo se proyecta en memoria y cualquier partida se lee por su índice sin analizar
+ * texto: las jugadas están guardadas como códigos de {@link JugadaSAN}. Formato (big endian):
+ * <pre>
+ *   cabecera (32 bytes)
+ *     0  int   MAGIA ("AJZB")
+ *     4  int   VERSION
+ *     8  long  número de partidas
+ *     16 long  posición del índice
+ *     24 long  reservado (0)
+ *   partidas, una tras otra
+ *     int   número de turnos
+ *     int   número de jugadas (medios turnos)
+ *     int[] código de cada jugada, alternando blancas y negras
+ *   índice
+ *     long[] posición de cada partida
+ * </pre>
+ * Una proyección no puede pasar de 2 GB, así que el archivo se proyecta por segmentos que
+ * terminan siempre entre dos partidas. Admite lecturas desde varios hilos a la vez.
+ */
+public class ArchivoPartidas implements Closeable {
+    public static final int MAGIA = 0x414A5A42;
+    public static final int VERSION = 1;
+    static final int TAMANO_CABECERA = 32;
+
+    private final FileChannel canal;
+    private final int numeroPartidas;
+    private final MappedByteBuffer indice;
+    // Segmentos proyectados: el segmento s empieza en inicioSegmento[s] del archivo
+    private final long[] inicioSegmento;
+    private final MappedByteBuffer[] segmentos;
+
+    private ArchivoPartidas(FileChannel canal) throws IOException {
+        this.canal = canal;
+        long tamano = canal.size();
+        if (tamano < TAMANO_CABECERA) {
+            throw new IOException("El archivo es demasiado corto para ser un archivo de partidas");
+        }
+        ByteBuffer cabecera = canal.map(FileChannel.MapMode.READ_ONLY, 0, TAMANO_CABECERA);
+        if (cabecera.getInt(0) != MAGIA) {
+            throw new IOException("El archivo no es un archivo de partidas");
+        }
+        int version = cabecera.getInt(4);
+        if (version != VERSION) {
+            throw new IOException("Versión de archivo no soportada: " + version + " (se esperaba " + VERSION + ")");
+        }
+        long partidas = cabecera.getLong(8);
+        long posicionIndice = cabecera.getLong(16);
+        if (partidas < 0 || partidas > Integer.MAX_VALUE / Long.BYTES
+                || posicionIndice < TAMANO_CABECERA || posicionIndice + partidas * Long.BYTES > tamano) {
+            throw new IOException("El índice del archivo está dañado o el archivo no se terminó de escribir");
+        }
+        numeroPartidas = (int) partidas;
+        indice = canal.map(FileChannel.MapMode.READ_ONLY, posicionIndice, partidas * Long.BYTES);
+
+        // Agrupar partidas consecutivas en segmentos de hasta 2 GB
+        List<Long> inicios = new ArrayList<>();
+        List<Long> finales = new ArrayList<>();
+        long inicio = TAMANO_CABECERA;
+        long fin = TAMANO_CABECERA;
+        for (int i = 0; i < numeroPartidas; i++) {
+            long posicion = indice.getLong(i * Long.BYTES);
+            long siguiente = i + 1 < numeroPartidas ? indice.getLong((i + 1) * Long.BYTES) : posicionIndice;
+            if (posicion < fin || siguiente < posicion + 8 || siguiente - posicion > Integer.MAX_VALUE) {
+                throw new IOException("La posición de la partida " + i + " en el índice no es válida");
+            }
+            if (siguiente - inicio > Integer.MAX_VALUE) {
+                inicios.add(inicio);
+                finales.add(fin);
+                inicio = posicion;
+            }
+            fin = siguiente;
+        }
+        inicios.add(inicio);
+        finales.add(fin);
+
+        inicioSegmento = new long[inicios.size()];
+        segmentos = new MappedByteBuffer[inicios.size()];
+        for (int s = 0; s < segmentos.length; s++) {
+            inicioSegmento[s] = inicios.get(s);
+            segmentos[s] = canal.map(FileChannel.MapMode.READ_ONLY, inicios.get(s), finales.get(s) - inicios.get(s));
+        }
+
+        // Los tamaños de cada partida deben cuadrar con el índice: después se usan sin comprobar
+        for (int i = 0; i < numeroPartidas; i++) {
+            int segmento = segmentoDe(i);
+            int posicion = posicionEnSegmento(i, segmento);
+            long siguiente = i + 1 < numeroPartidas ? indice.getLong((i + 1) * Long.BYTES) : posicionIndice;
+            int turnos = segmentos[segmento].getInt(posicion);
+            int jugadas = segmentos[segmento].getInt(posicion + 4);
+            if (jugadas < 0 || turnos != (jugadas + 1) / 2
+                    || siguiente - indice.getLong(i * Long.BYTES) != 8 + 4L * jugadas) {
+                throw new IOException("La partida " + i + " está dañada: " + turnos + " turnos y "
+                        + jugadas + " jugadas no cuadran con su tamaño");
+            }
+        }
+    }
+
+    /**
+     * Abre un archivo de partidas para lectura
+     * @throws IOException Si no se puede leer o no tiene el formato esperado
+     */
+    public static ArchivoPartidas abrir(Path archivo) throws IOException {
+        FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ);
+        try {
+            return new ArchivoPartidas(canal);
+        } catch (IOException | RuntimeException e) {
+            canal.close();
+            throw e;
+        }
+    }
+
+    public int getNumeroPartidas() {
+        return numeroPartidas;
+    }
+
+    public int getNumeroTurnos(int partida) {
+        int segmento = segmentoDe(partida);
+        return segmentos[segmento].getInt(posicionEnSegmento(partida, segmento));
+    }
+
+    /**
+     * @return Jugadas de la partida contando blancas y negras por separado
+     */
+    public int getNumeroJugadas(int partida) {
+        int segmento = segmentoDe(partida);
+        return segmentos[segmento].getInt(posicionEnSegmento(partida, segmento) + 4);
+    }
+
+    /**
+     * Copia los códigos de las jugadas de una partida
+     * @param destino Arreglo con espacio para {@link #getNumeroJugadas(int)} códigos
+     * @return Cuántas jugadas se copiaron
+     */
+    public int leerJugadas(int partida, int[] destino) {
+        int segmento = segmentoDe(partida);
+        ByteBuffer datos = segmentos[segmento];
+        int posicion = posicionEnSegmento(partida, segmento);
+        int jugadas = datos.getInt(posicion + 4);
+        if (destino.length < jugadas) {
+            throw new IllegalArgumentException("El destino tiene espacio para " + destino.length +
+                    " jugadas pero la partida tiene " + jugadas);
+        }
+        posicion += 8;
+        for (int i = 0; i < jugadas; i++, posicion += 4) {
+            destino[i] = datos.getInt(posicion);
+        }
+        return jugadas;
+    }
+
+    /**
+     * @return Los turnos de la partida, como los dejaría {@link ChessGameParser#getTurnoStore()}
+     */
+    public TurnoStore leerTurnos(int partida) {
+        int[] jugadas = new int[getNumeroJugadas(partida)];
+        int cantidad = leerJugadas(partida, jugadas);
+        TurnoStore turnos = new TurnoStore();
+        for (int i = 0; i < cantidad; i += 2) {
+            turnos.agregar(jugadas[i], i + 1 < cantidad ? jugadas[i + 1] : JugadaSAN.INVALIDA);
+        }
+        return turnos;
+    }
+
+    /**
+     * @return El árbol de la partida, igual al que construye {@link ChessGameParser} al analizar su texto
+     */
+    public ArbolBinario leerArbol(int partida) {
+        int[] jugadas = new int[getNumeroJugadas(partida)];
+        int cantidad = leerJugadas(partida, jugadas);
+        if (cantidad == 0) {
+            return new ArbolBinario();
+        }
+        ArbolBinario arbol = new ArbolBinario(ArbolBinario.VALOR_RAIZ);
+        for (int i = 0; i < cantidad; i += 2) {
+            arbol.appendTurno(i / 2 + 1, jugadas[i], i + 1 < cantidad ? jugadas[i + 1] : JugadaSAN.INVALIDA);
+        }
+        return arbol;
+    }
+
+    /**
+     * Cierra el canal. Las proyecciones se liberan cuando el recolector de basura las reclama.
+     */
+    @Override
+    public void close() throws IOException {
+        canal.close();
+    }
+
+    private int segmentoDe(int partida) {
+        if (partida < 0 || partida >= numeroPartidas) {
+            throw new IndexOutOfBoundsException("Partida " + partida + " fuera de rango (hay " + numeroPartidas + ")");
+        }
+        if (segmentos.length == 1) {
+            return 0;
+        }
+        long posicion = indice.getLong(partida * Long.BYTES);
+        int bajo = 0;
+        int alto = inicioSegmento.length - 1;
+        while (bajo < alto) {
+            int medio = (bajo + alto + 1) >>> 1;
+            if (inicioSegmento[medio] <= posicion) {
+                bajo = medio;
+            } else {
+                alto = medio - 1;
+            }
+        }
+        return bajo;
+    }
+
+    private int posicionEnSegmento(int partida, int segmento) {
+        return (int) (indice.getLong(partida * Long.BYTES) - inicioSegmento[segmento]);
+    }
+}
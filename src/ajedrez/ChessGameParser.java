@@ -1,208 +1,584 @@
 package src.ajedrez;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 
 /**
  * Analizador sintáctico para juegos de ajedrez en notación algebraica estándar (SAN)
  */
 public class ChessGameParser {
-    // Expresiones regulares para los diferentes componentes de la notación SAN
-    private static final String REGEX_CASILLA = "[a-h][1-8]";
-    private static final String REGEX_PIEZA = "[KQRBN]";
-    private static final String REGEX_ENROQUE_CORTO = "O-O";
-    private static final String REGEX_ENROQUE_LARGO = "O-O-O";
-    private static final String REGEX_JAQUE_MATE = "[+#]";
-    private static final String REGEX_PROMOCION = "=[QRBN]";
-    private static final String REGEX_LETRA = "[a-h]";
-    private static final String REGEX_NUMERO = "[1-8]";
-    private static final String REGEX_DESAMBIGUACION = "(" + REGEX_LETRA + "|" + REGEX_NUMERO + "|" + REGEX_LETRA + REGEX_NUMERO + ")";
-    private static final String REGEX_CAPTURA = "x";
-
-    // Patrones para los diferentes tipos de jugadas
-    private static final Pattern PATTERN_ENROQUE =
-            Pattern.compile("^(O-O|O-O-O)(" + REGEX_JAQUE_MATE + ")?$");
-
-    private static final Pattern PATTERN_MOVIMIENTO_PIEZA =
-            Pattern.compile("^" + REGEX_PIEZA + "(" + REGEX_DESAMBIGUACION + ")?(" + REGEX_CAPTURA + ")?(" +
-                    REGEX_CASILLA + ")(" + REGEX_PROMOCION + ")?(" + REGEX_JAQUE_MATE + ")?$");
-
-    private static final Pattern PATTERN_PEON_AVANCE =
-            Pattern.compile("^(" + REGEX_CASILLA + ")(" + REGEX_PROMOCION + ")?(" + REGEX_JAQUE_MATE + ")?$");
-
-    private static final Pattern PATTERN_PEON_CAPTURA =
-            Pattern.compile("^(" + REGEX_LETRA + ")(" + REGEX_CAPTURA + ")(" + REGEX_CASILLA +
-                    ")(" + REGEX_PROMOCION + ")?(" + REGEX_JAQUE_MATE + ")?$");
-
-    // Patrón para identificar un turno completo
-    private static final Pattern PATTERN_TURNO =
-            Pattern.compile("(\\d+)\\.\\s+([^\\s]+)(\\s+([^\\s]+))?");
-
-    private List<Turno> turnos;
-    private String errorMessage;
+    // Por debajo de estos tamaños el análisis en paralelo no compensa el reparto
+    private static final int TAMANO_MINIMO_PARALELO = 256 * 1024;
+    private static final int TAMANO_MINIMO_TRAMO = 64 * 1024;
+
+    // Turnos y error del último análisis
+    private Lectura estado;
     private ArbolBinario arbol;
+    private boolean validarLegalidad;
 
     public ChessGameParser() {
-        this.turnos = new ArrayList<>();
-        this.errorMessage = "";
+        this.estado = new Lectura(new TurnoStore());
         this.arbol = new ArbolBinario();
     }
 
+    /**
+     * Recibe los turnos y el resultado de cada partida durante un análisis por flujo
+     */
+    public interface OyentePartida {
+        /**
+         * Se invoca por cada turno válido en cuanto se reconoce
+         */
+        void turno(int numeroPartida, Turno turno);
+
+        /**
+         * Se invoca al terminar cada partida
+         */
+        void finPartida(int numeroPartida, boolean valida, String mensajeError);
+
+        /**
+         * @return false si el oyente no usa {@link #turno(int, Turno)}: entonces no se crea un
+         *         {@link Turno} por turno y basta con {@link ChessGameParser#getTurnosLeidos()}
+         */
+        default boolean recibeTurnos() {
+            return true;
+        }
+    }
+
     /**
      * Analiza una partida completa en notación SAN y construye un árbol binario
      * @param partidaSAN La partida en formato SAN
      * @return true si la partida es válida, false en caso contrario
      */
     public boolean parse(String partidaSAN) {
-        turnos.clear();
-        errorMessage = "";
+        reiniciarTurnos();
+        estado.reiniciarError();
         arbol = new ArbolBinario();
 
-        try {
-            // Normalizar espacios y saltos de línea
-            partidaSAN = partidaSAN.replaceAll("\\s+", " ").trim();
-
-            // Dividir la partida en turnos
-            Matcher turnoMatcher = PATTERN_TURNO.matcher(partidaSAN);
-
-            int ultimoNumeroTurno = 0;
-            while (turnoMatcher.find()) {
-                String numeroTurnoStr = turnoMatcher.group(1);
-                String jugadaBlanca = turnoMatcher.group(2);
-                String jugadaNegra = turnoMatcher.group(4); // Puede ser null
-
-                // Validar número de turno
-                int numeroTurno;
-                try {
-                    numeroTurno = Integer.parseInt(numeroTurnoStr);
-                } catch (NumberFormatException e) {
-                    errorMessage = "Error en el formato del número de turno: " + numeroTurnoStr;
-                    return false;
-                }
+        if (!leerPartida(estado, partidaSAN)) {
+            return false;
+        }
 
-                // Verificar secuencia de números de turno
-                if (numeroTurno != ultimoNumeroTurno + 1) {
-                    errorMessage = "Error en la secuencia de turnos. Se esperaba el turno " +
-                            (ultimoNumeroTurno + 1) + " pero se encontró " + numeroTurno;
-                    return false;
-                }
-                ultimoNumeroTurno = numeroTurno;
+        // Construir el árbol después de parsear todos los turnos
+        construirArbol();
+        return true;
+    }
 
-                // Validar jugada blanca
-                if (!validarJugada(jugadaBlanca)) {
-                    errorMessage = "Error en la jugada blanca del turno " + numeroTurno +
-                            ": '" + jugadaBlanca + "' no es una jugada válida según la gramática BNF";
-                    return false;
-                }
+    /**
+     * Analiza una partida completa sin modificar este analizador, así que una misma instancia
+     * puede usarse a la vez desde varios hilos. De la instancia solo se lee la configuración,
+     * que conviene fijar antes de compartirla.
+     *
+     * El árbol no se construye durante el análisis sino la primera vez que se pide al resultado.
+     * @param partidaSAN La partida en formato SAN
+     * @return Los turnos válidos y, si la partida no es válida, el primer error
+     */
+    public ResultadoAnalisis analizar(String partidaSAN) {
+        // Solo se crean los turnos del resultado y, con legalidad, un tablero
+        Lectura lectura = new Lectura(new TurnoStore());
+        if (leerPartida(lectura, partidaSAN)) {
+            return new ResultadoAnalisis(lectura.turnos, null);
+        }
+        return new ResultadoAnalisis(lectura.turnos, new ResultadoAnalisis.ErrorAnalisis(lectura.fallo,
+                lectura.errorMessage, lectura.turnoError, lectura.colorError, lectura.offsetError));
+    }
 
-                // Validar jugada negra (si existe)
-                if (jugadaNegra != null && !jugadaNegra.isEmpty()) {
-                    if (!validarJugada(jugadaNegra)) {
-                        errorMessage = "Error en la jugada negra del turno " + numeroTurno +
-                                ": '" + jugadaNegra + "' no es una jugada válida según la gramática BNF";
-                        return false;
-                    }
-                }
+    /**
+     * Valida los turnos de una partida completa y los guarda, sin construir el árbol
+     * @return true si la partida es válida, false en caso contrario
+     */
+    private boolean leerPartida(Lectura estado, String partidaSAN) {
+        try {
+            LectorTurnos lector = new LectorTurnos(new StringReader(partidaSAN), false);
+            return analizarTurnos(estado, lector, estado.turnos::agregar, 0);
+        } catch (Exception e) {
+            estado.errorMessage = "Error inesperado al analizar la partida: " + e.getMessage();
+            estado.fallo = TipoFallo.ERROR_INESPERADO;
+            estado.turnoError = 0;
+            estado.colorError = ResultadoAnalisis.SIN_COLOR;
+            Instrumentacion.getMetricas().falloDetectado(TipoFallo.ERROR_INESPERADO);
+            e.printStackTrace();
+            return false;
+        }
+    }
 
-                // Crear y añadir el turno
-                Turno turno = new Turno(numeroTurno, jugadaBlanca, jugadaNegra);
-                turnos.add(turno);
-            }
+    /**
+     * Vuelve a analizar una partida después de un cambio en su texto, reutilizando los turnos de
+     * un análisis anterior que terminan antes del cambio. Solo se lee el texto desde el turno
+     * afectado en adelante; el resultado es el mismo que el de {@link #parse(String)}.
+     * @param partidaSAN El texto completo, ya modificado
+     * @param anterior Análisis del texto antes del cambio, o null para analizarlo completo; no se modifica
+     * @param offsetCambio Primera posición del texto que cambió desde el análisis anterior
+     * @return true si la partida es válida, false en caso contrario
+     */
+    public boolean parseIncremental(String partidaSAN, ChessGameParser anterior, int offsetCambio) {
+        int turnoAfectado = anterior != null && anterior.validarLegalidad == validarLegalidad
+                ? anterior.estado.turnos.buscarTurnoAntesDe(offsetCambio) : -1;
+        if (turnoAfectado < 0) {
+            return parse(partidaSAN);
+        }
+
+        TurnoStore previos = anterior.estado.turnos;
+        reiniciarTurnos();
+        estado.turnos.copiarDe(previos, turnoAfectado);
+        estado.reiniciarError();
+        arbol = new ArbolBinario();
 
-            if (turnos.isEmpty()) {
-                errorMessage = "No se encontraron turnos válidos en la partida";
+        try {
+            int inicio = previos.getOffsetTurno(turnoAfectado);
+            Reader resto = new StringReader(partidaSAN);
+            resto.skip(inicio);
+            LectorTurnos lector = new LectorTurnos(resto, false, inicio);
+            if (!analizarTurnos(estado, lector, estado.turnos::agregar, turnoAfectado)) {
                 return false;
             }
 
-            // Construir el árbol después de parsear todos los turnos
             construirArbol();
-
             return true;
         } catch (Exception e) {
-            errorMessage = "Error inesperado al analizar la partida: " + e.getMessage();
+            estado.errorMessage = "Error inesperado al analizar la partida: " + e.getMessage();
+            Instrumentacion.getMetricas().falloDetectado(TipoFallo.ERROR_INESPERADO);
             e.printStackTrace();
             return false;
         }
     }
 
     /**
-     * Valida una jugada según la gramática BNF
+     * Analiza una partida muy larga repartiendo su texto entre los hilos de
+     * {@link ForkJoinPool#commonPool()}. Ver {@link #parseParalelo(String, ForkJoinPool)}.
      */
-    private boolean validarJugada(String jugada) {
-        if (PATTERN_ENROQUE.matcher(jugada).matches()) {
-            return true;
+    public boolean parseParalelo(String partidaSAN) {
+        return parseParalelo(partidaSAN, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Analiza una partida muy larga en paralelo, con el mismo resultado que {@link #parse(String)}:
+     * los mismos turnos, el mismo primer error con su mensaje y su posición, y el mismo árbol.
+     *
+     * El texto se corta en tramos que empiezan siempre en un encabezado de turno ("1234."), cada
+     * tramo se valida por su cuenta y después se comprueba que la numeración continúe de un tramo
+     * al siguiente. Un tramo que empieza donde la lectura secuencial no vería un turno solo puede
+     * darse tras una jugada inválida de un tramo anterior, que ya es el primer error.
+     * Las partidas cortas, los pools de un solo hilo y la comprobación de legalidad, que depende
+     * de todas las jugadas anteriores, se analizan de forma secuencial.
+     * @param pool Hilos para validar los tramos
+     * @return true si la partida es válida, false en caso contrario
+     */
+    public boolean parseParalelo(String partidaSAN, ForkJoinPool pool) {
+        if (validarLegalidad || partidaSAN.length() < TAMANO_MINIMO_PARALELO || pool.getParallelism() < 2) {
+            return parse(partidaSAN);
         }
-        if (PATTERN_MOVIMIENTO_PIEZA.matcher(jugada).matches()) {
+
+        reiniciarTurnos();
+        estado.reiniciarError();
+        arbol = new ArbolBinario();
+
+        Metricas metricas = Instrumentacion.getMetricas();
+        long inicio = System.nanoTime();
+        try {
+            List<Integer> inicios = dividirEnTramos(partidaSAN, pool.getParallelism());
+            List<Callable<Lectura>> tareas = new ArrayList<>(inicios.size());
+            for (int k = 0; k < inicios.size(); k++) {
+                int desde = inicios.get(k);
+                long hasta = k + 1 < inicios.size() ? inicios.get(k + 1) : Long.MAX_VALUE;
+                // El primer tramo espera el turno 1; los demás, el número de su primer encabezado
+                int turnosPrevios = k == 0 ? 0 : numeroTurnoEn(partidaSAN, desde) - 1;
+                tareas.add(() -> analizarTramo(partidaSAN, desde, hasta, turnosPrevios));
+            }
+            List<Future<Lectura>> resultados = pool.invokeAll(tareas);
+
+            // Unir los tramos en orden hasta el primer error
+            Lectura primerTramo = null;
+            for (int k = 0; k < resultados.size(); k++) {
+                Lectura tramo = resultados.get(k).get();
+                if (k == 0) {
+                    primerTramo = tramo;
+                }
+                boolean sinTurnos = tramo.fallo == TipoFallo.SIN_TURNOS;
+                if (k > 0 && !sinTurnos && (tramo.turnos.size() > 0 || tramo.fallo != null)) {
+                    int esperado = estado.turnos.size() + 1;
+                    int encontrado = numeroTurnoEn(partidaSAN, inicios.get(k));
+                    if (encontrado != esperado) {
+                        estado.errorMessage = mensajeSecuencia(esperado, encontrado);
+                        estado.offsetError = inicios.get(k);
+                        estado.turnoError = esperado;
+                        estado.colorError = ResultadoAnalisis.SIN_COLOR;
+                        return terminarLectura(estado, metricas, inicio, estado.turnos.size(), contarJugadas(),
+                                TipoFallo.SECUENCIA_TURNOS);
+                    }
+                }
+                for (int i = 0; i < tramo.turnos.size(); i++) {
+                    estado.turnos.agregar(tramo.turnos.getCodigoBlanca(i), tramo.turnos.getCodigoNegra(i),
+                            tramo.turnos.getOffsetTurno(i));
+                }
+                if (tramo.fallo != null && !sinTurnos) {
+                    estado.errorMessage = tramo.errorMessage;
+                    estado.offsetError = tramo.offsetError;
+                    estado.turnoError = tramo.turnoError;
+                    estado.colorError = tramo.colorError;
+                    return terminarLectura(estado, metricas, inicio, estado.turnos.size(), contarJugadas(),
+                            tramo.fallo);
+                }
+            }
+            if (estado.turnos.isEmpty()) {
+                estado.errorMessage = primerTramo.errorMessage;
+                estado.offsetError = primerTramo.offsetError;
+                estado.turnoError = 0;
+                estado.colorError = ResultadoAnalisis.SIN_COLOR;
+                return terminarLectura(estado, metricas, inicio, 0, 0, TipoFallo.SIN_TURNOS);
+            }
+            terminarLectura(estado, metricas, inicio, estado.turnos.size(), contarJugadas(), null);
+
+            construirArbol();
             return true;
+        } catch (ExecutionException e) {
+            Throwable causa = e.getCause() != null ? e.getCause() : e;
+            estado.errorMessage = "Error inesperado al analizar la partida: " + causa.getMessage();
+            Instrumentacion.getMetricas().falloDetectado(TipoFallo.ERROR_INESPERADO);
+            causa.printStackTrace();
+            return false;
+        } catch (InterruptedException e) {
+            // Se conserva la interrupción para quien la pidió; no es un error de la partida
+            Thread.currentThread().interrupt();
+            estado.errorMessage = "Análisis interrumpido";
+            return false;
+        } catch (Exception e) {
+            estado.errorMessage = "Error inesperado al analizar la partida: " + e.getMessage();
+            Instrumentacion.getMetricas().falloDetectado(TipoFallo.ERROR_INESPERADO);
+            e.printStackTrace();
+            return false;
         }
-        if (PATTERN_PEON_AVANCE.matcher(jugada).matches()) {
-            return true;
+    }
+
+    /**
+     * Posiciones de inicio de cada tramo: la primera es 0 y las demás, encabezados de turno
+     */
+    private static List<Integer> dividirEnTramos(String texto, int hilos) {
+        int tamanoTramo = Math.max(TAMANO_MINIMO_TRAMO, texto.length() / (Math.max(hilos, 1) * 4));
+        List<Integer> inicios = new ArrayList<>();
+        inicios.add(0);
+        int siguiente = tamanoTramo;
+        while (siguiente < texto.length()) {
+            // Desde el turno 2: un tramo que empezara en el turno 1 se confundiría con una partida nueva
+            int encabezado = LectorTurnos.buscarEncabezado(texto, siguiente, 2);
+            if (encabezado < 0) {
+                break;
+            }
+            inicios.add(encabezado);
+            siguiente = encabezado + tamanoTramo;
         }
-        if (PATTERN_PEON_CAPTURA.matcher(jugada).matches()) {
-            return true;
+        return inicios;
+    }
+
+    private static int numeroTurnoEn(String texto, int inicio) {
+        int fin = inicio;
+        while (fin < texto.length() && !LectorTurnos.esEspacio(texto.charAt(fin))) {
+            fin++;
         }
-        return false;
+        return LectorTurnos.numeroEncabezado(texto, inicio, fin);
     }
 
     /**
-     * Construye el árbol binario a partir de los turnos parseados
+     * Valida los turnos cuyo encabezado empieza en [desde, hasta) con una lectura propia
+     */
+    private Lectura analizarTramo(String texto, int desde, long hasta, int turnosPrevios) throws IOException {
+        Lectura tramo = new Lectura(new TurnoStore());
+        Reader resto = new StringReader(texto);
+        resto.skip(desde);
+        LectorTurnos lector = new LectorTurnos(resto, false, desde, hasta);
+        analizarTurnos(tramo, lector, tramo.turnos::agregar, turnosPrevios, Metricas.NINGUNA);
+        return tramo;
+    }
+
+    private int contarJugadas() {
+        int jugadas = 0;
+        for (int i = 0; i < estado.turnos.size(); i++) {
+            jugadas += estado.turnos.tieneJugadaNegra(i) ? 2 : 1;
+        }
+        return jugadas;
+    }
+
+    /**
+     * Analiza una partida leyéndola por bloques, sin cargar el texto completo en memoria.
+     * Los turnos no se almacenan ni se construye el árbol: cada turno válido se entrega a
+     * {@code destino} en cuanto se reconoce.
+     * @param entrada La partida en formato SAN
+     * @param destino Recibe los turnos válidos en orden
+     * @return true si la partida es válida, false en caso contrario
+     */
+    public boolean parse(Reader entrada, Consumer<Turno> destino) throws IOException {
+        reiniciarTurnos();
+        estado.reiniciarError();
+        arbol = new ArbolBinario();
+
+        return analizarTurnos(estado, new LectorTurnos(entrada, false), aTurnos(destino), 0);
+    }
+
+    /**
+     * Analiza por flujo una entrada con varias partidas separadas por líneas en blanco.
+     * Un error en una partida no detiene el análisis de las siguientes.
+     * @param entrada Las partidas en formato SAN
+     * @param oyente Recibe los turnos y el resultado de cada partida
+     * @return El número de partidas encontradas
+     */
+    public int parsePartidas(Reader entrada, OyentePartida oyente) throws IOException {
+        return parsePartidas(entrada, oyente, null);
+    }
+
+    /**
+     * Como {@link #parsePartidas(Reader, OyentePartida)}, pero si {@code codigos} no es null los
+     * turnos de todas las partidas se le entregan como códigos, sin crear {@link Turno}; el
+     * oyente solo recibe el final de cada partida.
+     */
+    int parsePartidas(Reader entrada, OyentePartida oyente, DestinoTurnos codigos) throws IOException {
+        reiniciarTurnos();
+        arbol = new ArbolBinario();
+
+        LectorTurnos lector = new LectorTurnos(entrada, true);
+        int numeroPartida = 0;
+        while (lector.siguientePartida()) {
+            int partida = ++numeroPartida;
+            estado.reiniciarError();
+            DestinoTurnos destino = codigos != null ? codigos
+                    : oyente.recibeTurnos() ? aTurnos(turno -> oyente.turno(partida, turno))
+                    : (codigoBlanca, codigoNegra, offsetTurno) -> { };
+            boolean valida = analizarTurnos(estado, lector, destino, 0);
+            oyente.finPartida(partida, valida, estado.errorMessage);
+        }
+        return numeroPartida;
+    }
+
+    /**
+     * Recibe los códigos de cada turno válido
+     */
+    interface DestinoTurnos {
+        void agregar(int codigoBlanca, int codigoNegra, long offsetTurno);
+    }
+
+    /**
+     * Turnos y primer error de un análisis, y el tablero con que se comprueba la legalidad.
+     * El analizador guarda la de su último análisis; {@link #analizar(String)} usa una por llamada.
      */
-    private void construirArbol() {
-        if (turnos.isEmpty()) {
-            arbol = new ArbolBinario();
-            return;
+    private static final class Lectura {
+        TurnoStore turnos;
+        String errorMessage = "";
+        long offsetError = -1;
+        TipoFallo fallo;
+        int turnoError;
+        int colorError;
+        int turnosLeidos;
+        Tablero tablero;
+
+        Lectura(TurnoStore turnos) {
+            this.turnos = turnos;
         }
 
-        // Crear el árbol con "Partida" como raíz
-        arbol = new ArbolBinario("Partida");
-        Nodo raiz = arbol.getRaiz();
+        void reiniciarError() {
+            errorMessage = "";
+            offsetError = -1;
+        }
+    }
+
+    /**
+     * Adapta un consumidor de {@link Turno} con el texto canónico de las jugadas
+     */
+    private static DestinoTurnos aTurnos(Consumer<Turno> destino) {
+        int[] numeroTurno = {0};
+        return (codigoBlanca, codigoNegra, offsetTurno) -> destino.accept(new Turno(++numeroTurno[0],
+                TablaJugadas.texto(codigoBlanca),
+                codigoNegra != JugadaSAN.INVALIDA ? TablaJugadas.texto(codigoNegra) : null));
+    }
+
+    /**
+     * Valida los turnos de una partida a medida que el lector los reconoce
+     * @param turnosPrevios Turnos ya validados antes de la posición del lector
+     */
+    private boolean analizarTurnos(Lectura estado, LectorTurnos lector, DestinoTurnos destino,
+                                   int turnosPrevios) throws IOException {
+        return analizarTurnos(estado, lector, destino, turnosPrevios, Instrumentacion.getMetricas());
+    }
 
-        // Si hay al menos un turno, crear el nodo para T1
-        if (!turnos.isEmpty()) {
-            Nodo nodoTurno = new Nodo("T1");
-            raiz.setHijoIzquierdo(nodoTurno);
+    private boolean analizarTurnos(Lectura estado, LectorTurnos lector, DestinoTurnos destino,
+                                   int turnosPrevios, Metricas metricas) throws IOException {
+        estado.fallo = null;
+        long inicio = System.nanoTime();
+        int turnosLeidos = 0;
+        int jugadas = 0;
+        int ultimoNumeroTurno = turnosPrevios;
+        if (validarLegalidad) {
+            prepararTablero(estado, turnosPrevios);
+        }
+        while (lector.siguienteTurno()) {
+            // Un análisis descartado (el texto cambió mientras tanto) termina en cuanto se interrumpe
+            if (Thread.currentThread().isInterrupted()) {
+                estado.errorMessage = "Análisis interrumpido";
+                estado.offsetError = -1;
+                estado.turnoError = 0;
+                estado.colorError = ResultadoAnalisis.SIN_COLOR;
+                estado.fallo = TipoFallo.ERROR_INESPERADO;
+                return false;
+            }
 
-            // Añadir jugadas blanca y negra de T1
-            Turno turno = turnos.get(0);
-            Nodo nodoBlancoT1 = new Nodo(turno.getJugadaBlanca());
-            nodoTurno.setHijoIzquierdo(nodoBlancoT1);
-            if (turno.getJugadaNegra() != null && !turno.getJugadaNegra().isEmpty()) {
-                Nodo nodoNegroT1 = new Nodo(turno.getJugadaNegra());
-                nodoTurno.setHijoDerecho(nodoNegroT1);
+            // Validar número de turno
+            int numeroTurno = lector.getNumeroTurno();
+            if (numeroTurno < 0) {
+                estado.errorMessage = "Error en el formato del número de turno: " + lector.getTextoNumeroTurno();
+                estado.offsetError = lector.getOffsetTurno();
+                estado.turnoError = ultimoNumeroTurno + 1;
+                estado.colorError = ResultadoAnalisis.SIN_COLOR;
+                return terminarLectura(estado, metricas, inicio, turnosLeidos, jugadas, TipoFallo.NUMERO_TURNO);
             }
 
-            // Procesar los turnos restantes
-            Nodo nodoActual = nodoTurno;
-            for (int i = 1; i < turnos.size(); i++) {
-                turno = turnos.get(i);
-                Nodo nuevoTurno = new Nodo("T" + turno.getNumeroTurno());
-
-                // Alternar entre hijo izquierdo y derecho para balancear
-                if (i % 2 == 1) {
-                    raiz.setHijoDerecho(nuevoTurno);
-                } else {
-                    Nodo temp = raiz.getHijoIzquierdo();
-                    while (temp.getHijoIzquierdo() != null && temp.getHijoIzquierdo().getValor().startsWith("T")) {
-                        temp = temp.getHijoIzquierdo();
-                    }
-                    temp.setHijoIzquierdo(nuevoTurno);
+            // Verificar secuencia de números de turno
+            if (numeroTurno != ultimoNumeroTurno + 1) {
+                estado.errorMessage = mensajeSecuencia(ultimoNumeroTurno + 1, numeroTurno);
+                estado.offsetError = lector.getOffsetTurno();
+                estado.turnoError = ultimoNumeroTurno + 1;
+                estado.colorError = ResultadoAnalisis.SIN_COLOR;
+                return terminarLectura(estado, metricas, inicio, turnosLeidos, jugadas, TipoFallo.SECUENCIA_TURNOS);
+            }
+            ultimoNumeroTurno = numeroTurno;
+
+            // Validar jugada blanca
+            int codigoBlanca = lector.getCodigoBlanca();
+            if (!JugadaSAN.esValida(codigoBlanca)) {
+                estado.errorMessage = "Error en la jugada blanca del turno " + numeroTurno +
+                        ": '" + lector.getJugadaBlanca() + "' no es una jugada válida según la gramática BNF";
+                estado.offsetError = lector.getOffsetBlanca();
+                estado.turnoError = numeroTurno;
+                estado.colorError = Tablero.BLANCAS;
+                return terminarLectura(estado, metricas, inicio, turnosLeidos, jugadas, TipoFallo.JUGADA_BLANCA);
+            }
+            if (validarLegalidad) {
+                ResultadoJugada resultado = estado.tablero.aplicar(codigoBlanca);
+                if (resultado != ResultadoJugada.LEGAL) {
+                    estado.errorMessage = "Error en la jugada blanca del turno " + numeroTurno +
+                            ": '" + lector.getJugadaBlanca() + "' no es legal: " + resultado.getDescripcion();
+                    estado.offsetError = lector.getOffsetBlanca();
+                    estado.turnoError = numeroTurno;
+                    estado.colorError = Tablero.BLANCAS;
+                    return terminarLectura(estado, metricas, inicio, turnosLeidos, jugadas, TipoFallo.JUGADA_ILEGAL);
                 }
+            }
 
-                // Añadir jugadas blanca y negra del turno actual
-                Nodo nodoBlanco = new Nodo(turno.getJugadaBlanca());
-                nuevoTurno.setHijoIzquierdo(nodoBlanco);
-                if (turno.getJugadaNegra() != null && !turno.getJugadaNegra().isEmpty()) {
-                    Nodo nodoNegro = new Nodo(turno.getJugadaNegra());
-                    nuevoTurno.setHijoDerecho(nodoNegro);
+            // Validar jugada negra (si existe)
+            int codigoNegra = lector.getCodigoNegra();
+            if (lector.hayJugadaNegra()) {
+                if (!JugadaSAN.esValida(codigoNegra)) {
+                    estado.errorMessage = "Error en la jugada negra del turno " + numeroTurno +
+                            ": '" + lector.getJugadaNegra() + "' no es una jugada válida según la gramática BNF";
+                    estado.offsetError = lector.getOffsetNegra();
+                    estado.turnoError = numeroTurno;
+                    estado.colorError = Tablero.NEGRAS;
+                    return terminarLectura(estado, metricas, inicio, turnosLeidos, jugadas, TipoFallo.JUGADA_NEGRA);
                 }
+                if (validarLegalidad) {
+                    ResultadoJugada resultado = estado.tablero.aplicar(codigoNegra);
+                    if (resultado != ResultadoJugada.LEGAL) {
+                        estado.errorMessage = "Error en la jugada negra del turno " + numeroTurno +
+                                ": '" + lector.getJugadaNegra() + "' no es legal: " + resultado.getDescripcion();
+                        estado.offsetError = lector.getOffsetNegra();
+                        estado.turnoError = numeroTurno;
+                        estado.colorError = Tablero.NEGRAS;
+                        return terminarLectura(estado, metricas, inicio, turnosLeidos, jugadas,
+                                TipoFallo.JUGADA_ILEGAL);
+                    }
+                }
+            }
 
-                nodoActual = nuevoTurno;
+            // Entregar el turno
+            turnosLeidos++;
+            jugadas += lector.hayJugadaNegra() ? 2 : 1;
+            destino.agregar(codigoBlanca, codigoNegra, lector.getOffsetTurno());
+        }
+
+        if (ultimoNumeroTurno == 0) {
+            estado.errorMessage = "No se encontraron turnos válidos en la partida";
+            estado.offsetError = lector.getInicioPartida();
+            estado.turnoError = 0;
+            estado.colorError = ResultadoAnalisis.SIN_COLOR;
+            return terminarLectura(estado, metricas, inicio, turnosLeidos, jugadas, TipoFallo.SIN_TURNOS);
+        }
+        return terminarLectura(estado, metricas, inicio, turnosLeidos, jugadas, null);
+    }
+
+    /**
+     * Deja el tablero en la posición que sigue a los turnos ya validados.
+     * Esos turnos se comprobaron con el mismo modo, así que solo se reproducen.
+     */
+    private void prepararTablero(Lectura estado, int turnosPrevios) {
+        if (estado.tablero == null) {
+            estado.tablero = new Tablero();
+        }
+        estado.tablero.reiniciar();
+        for (int i = 0; i < turnosPrevios; i++) {
+            estado.tablero.aplicar(estado.turnos.getCodigoBlanca(i));
+            if (estado.turnos.tieneJugadaNegra(i)) {
+                estado.tablero.aplicar(estado.turnos.getCodigoNegra(i));
             }
         }
     }
 
+    private static String mensajeSecuencia(int esperado, int encontrado) {
+        return "Error en la secuencia de turnos. Se esperaba el turno " + esperado + " pero se encontró " + encontrado;
+    }
+
+    /**
+     * Informa a las métricas del final de la lectura de una partida
+     * @param fallo Motivo por el que la partida no es válida, o null si es válida
+     * @return true si la partida es válida
+     */
+    private boolean terminarLectura(Lectura estado, Metricas metricas, long inicio, int turnos, int jugadas,
+                                    TipoFallo fallo) {
+        estado.fallo = fallo;
+        estado.turnosLeidos = turnos;
+        metricas.lecturaTerminada(turnos, jugadas, System.nanoTime() - inicio, fallo == null);
+        if (fallo != null) {
+            metricas.falloDetectado(fallo);
+        }
+        return fallo == null;
+    }
+
+    /**
+     * Construye el árbol binario a partir de los turnos parseados
+     */
+    void construirArbol() {
+        arbol = construirArbol(estado.turnos);
+    }
+
+    /**
+     * Construye el árbol binario de unos turnos, que desde entonces no deben modificarse: los
+     * nodos se crean a partir de ellos la primera vez que se recorren
+     * ({@link ArbolBinario#diferido(TurnoStore)})
+     */
+    static ArbolBinario construirArbol(TurnoStore turnos) {
+        long inicio = System.nanoTime();
+        ArbolBinario arbol = ArbolBinario.diferido(turnos);
+        if (arbol.getRaiz() != null) {
+            Instrumentacion.getMetricas().arbolConstruido(arbol.getNumeroNodos(), System.nanoTime() - inicio);
+        }
+        return arbol;
+    }
+
+    /**
+     * Vacía los turnos antes de un nuevo análisis. Si respaldan el árbol ya construido o se
+     * entregaron con {@link #getTurnoStore()}, se empieza un almacén nuevo en lugar de vaciarlos.
+     */
+    private void reiniciarTurnos() {
+        if (arbol.getRaiz() != null || estado.turnos.isSoloLectura()) {
+            estado.turnos = new TurnoStore();
+        } else {
+            estado.turnos.limpiar();
+        }
+    }
+
     /**
      * Devuelve el árbol binario generado
      * @return El árbol binario
@@ -211,11 +587,49 @@ public class ChessGameParser {
         return arbol;
     }
 
+    /**
+     * @return Los turnos de la última partida analizada, creados al consultarlos
+     */
     public List<Turno> getTurnos() {
-        return turnos;
+        return estado.turnos.comoLista();
+    }
+
+    /**
+     * @return Los turnos de la última partida analizada en su forma compacta, de solo lectura.
+     *         El siguiente análisis los guarda en otro almacén, así que no cambian.
+     */
+    public TurnoStore getTurnoStore() {
+        return estado.turnos.soloLectura();
+    }
+
+    /**
+     * Activa la comprobación de legalidad: además de la gramática, cada jugada se reproduce sobre
+     * un {@link Tablero} y debe ser legal en la posición, con la desambiguación y los
+     * indicadores de captura, promoción, jaque y mate correctos. Está desactivada por defecto.
+     */
+    public void setValidarLegalidad(boolean validarLegalidad) {
+        this.validarLegalidad = validarLegalidad;
+    }
+
+    public boolean isValidarLegalidad() {
+        return validarLegalidad;
+    }
+
+    /**
+     * @return El número de turnos válidos de la última partida leída
+     */
+    public int getTurnosLeidos() {
+        return estado.turnosLeidos;
     }
 
     public String getErrorMessage() {
-        return errorMessage;
+        return estado.errorMessage;
+    }
+
+    /**
+     * @return La posición (en caracteres) del elemento que provocó el último error, o -1 si no hubo error
+     */
+    public long getOffsetError() {
+        return estado.offsetError;
     }
 }
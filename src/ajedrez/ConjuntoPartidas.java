@@ -0,0 +1,394 @@
+package src.ajedrez;
+
+import java.util.Arrays;
+
+/**
+ * Conjunto comprimido de identificadores de partida (enteros no negativos), al estilo de los
+ * "roaring bitmaps".
+ *
+ * Los identificadores se agrupan por sus 16 bits altos. Cada grupo guarda los 16 bits bajos en
+ * un arreglo ordenado mientras tiene pocos elementos y en un mapa de 65536 bits cuando pasa de
+ * {@link #LIMITE_ARREGLO}, así que un conjunto ocupa como mucho 2 bytes por elemento o 8 KB por
+ * grupo. Las operaciones de intersección, unión y diferencia trabajan grupo a grupo sin
+ * descomprimir y devuelven un conjunto nuevo.
+ *
+ * Los conjuntos que devuelve {@link IndiceJugadas} no cambian después; solo el índice modifica
+ * los suyos, con {@link #agregar(int)}.
+ */
+public final class ConjuntoPartidas {
+    /** Elementos a partir de los cuales un grupo pasa de arreglo a mapa de bits */
+    static final int LIMITE_ARREGLO = 4096;
+    private static final int PALABRAS_MAPA = 65536 / 64;
+
+    private char[] claves = new char[4];
+    private Grupo[] grupos = new Grupo[4];
+    private int numeroGrupos;
+
+    /**
+     * Los 16 bits bajos de los elementos de un mismo grupo, en arreglo ordenado o en mapa de bits
+     */
+    private static final class Grupo {
+        char[] valores;
+        long[] bits;
+        int cardinalidad;
+
+        static Grupo conArreglo(int capacidad) {
+            Grupo grupo = new Grupo();
+            grupo.valores = new char[capacidad];
+            return grupo;
+        }
+
+        boolean contiene(char valor) {
+            if (bits != null) {
+                return (bits[valor >>> 6] & (1L << valor)) != 0;
+            }
+            return Arrays.binarySearch(valores, 0, cardinalidad, valor) >= 0;
+        }
+
+        void agregar(char valor) {
+            if (bits != null) {
+                long anterior = bits[valor >>> 6];
+                bits[valor >>> 6] = anterior | (1L << valor);
+                if (bits[valor >>> 6] != anterior) {
+                    cardinalidad++;
+                }
+                return;
+            }
+            // Las partidas suelen llegar en orden: agregar al final es el caso común
+            int posicion;
+            if (cardinalidad == 0 || valores[cardinalidad - 1] < valor) {
+                posicion = cardinalidad;
+            } else {
+                posicion = Arrays.binarySearch(valores, 0, cardinalidad, valor);
+                if (posicion >= 0) {
+                    return;
+                }
+                posicion = -posicion - 1;
+            }
+            if (cardinalidad == LIMITE_ARREGLO) {
+                aMapa();
+                agregar(valor);
+                return;
+            }
+            if (cardinalidad == valores.length) {
+                valores = Arrays.copyOf(valores, Math.min(LIMITE_ARREGLO, Math.max(4, valores.length * 2)));
+            }
+            System.arraycopy(valores, posicion, valores, posicion + 1, cardinalidad - posicion);
+            valores[posicion] = valor;
+            cardinalidad++;
+        }
+
+        private void aMapa() {
+            long[] mapa = new long[PALABRAS_MAPA];
+            for (int i = 0; i < cardinalidad; i++) {
+                mapa[valores[i] >>> 6] |= 1L << valores[i];
+            }
+            bits = mapa;
+            valores = null;
+        }
+
+        /**
+         * Pasa a arreglo si el mapa quedó con pocos elementos tras una operación
+         */
+        Grupo compactar() {
+            if (bits == null || cardinalidad > LIMITE_ARREGLO) {
+                return this;
+            }
+            Grupo grupo = conArreglo(cardinalidad);
+            for (int palabra = 0; palabra < PALABRAS_MAPA; palabra++) {
+                long resto = bits[palabra];
+                while (resto != 0) {
+                    grupo.valores[grupo.cardinalidad++] = (char) (palabra * 64 + Long.numberOfTrailingZeros(resto));
+                    resto &= resto - 1;
+                }
+            }
+            return grupo;
+        }
+
+        Grupo copia() {
+            Grupo grupo = new Grupo();
+            grupo.valores = valores != null ? Arrays.copyOf(valores, cardinalidad) : null;
+            grupo.bits = bits != null ? bits.clone() : null;
+            grupo.cardinalidad = cardinalidad;
+            return grupo;
+        }
+
+        long[] comoMapa() {
+            if (bits != null) {
+                return bits;
+            }
+            long[] mapa = new long[PALABRAS_MAPA];
+            for (int i = 0; i < cardinalidad; i++) {
+                mapa[valores[i] >>> 6] |= 1L << valores[i];
+            }
+            return mapa;
+        }
+
+        static Grupo desdeMapa(long[] mapa) {
+            Grupo grupo = new Grupo();
+            grupo.bits = mapa;
+            for (long palabra : mapa) {
+                grupo.cardinalidad += Long.bitCount(palabra);
+            }
+            return grupo.compactar();
+        }
+    }
+
+    /**
+     * Agrega una partida al conjunto. Solo lo usa {@link IndiceJugadas} sobre sus propios conjuntos.
+     */
+    void agregar(int partida) {
+        if (partida < 0) {
+            throw new IllegalArgumentException("Identificador de partida negativo: " + partida);
+        }
+        char clave = (char) (partida >>> 16);
+        int indice;
+        if (numeroGrupos > 0 && claves[numeroGrupos - 1] == clave) {
+            indice = numeroGrupos - 1;
+        } else {
+            indice = buscarGrupo(clave);
+            if (indice < 0) {
+                indice = -indice - 1;
+                insertarGrupo(indice, clave, Grupo.conArreglo(4));
+            }
+        }
+        grupos[indice].agregar((char) partida);
+    }
+
+    public boolean contiene(int partida) {
+        if (partida < 0) {
+            return false;
+        }
+        int indice = buscarGrupo((char) (partida >>> 16));
+        return indice >= 0 && grupos[indice].contiene((char) partida);
+    }
+
+    public int getCardinalidad() {
+        int total = 0;
+        for (int i = 0; i < numeroGrupos; i++) {
+            total += grupos[i].cardinalidad;
+        }
+        return total;
+    }
+
+    public boolean estaVacio() {
+        return numeroGrupos == 0;
+    }
+
+    /**
+     * @return Las partidas del conjunto en orden creciente
+     */
+    public int[] aArreglo() {
+        int[] resultado = new int[getCardinalidad()];
+        int n = 0;
+        for (int i = 0; i < numeroGrupos; i++) {
+            int alto = claves[i] << 16;
+            Grupo grupo = grupos[i];
+            if (grupo.bits == null) {
+                for (int j = 0; j < grupo.cardinalidad; j++) {
+                    resultado[n++] = alto | grupo.valores[j];
+                }
+            } else {
+                for (int palabra = 0; palabra < PALABRAS_MAPA; palabra++) {
+                    long resto = grupo.bits[palabra];
+                    while (resto != 0) {
+                        resultado[n++] = alto | (palabra * 64 + Long.numberOfTrailingZeros(resto));
+                        resto &= resto - 1;
+                    }
+                }
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * @return Las partidas que están en este conjunto y en {@code otro}
+     */
+    public ConjuntoPartidas y(ConjuntoPartidas otro) {
+        ConjuntoPartidas resultado = new ConjuntoPartidas();
+        int i = 0;
+        int j = 0;
+        while (i < numeroGrupos && j < otro.numeroGrupos) {
+            if (claves[i] < otro.claves[j]) {
+                i++;
+            } else if (claves[i] > otro.claves[j]) {
+                j++;
+            } else {
+                Grupo grupo = interseccion(grupos[i], otro.grupos[j]);
+                if (grupo.cardinalidad > 0) {
+                    resultado.insertarGrupo(resultado.numeroGrupos, claves[i], grupo);
+                }
+                i++;
+                j++;
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * @return Las partidas que están en este conjunto o en {@code otro}
+     */
+    public ConjuntoPartidas o(ConjuntoPartidas otro) {
+        ConjuntoPartidas resultado = new ConjuntoPartidas();
+        int i = 0;
+        int j = 0;
+        while (i < numeroGrupos || j < otro.numeroGrupos) {
+            if (j == otro.numeroGrupos || (i < numeroGrupos && claves[i] < otro.claves[j])) {
+                resultado.insertarGrupo(resultado.numeroGrupos, claves[i], grupos[i].copia());
+                i++;
+            } else if (i == numeroGrupos || claves[i] > otro.claves[j]) {
+                resultado.insertarGrupo(resultado.numeroGrupos, otro.claves[j], otro.grupos[j].copia());
+                j++;
+            } else {
+                resultado.insertarGrupo(resultado.numeroGrupos, claves[i], union(grupos[i], otro.grupos[j]));
+                i++;
+                j++;
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * @return Las partidas de este conjunto que no están en {@code otro}
+     */
+    public ConjuntoPartidas excepto(ConjuntoPartidas otro) {
+        ConjuntoPartidas resultado = new ConjuntoPartidas();
+        int j = 0;
+        for (int i = 0; i < numeroGrupos; i++) {
+            while (j < otro.numeroGrupos && otro.claves[j] < claves[i]) {
+                j++;
+            }
+            Grupo grupo = j < otro.numeroGrupos && otro.claves[j] == claves[i]
+                    ? diferencia(grupos[i], otro.grupos[j])
+                    : grupos[i].copia();
+            if (grupo.cardinalidad > 0) {
+                resultado.insertarGrupo(resultado.numeroGrupos, claves[i], grupo);
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * @return Un conjunto independiente con los mismos elementos
+     */
+    public ConjuntoPartidas copia() {
+        ConjuntoPartidas resultado = new ConjuntoPartidas();
+        for (int i = 0; i < numeroGrupos; i++) {
+            resultado.insertarGrupo(i, claves[i], grupos[i].copia());
+        }
+        return resultado;
+    }
+
+    @Override
+    public String toString() {
+        int cardinalidad = getCardinalidad();
+        if (cardinalidad > 20) {
+            return "ConjuntoPartidas[" + cardinalidad + " partidas]";
+        }
+        return Arrays.toString(aArreglo());
+    }
+
+    private static Grupo interseccion(Grupo a, Grupo b) {
+        if (a.bits != null && b.bits != null) {
+            long[] mapa = new long[PALABRAS_MAPA];
+            for (int k = 0; k < PALABRAS_MAPA; k++) {
+                mapa[k] = a.bits[k] & b.bits[k];
+            }
+            return Grupo.desdeMapa(mapa);
+        }
+        if (a.bits != null) {
+            return interseccion(b, a);
+        }
+        // a es un arreglo: basta con filtrar sus valores
+        Grupo grupo = Grupo.conArreglo(a.cardinalidad);
+        for (int k = 0; k < a.cardinalidad; k++) {
+            if (b.contiene(a.valores[k])) {
+                grupo.valores[grupo.cardinalidad++] = a.valores[k];
+            }
+        }
+        return grupo;
+    }
+
+    private static Grupo union(Grupo a, Grupo b) {
+        if (a.bits == null && b.bits == null && a.cardinalidad + b.cardinalidad <= LIMITE_ARREGLO) {
+            Grupo grupo = Grupo.conArreglo(a.cardinalidad + b.cardinalidad);
+            int i = 0;
+            int j = 0;
+            while (i < a.cardinalidad || j < b.cardinalidad) {
+                char valor;
+                if (j == b.cardinalidad || (i < a.cardinalidad && a.valores[i] < b.valores[j])) {
+                    valor = a.valores[i++];
+                } else if (i == a.cardinalidad || a.valores[i] > b.valores[j]) {
+                    valor = b.valores[j++];
+                } else {
+                    valor = a.valores[i++];
+                    j++;
+                }
+                grupo.valores[grupo.cardinalidad++] = valor;
+            }
+            return grupo;
+        }
+        long[] mapa = a.comoMapa().clone();
+        if (b.bits != null) {
+            for (int k = 0; k < PALABRAS_MAPA; k++) {
+                mapa[k] |= b.bits[k];
+            }
+        } else {
+            for (int k = 0; k < b.cardinalidad; k++) {
+                mapa[b.valores[k] >>> 6] |= 1L << b.valores[k];
+            }
+        }
+        return Grupo.desdeMapa(mapa);
+    }
+
+    private static Grupo diferencia(Grupo a, Grupo b) {
+        if (a.bits == null) {
+            Grupo grupo = Grupo.conArreglo(a.cardinalidad);
+            for (int k = 0; k < a.cardinalidad; k++) {
+                if (!b.contiene(a.valores[k])) {
+                    grupo.valores[grupo.cardinalidad++] = a.valores[k];
+                }
+            }
+            return grupo;
+        }
+        long[] mapa = a.bits.clone();
+        if (b.bits != null) {
+            for (int k = 0; k < PALABRAS_MAPA; k++) {
+                mapa[k] &= ~b.bits[k];
+            }
+        } else {
+            for (int k = 0; k < b.cardinalidad; k++) {
+                mapa[b.valores[k] >>> 6] &= ~(1L << b.valores[k]);
+            }
+        }
+        return Grupo.desdeMapa(mapa);
+    }
+
+    private int buscarGrupo(char clave) {
+        int bajo = 0;
+        int alto = numeroGrupos - 1;
+        while (bajo <= alto) {
+            int medio = (bajo + alto) >>> 1;
+            if (claves[medio] < clave) {
+                bajo = medio + 1;
+            } else if (claves[medio] > clave) {
+                alto = medio - 1;
+            } else {
+                return medio;
+            }
+        }
+        return -(bajo + 1);
+    }
+
+    private void insertarGrupo(int indice, char clave, Grupo grupo) {
+        if (numeroGrupos == claves.length) {
+            claves = Arrays.copyOf(claves, numeroGrupos * 2);
+            grupos = Arrays.copyOf(grupos, numeroGrupos * 2);
+        }
+        System.arraycopy(claves, indice, claves, indice + 1, numeroGrupos - indice);
+        System.arraycopy(grupos, indice, grupos, indice + 1, numeroGrupos - indice);
+        claves[indice] = clave;
+        grupos[indice] = grupo;
+        numeroGrupos++;
+    }
+}
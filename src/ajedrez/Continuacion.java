@@ -0,0 +1,69 @@
+package src.ajedrez;
+
+/**
+ * Una jugada posible desde una posición de un {@link ArbolAperturas}, con cuántas partidas la
+ * jugaron y cómo terminaron. Es inmutable.
+ */
+public final class Continuacion {
+    private final int codigo;
+    private final int partidas;
+    private final int victoriasBlancas;
+    private final int tablas;
+    private final int victoriasNegras;
+
+    Continuacion(int codigo, int partidas, int victoriasBlancas, int tablas, int victoriasNegras) {
+        this.codigo = codigo;
+        this.partidas = partidas;
+        this.victoriasBlancas = victoriasBlancas;
+        this.tablas = tablas;
+        this.victoriasNegras = victoriasNegras;
+    }
+
+    /**
+     * @return La jugada en notación SAN, o null para los totales de la posición inicial
+     */
+    public String getJugada() {
+        return JugadaSAN.esValida(codigo) ? TablaJugadas.texto(codigo) : null;
+    }
+
+    /**
+     * @return El código de la jugada según {@link JugadaSAN}
+     */
+    public int getCodigo() {
+        return codigo;
+    }
+
+    /**
+     * @return Partidas que pasaron por esta jugada, incluidas las de resultado desconocido
+     */
+    public int getPartidas() {
+        return partidas;
+    }
+
+    public int getVictoriasBlancas() {
+        return victoriasBlancas;
+    }
+
+    public int getTablas() {
+        return tablas;
+    }
+
+    public int getVictoriasNegras() {
+        return victoriasNegras;
+    }
+
+    /**
+     * @return Puntos de las blancas por partida (1 la victoria, 0.5 las tablas) entre las
+     *         partidas con resultado conocido, o NaN si no hay ninguna
+     */
+    public double getPuntuacionBlancas() {
+        int conResultado = victoriasBlancas + tablas + victoriasNegras;
+        return conResultado == 0 ? Double.NaN : (victoriasBlancas + tablas * 0.5) / conResultado;
+    }
+
+    @Override
+    public String toString() {
+        String jugada = JugadaSAN.esValida(codigo) ? getJugada() : "Posición inicial";
+        return jugada + " (" + partidas + " partidas: +" + victoriasBlancas + " =" + tablas + " -" + victoriasNegras + ")";
+    }
+}
@@ -0,0 +1,203 @@
+package src.ajedrez;
+
+import java.util.Arrays;
+
+/**
+ * Recorrido de un {@link ArbolPartida} que avanza nodo a nodo, con una pila (o una cola, por
+ * niveles) explícita: admite árboles de cualquier profundidad y no crea objetos por nodo.
+ *
+ * Cada implementación identifica sus nodos con enteros: el índice en los arreglos de
+ * {@link ArbolCompacto}, o una posición en una tabla de nodos pendientes en {@link ArbolBinario}.
+ *
+ * <pre>
+ * CursorArbol cursor = arbol.recorrer(OrdenRecorrido.PREORDEN);
+ * while (cursor.siguiente()) {
+ *     ... cursor.getValor(), cursor.getTipo(), cursor.getProfundidad() ...
+ * }
+ * </pre>
+ */
+public abstract class CursorArbol {
+    /** Identificador de un hijo que no existe */
+    static final int NINGUNO = -1;
+
+    private final OrdenRecorrido orden;
+
+    // Pila de nodos pendientes; por niveles se usa como cola desde inicio
+    private int[] pendientes = new int[16];
+    private int[] profundidades = new int[16];
+    private boolean[] derechos = new boolean[16];
+    // En postorden, si ya se apilaron los hijos del nodo
+    private boolean[] expandidos = new boolean[16];
+    private int inicio;
+    private int fin;
+
+    private int actual = NINGUNO;
+    private int profundidad;
+    private boolean derecho;
+
+    CursorArbol(OrdenRecorrido orden) {
+        this.orden = orden;
+    }
+
+    /**
+     * Prepara el recorrido desde la raíz; lo llama el constructor de cada implementación
+     * @param raiz La raíz del árbol, o {@link #NINGUNO} si está vacío
+     */
+    final void empezar(int raiz) {
+        if (raiz == NINGUNO) {
+            return;
+        }
+        if (orden == OrdenRecorrido.INORDEN) {
+            bajarIzquierdos(raiz, 1, false);
+        } else {
+            agregar(raiz, 1, false);
+        }
+    }
+
+    /**
+     * Avanza al siguiente nodo
+     * @return false si ya no quedan nodos
+     */
+    public boolean siguiente() {
+        if (actual != NINGUNO) {
+            liberar(actual);
+            actual = NINGUNO;
+        }
+        switch (orden) {
+            case PREORDEN:
+                if (fin == 0) {
+                    return false;
+                }
+                visitar(--fin);
+                // Se apila primero el hijo derecho para visitar antes el izquierdo
+                agregarHijo(hijoDerecho(actual), true);
+                agregarHijo(hijoIzquierdo(actual), false);
+                return true;
+            case INORDEN:
+                if (fin == 0) {
+                    return false;
+                }
+                visitar(--fin);
+                int derechoActual = hijoDerecho(actual);
+                if (derechoActual != NINGUNO) {
+                    bajarIzquierdos(derechoActual, profundidad + 1, true);
+                }
+                return true;
+            case POSTORDEN:
+                while (fin > 0) {
+                    int cima = fin - 1;
+                    if (expandidos[cima]) {
+                        visitar(--fin);
+                        return true;
+                    }
+                    // La cima se visita cuando vuelva a estarlo, después de sus hijos
+                    expandidos[cima] = true;
+                    int nodo = pendientes[cima];
+                    int profundidadHijos = profundidades[cima] + 1;
+                    int izquierdo = hijoIzquierdo(nodo);
+                    int derechoNodo = hijoDerecho(nodo);
+                    if (derechoNodo != NINGUNO) {
+                        agregar(derechoNodo, profundidadHijos, true);
+                    }
+                    if (izquierdo != NINGUNO) {
+                        agregar(izquierdo, profundidadHijos, false);
+                    }
+                }
+                return false;
+            default:
+                if (inicio == fin) {
+                    return false;
+                }
+                visitar(inicio++);
+                agregarHijo(hijoIzquierdo(actual), false);
+                agregarHijo(hijoDerecho(actual), true);
+                return true;
+        }
+    }
+
+    /**
+     * @return El texto del nodo actual
+     */
+    public String getValor() {
+        return valor(actual);
+    }
+
+    /**
+     * @return La clase del nodo actual
+     */
+    public TipoNodo getTipo() {
+        return tipo(actual, profundidad == 1, derecho);
+    }
+
+    /**
+     * @return La profundidad del nodo actual (la raíz está en el nivel 1)
+     */
+    public int getProfundidad() {
+        return profundidad;
+    }
+
+    /**
+     * @return true si el nodo actual es hijo derecho de su padre
+     */
+    public boolean esHijoDerecho() {
+        return derecho;
+    }
+
+    abstract int hijoIzquierdo(int nodo);
+
+    abstract int hijoDerecho(int nodo);
+
+    abstract String valor(int nodo);
+
+    abstract TipoNodo tipo(int nodo, boolean esRaiz, boolean esHijoDerecho);
+
+    /**
+     * Avisa de que el recorrido ya no volverá a usar el identificador del nodo
+     */
+    void liberar(int nodo) {
+    }
+
+    private void visitar(int posicion) {
+        actual = pendientes[posicion];
+        profundidad = profundidades[posicion];
+        derecho = derechos[posicion];
+    }
+
+    private void agregarHijo(int hijo, boolean esDerecho) {
+        if (hijo != NINGUNO) {
+            agregar(hijo, profundidad + 1, esDerecho);
+        }
+    }
+
+    private void bajarIzquierdos(int nodo, int profundidadNodo, boolean esDerecho) {
+        while (nodo != NINGUNO) {
+            agregar(nodo, profundidadNodo++, esDerecho);
+            nodo = hijoIzquierdo(nodo);
+            esDerecho = false;
+        }
+    }
+
+    private void agregar(int nodo, int profundidadNodo, boolean esDerecho) {
+        if (fin == pendientes.length) {
+            if (inicio > pendientes.length / 2) {
+                // Por niveles: se reaprovecha el espacio ya consumido de la cola
+                int cantidad = fin - inicio;
+                System.arraycopy(pendientes, inicio, pendientes, 0, cantidad);
+                System.arraycopy(profundidades, inicio, profundidades, 0, cantidad);
+                System.arraycopy(derechos, inicio, derechos, 0, cantidad);
+                inicio = 0;
+                fin = cantidad;
+            } else {
+                pendientes = Arrays.copyOf(pendientes, fin * 2);
+                profundidades = Arrays.copyOf(profundidades, fin * 2);
+                derechos = Arrays.copyOf(derechos, fin * 2);
+                expandidos = Arrays.copyOf(expandidos, fin * 2);
+            }
+        }
+        pendientes[fin] = nodo;
+        profundidades[fin] = profundidadNodo;
+        derechos[fin] = esDerecho;
+        expandidos[fin] = false;
+        fin++;
+    }
+}
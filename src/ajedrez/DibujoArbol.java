@@ -0,0 +1,275 @@
+package src.ajedrez;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.Stroke;
+import java.util.Arrays;
+
+/**
+ * Dibujo de los nodos de un árbol sobre cualquier {@link Graphics2D}, compartido por el panel de
+ * {@link VisualizadorArbol} y por {@link ExportadorArbol}.
+ *
+ * Guarda la {@link DisposicionArbol} del árbol y las etiquetas ya recortadas y medidas. No usa
+ * Swing, así que funciona sin pantalla. Las coordenadas son las de la disposición, sin zoom:
+ * quien dibuja aplica la escala y la traslación al contexto.
+ *
+ * Por debajo de {@link #ZOOM_DETALLE} los óvalos ya no se distinguen, así que el árbol se dibuja
+ * resumido: cada racha de niveles se dibuja con unas pocas formas con su número de turnos, y el
+ * tamaño de la racha crece al alejarse para que el número de formas dependa del tamaño de la
+ * vista y no del árbol.
+ */
+class DibujoArbol {
+    static final int ANCHO_NODO = 35;
+    static final int ALTO_NODO = 35;
+    static final int MARGEN_VERTICAL = 60;
+    static final int MARGEN_HORIZONTAL = 60;
+    /** Altura a la que se ubica la raíz */
+    static final int Y_RAIZ = 50;
+
+    static final Color COLOR_NODO_RAIZ = Color.YELLOW;
+    static final Color COLOR_NODO_TURNO = Color.WHITE;
+    static final Color COLOR_NODO_BLANCO = new Color(255, 240, 200); // Beige
+    static final Color COLOR_NODO_NEGRO = new Color(120, 120, 120); // Gris
+    static final Color COLOR_BORDE = Color.BLACK;
+    static final Font FUENTE_NODO = new Font("SansSerif", Font.BOLD, 12);
+    static final Color COLOR_RESUMEN = new Color(215, 215, 215);
+
+    /** Zoom por debajo del cual el árbol se dibuja resumido en bandas */
+    static final double ZOOM_DETALLE = 0.35;
+    // Alto mínimo en pantalla, en píxeles, de la racha de niveles de una banda
+    private static final int ALTO_MINIMO_BANDA = 24;
+
+    private final DisposicionArbol disposicion;
+
+    // Métricas de la fuente para el contexto de dibujo actual y etiquetas ya medidas
+    private FontMetrics metricas;
+    private final String[] etiquetas;
+    private final int[] anchosEtiqueta;
+
+    DibujoArbol(ArbolPartida arbol) {
+        // La estructura del árbol se recorre una sola vez por árbol
+        this.disposicion = new DisposicionArbol(arbol, ANCHO_NODO, ALTO_NODO, MARGEN_VERTICAL, MARGEN_HORIZONTAL);
+        this.etiquetas = new String[disposicion.getNumeroNodos()];
+        this.anchosEtiqueta = new int[disposicion.getNumeroNodos()];
+    }
+
+    DisposicionArbol getDisposicion() {
+        return disposicion;
+    }
+
+    /**
+     * @return Ancho del lienzo, sin zoom, en que el panel ubica el árbol
+     */
+    int getAnchoLienzo() {
+        return Math.max(disposicion.getNumeroNodos() * 100, 3000); // Un ancho generoso
+    }
+
+    /**
+     * @return Alto del lienzo, sin zoom, con margen abundante
+     */
+    int getAltoLienzo() {
+        return disposicion.getAltura() * (ALTO_NODO + MARGEN_VERTICAL) * 2;
+    }
+
+    /**
+     * Dibuja solo los nodos que caen dentro del área de recorte, en preorden: cada nodo dibuja
+     * la línea que lo une con su padre y después su óvalo, en el mismo orden que el recorrido
+     * recursivo original. Requiere haber ubicado la disposición.
+     * @return El número de nodos dibujados
+     */
+    int dibujar(Graphics2D g) {
+        prepararFuente(g);
+
+        Rectangle area = g.getClipBounds();
+        if (area == null) {
+            for (int i = 0; i < disposicion.getNumeroNodos(); i++) {
+                dibujarNodo(g, i);
+            }
+            return disposicion.getNumeroNodos();
+        }
+
+        int[] visibles = disposicion.consultarVisibles(area.x, area.y, area.width, area.height);
+        int cantidad = disposicion.getCantidadVisibles();
+        for (int k = 0; k < cantidad; k++) {
+            dibujarNodo(g, visibles[k]);
+        }
+        return cantidad;
+    }
+
+    /**
+     * Dibuja el árbol resumido en bandas de niveles, como una forma redondeada por cada grupo de
+     * nodos cercanos de la banda con su número de turnos. El texto conserva su tamaño en pantalla.
+     * Solo lee estado, así que puede llamarse desde varios hilos con la disposición ya ubicada.
+     * @param escala Zoom con el que se dibuja, ya aplicado al contexto
+     * @return El número de formas dibujadas
+     */
+    int dibujarResumen(Graphics2D g, double escala) {
+        int exponente = exponenteBanda(escala);
+        int primera = 0;
+        int ultima = disposicion.getNumeroBandas(exponente) - 1;
+        Rectangle area = g.getClipBounds();
+        if (area != null) {
+            // Las bandas tienen altura fija: las visibles se calculan sin recorrer nada
+            int altoBanda = (1 << exponente) * MARGEN_VERTICAL;
+            int yRaiz = disposicion.getBandaMinY(exponente, 0);
+            primera = Math.max(primera, Math.floorDiv(area.y - ALTO_NODO - yRaiz, altoBanda));
+            ultima = Math.min(ultima, Math.floorDiv(area.y + area.height + ALTO_NODO - yRaiz, altoBanda));
+        }
+
+        Stroke trazoOriginal = g.getStroke();
+        g.setStroke(new BasicStroke((float) (1 / escala)));
+        Font fuente = FUENTE_NODO.deriveFont((float) (FUENTE_NODO.getSize2D() / escala));
+        g.setFont(fuente);
+        FontMetrics metricasResumen = g.getFontMetrics(fuente);
+        int arco = (int) Math.max(ANCHO_NODO, ALTO_MINIMO_BANDA / 2 / escala);
+
+        int dibujadas = 0;
+        for (int b = primera; b <= ultima; b++) {
+            int y0 = disposicion.getBandaMinY(exponente, b) - ALTO_NODO/2;
+            int y1 = disposicion.getBandaMaxY(exponente, b) + ALTO_NODO/2;
+            for (int k = 0; k < disposicion.getNumeroGrupos(exponente, b); k++) {
+                int x0 = disposicion.getGrupoMinX(exponente, b, k) - ANCHO_NODO/2;
+                int x1 = disposicion.getGrupoMaxX(exponente, b, k) + ANCHO_NODO/2;
+                if (area != null && (x1 < area.x || x0 > area.x + area.width)) {
+                    continue;
+                }
+
+                g.setColor(COLOR_RESUMEN);
+                g.fillRoundRect(x0, y0, x1 - x0, y1 - y0, arco, arco);
+                g.setColor(COLOR_BORDE);
+                g.drawRoundRect(x0, y0, x1 - x0, y1 - y0, arco, arco);
+
+                int turnos = disposicion.getGrupoTurnos(exponente, b, k);
+                if (turnos > 0) {
+                    String texto = Integer.toString(turnos);
+                    int anchoTexto = metricasResumen.stringWidth(texto);
+                    if (anchoTexto <= x1 - x0 && metricasResumen.getAscent() <= y1 - y0) {
+                        g.drawString(texto, (x0 + x1 - anchoTexto) / 2, (y0 + y1 + metricasResumen.getAscent()) / 2);
+                    }
+                }
+                dibujadas++;
+            }
+        }
+        g.setStroke(trazoOriginal);
+        return dibujadas;
+    }
+
+    /**
+     * @return El exponente e de las bandas de 2^e niveles que miden al menos
+     *         {@code ALTO_MINIMO_BANDA} píxeles con esta escala
+     */
+    int exponenteBanda(double escala) {
+        int exponente = 0;
+        while (exponente < disposicion.getMaximoExponenteBanda()
+                && (1 << exponente) * MARGEN_VERTICAL * escala < ALTO_MINIMO_BANDA) {
+            exponente++;
+        }
+        return exponente;
+    }
+
+    /**
+     * Selecciona la fuente de los nodos y, si cambió el contexto (zoom, antialiasing), descarta
+     * los anchos de etiqueta medidos con el anterior
+     */
+    void prepararFuente(Graphics2D g) {
+        g.setFont(FUENTE_NODO);
+        if (metricas == null || !metricas.getFontRenderContext().equals(g.getFontRenderContext())) {
+            metricas = g.getFontMetrics();
+            Arrays.fill(anchosEtiqueta, -1);
+        }
+    }
+
+    /**
+     * Mide de una vez todas las etiquetas con la fuente preparada. Después, dibujar nodos con
+     * contextos de la misma escala solo lee estado y puede hacerse desde varios hilos.
+     */
+    void medirEtiquetas() {
+        for (int i = 0; i < etiquetas.length; i++) {
+            if (anchosEtiqueta[i] < 0) {
+                anchosEtiqueta[i] = metricas.stringWidth(getEtiqueta(i));
+            }
+        }
+    }
+
+    /**
+     * @return El texto que se dibuja en el nodo, recortado a tres caracteres
+     */
+    String getEtiqueta(int i) {
+        String texto = etiquetas[i];
+        if (texto == null) {
+            texto = disposicion.getValor(i);
+            if (texto.length() > 3) {
+                texto = texto.substring(0, 3);
+            }
+            etiquetas[i] = texto;
+        }
+        return texto;
+    }
+
+    /**
+     * @return El color de relleno del nodo según su tipo
+     */
+    Color getColorNodo(int i) {
+        switch (disposicion.getTipo(i)) {
+            case RAIZ:
+                return COLOR_NODO_RAIZ;
+            case TURNO:
+                return COLOR_NODO_TURNO;
+            case JUGADA_BLANCA:
+                return COLOR_NODO_BLANCO;
+            default:
+                return COLOR_NODO_NEGRO;
+        }
+    }
+
+    /**
+     * @return El color del texto según el fondo del nodo
+     */
+    static Color colorTexto(Color colorNodo) {
+        return colorNodo.equals(COLOR_NODO_NEGRO) ? Color.WHITE : Color.BLACK;
+    }
+
+    /**
+     * Dibuja un nodo con la fuente ya preparada con {@link #prepararFuente(Graphics2D)}
+     */
+    void dibujarNodo(Graphics2D g, int i) {
+        int x = disposicion.getX(i);
+        int y = disposicion.getY(i);
+
+        // Conexión con el padre
+        int padre = disposicion.getPadre(i);
+        if (padre >= 0) {
+            g.setColor(COLOR_BORDE);
+            g.drawLine(disposicion.getX(padre), disposicion.getY(padre) + ALTO_NODO/2, x, y - ALTO_NODO/2);
+        }
+
+        // Dibujar nodo
+        Color colorNodo = getColorNodo(i);
+        g.setColor(colorNodo);
+        g.fillOval(x - ANCHO_NODO/2, y - ALTO_NODO/2, ANCHO_NODO, ALTO_NODO);
+        g.setColor(COLOR_BORDE);
+        g.drawOval(x - ANCHO_NODO/2, y - ALTO_NODO/2, ANCHO_NODO, ALTO_NODO);
+
+        // Dibujar texto del nodo, recortado y medido una sola vez
+        String texto = getEtiqueta(i);
+        if (anchosEtiqueta[i] < 0) {
+            anchosEtiqueta[i] = metricas.stringWidth(texto);
+        }
+        int anchoTexto = anchosEtiqueta[i];
+        int altoTexto = metricas.getHeight();
+
+        g.setColor(colorTexto(colorNodo));
+        g.drawString(texto, x - anchoTexto/2, y + altoTexto/4);
+    }
+
+    /**
+     * @return Alto de línea de la fuente preparada
+     */
+    int getAltoTexto() {
+        return metricas.getHeight();
+    }
+}
@@ -0,0 +1,480 @@
+package src.ajedrez;
+
+import java.util.Arrays;
+
+/**
+ * Disposición precalculada de un árbol para dibujarlo.
+ *
+ * Se recorre el árbol una sola vez al cambiar de árbol y se guardan en arreglos planos, en
+ * preorden, el texto de cada nodo, su padre, su tipo y su posición. Así el dibujo no necesita recorrer el
+ * árbol ni buscar padres, y un cambio de zoom solo reescala las coordenadas ya calculadas.
+ * Un {@link IndiceEspacial} sobre las posiciones permite dibujar solo lo que está a la vista.
+ *
+ * Para dibujar de lejos se resumen además los niveles en bandas de 2^e niveles consecutivos
+ * (rachas de turnos). Cada banda guarda unos pocos grupos de nodos cercanos, con su extensión
+ * horizontal y su número de nodos y turnos. Las bandas de cada tamaño se precalculan una vez por
+ * ubicación, así que consultar una cuesta lo mismo para cualquier tamaño de árbol.
+ */
+class DisposicionArbol {
+    // Holgura alrededor de cada nodo para el borde, el antialiasing y el texto
+    private static final int HOLGURA = 3;
+    private static final int MEDIO_ANCHO_TEXTO = 24;
+
+    private final int anchoNodo;
+    private final int altoNodo;
+    private final int margenVertical;
+    private final int margenHorizontal;
+
+    private final String[] valores;
+    private final int[] padres;
+    private final TipoNodo[] tipos;
+    private final boolean[] derechos;
+    private final int altura;
+
+    // Posiciones en coordenadas sin zoom, calculadas para un punto de partida concreto
+    private final int[] x;
+    private final int[] y;
+    private int xInicial = Integer.MIN_VALUE;
+    private int yInicial;
+    private int offsetInicial;
+
+    // Caja que contiene a todos los nodos
+    private int minX;
+    private int minY;
+    private int maxX;
+    private int maxY;
+
+    private IndiceEspacial indice;
+    private int[] visibles = new int[64];
+
+    // Pirámide de bandas: las de 2^e niveles empiezan en inicioBandas[e]. Cada banda guarda
+    // hasta GRUPOS_POR_BANDA grupos de nodos cercanos, de izquierda a derecha
+    private static final int GRUPOS_POR_BANDA = 4;
+    private int[] inicioBandas;
+    private int[] gruposBanda;
+    private int[] grupoMinX;
+    private int[] grupoMaxX;
+    private int[] grupoNodos;
+    private int[] grupoTurnos;
+
+    /**
+     * Recorre el árbol una vez, sin recursión, para obtener su estructura
+     * @param anchoNodo Ancho del óvalo de cada nodo
+     * @param altoNodo Alto del óvalo de cada nodo
+     * @param margenVertical Distancia vertical entre un nodo y sus hijos
+     * @param margenHorizontal Separación horizontal mínima entre un nodo y sus hijos
+     */
+    DisposicionArbol(ArbolPartida arbol, int anchoNodo, int altoNodo, int margenVertical, int margenHorizontal) {
+        this.anchoNodo = anchoNodo;
+        this.altoNodo = altoNodo;
+        this.margenVertical = margenVertical;
+        this.margenHorizontal = margenHorizontal;
+
+        // Los metadatos del árbol dan el tamaño exacto de los arreglos
+        int numeroNodos = arbol.getNumeroNodos();
+        String[] ordenValores = new String[numeroNodos];
+        int[] ordenPadres = new int[numeroNodos];
+        TipoNodo[] ordenTipos = new TipoNodo[numeroNodos];
+        boolean[] ordenDerechos = new boolean[numeroNodos];
+        int cantidad = 0;
+
+        // En preorden, el padre de un nodo es el último visitado en el nivel anterior
+        int[] ultimoPorNivel = new int[arbol.getAltura() + 1];
+        CursorArbol cursor = arbol.recorrer(OrdenRecorrido.PREORDEN);
+        while (cursor.siguiente()) {
+            int profundidad = cursor.getProfundidad();
+            boolean derecho = cursor.esHijoDerecho();
+
+            int indice = cantidad++;
+            ordenValores[indice] = cursor.getValor();
+            ordenPadres[indice] = profundidad > 1 ? ultimoPorNivel[profundidad - 1] : -1;
+            ordenTipos[indice] = cursor.getTipo();
+            ordenDerechos[indice] = derecho;
+            ultimoPorNivel[profundidad] = indice;
+        }
+
+        this.valores = ordenValores;
+        this.padres = ordenPadres;
+        this.tipos = ordenTipos;
+        this.derechos = ordenDerechos;
+        this.altura = arbol.getAltura();
+        this.x = new int[cantidad];
+        this.y = new int[cantidad];
+    }
+
+    /**
+     * Calcula las posiciones de los nodos a partir de la raíz, si cambió el punto de partida.
+     * Cada hijo se separa {@code offset} del padre en horizontal y {@code margenVertical} en
+     * vertical; el offset se reduce a la mitad en cada nivel sin bajar de {@code margenHorizontal}.
+     */
+    void ubicar(int xRaiz, int yRaiz, int offsetRaiz) {
+        if (xRaiz == xInicial && yRaiz == yInicial && offsetRaiz == offsetInicial) {
+            return;
+        }
+        xInicial = xRaiz;
+        yInicial = yRaiz;
+        offsetInicial = offsetRaiz;
+
+        // Offset con el que cada nodo separa a sus hijos
+        int[] offsets = new int[valores.length];
+        minX = minY = Integer.MAX_VALUE;
+        maxX = maxY = Integer.MIN_VALUE;
+        for (int i = 0; i < valores.length; i++) {
+            int padre = padres[i];
+            if (padre < 0) {
+                x[i] = xRaiz;
+                y[i] = yRaiz;
+                offsets[i] = offsetRaiz;
+            } else {
+                int offsetPadre = offsets[padre];
+                x[i] = derechos[i] ? x[padre] + offsetPadre : x[padre] - offsetPadre;
+                y[i] = y[padre] + margenVertical;
+                offsets[i] = Math.max(offsetPadre / 2, margenHorizontal);
+            }
+            minX = Math.min(minX, x[i]);
+            minY = Math.min(minY, y[i]);
+            maxX = Math.max(maxX, x[i]);
+            maxY = Math.max(maxY, y[i]);
+        }
+        construirIndice();
+        construirBandas();
+    }
+
+    /**
+     * Indexa la caja de cada nodo junto con la línea que lo une a su padre
+     */
+    private void construirIndice() {
+        int cantidad = valores.length;
+        int medioAncho = Math.max(anchoNodo / 2, MEDIO_ANCHO_TEXTO) + HOLGURA;
+        int medioAlto = altoNodo / 2 + HOLGURA;
+        int[] cajaMinX = new int[cantidad];
+        int[] cajaMinY = new int[cantidad];
+        int[] cajaMaxX = new int[cantidad];
+        int[] cajaMaxY = new int[cantidad];
+        for (int i = 0; i < cantidad; i++) {
+            cajaMinX[i] = x[i] - medioAncho;
+            cajaMaxX[i] = x[i] + medioAncho;
+            cajaMinY[i] = y[i] - medioAlto;
+            cajaMaxY[i] = y[i] + medioAlto;
+            int padre = padres[i];
+            if (padre >= 0) {
+                cajaMinX[i] = Math.min(cajaMinX[i], x[padre] - HOLGURA);
+                cajaMaxX[i] = Math.max(cajaMaxX[i], x[padre] + HOLGURA);
+                cajaMinY[i] = Math.min(cajaMinY[i], y[padre] - HOLGURA);
+            }
+        }
+        indice = new IndiceEspacial(cajaMinX, cajaMinY, cajaMaxX, cajaMaxY, cantidad);
+    }
+
+    /**
+     * Resume cada nivel en grupos de nodos cercanos y combina de dos en dos las bandas de un
+     * tamaño para obtener las del siguiente
+     */
+    private void construirBandas() {
+        int niveles = Math.max(altura, 1);
+        int exponentes = 1;
+        while ((1 << (exponentes - 1)) < niveles) {
+            exponentes++;
+        }
+        inicioBandas = new int[exponentes + 1];
+        for (int e = 0; e < exponentes; e++) {
+            inicioBandas[e + 1] = inicioBandas[e] + numeroBandas(niveles, e);
+        }
+        int total = inicioBandas[exponentes];
+        gruposBanda = new int[total];
+        grupoMinX = new int[total * GRUPOS_POR_BANDA];
+        grupoMaxX = new int[total * GRUPOS_POR_BANDA];
+        grupoNodos = new int[total * GRUPOS_POR_BANDA];
+        grupoTurnos = new int[total * GRUPOS_POR_BANDA];
+
+        // Nodos ordenados por nivel (por conteo) y, dentro de cada nivel, de izquierda a derecha
+        int[] inicioNivel = new int[niveles + 1];
+        for (int i = 0; i < valores.length; i++) {
+            inicioNivel[nivel(i) + 1]++;
+        }
+        for (int nivel = 0; nivel < niveles; nivel++) {
+            inicioNivel[nivel + 1] += inicioNivel[nivel];
+        }
+        int[] siguiente = Arrays.copyOf(inicioNivel, niveles);
+        long[] orden = new long[valores.length];
+        for (int i = 0; i < valores.length; i++) {
+            orden[siguiente[nivel(i)]++] = ((long) (x[i] - minX) << 32) | i;
+        }
+
+        Grupos grupos = new Grupos(2 * GRUPOS_POR_BANDA);
+        for (int nivel = 0; nivel < niveles; nivel++) {
+            Arrays.sort(orden, inicioNivel[nivel], inicioNivel[nivel + 1]);
+            grupos.cantidad = 0;
+            for (int k = inicioNivel[nivel]; k < inicioNivel[nivel + 1]; k++) {
+                int i = (int) orden[k];
+                grupos.agregar(x[i], x[i], 1, tipos[i] == TipoNodo.TURNO ? 1 : 0);
+            }
+            guardarGrupos(0, nivel, grupos);
+        }
+
+        for (int e = 1; e < exponentes; e++) {
+            int anteriores = numeroBandas(niveles, e - 1);
+            for (int b = 0; b < numeroBandas(niveles, e); b++) {
+                grupos.cantidad = 0;
+                cargarGrupos(e - 1, 2 * b, grupos);
+                if (2 * b + 1 < anteriores) {
+                    cargarGrupos(e - 1, 2 * b + 1, grupos);
+                }
+                grupos.ordenar();
+                guardarGrupos(e, b, grupos);
+            }
+        }
+    }
+
+    private int nivel(int indice) {
+        return (y[indice] - yInicial) / margenVertical;
+    }
+
+    private void cargarGrupos(int exponente, int banda, Grupos grupos) {
+        int base = (inicioBandas[exponente] + banda) * GRUPOS_POR_BANDA;
+        for (int k = 0; k < gruposBanda[inicioBandas[exponente] + banda]; k++) {
+            grupos.agregar(grupoMinX[base + k], grupoMaxX[base + k], grupoNodos[base + k], grupoTurnos[base + k]);
+        }
+    }
+
+    /**
+     * Une los grupos separados por menos que el alto de la banda y guarda a lo sumo
+     * {@code GRUPOS_POR_BANDA}, uniendo los más cercanos si hay más
+     */
+    private void guardarGrupos(int exponente, int banda, Grupos grupos) {
+        grupos.unir((1 << exponente) * margenVertical, GRUPOS_POR_BANDA);
+        int posicion = inicioBandas[exponente] + banda;
+        int base = posicion * GRUPOS_POR_BANDA;
+        gruposBanda[posicion] = grupos.cantidad;
+        System.arraycopy(grupos.minX, 0, grupoMinX, base, grupos.cantidad);
+        System.arraycopy(grupos.maxX, 0, grupoMaxX, base, grupos.cantidad);
+        System.arraycopy(grupos.nodos, 0, grupoNodos, base, grupos.cantidad);
+        System.arraycopy(grupos.turnos, 0, grupoTurnos, base, grupos.cantidad);
+    }
+
+    private static int numeroBandas(int niveles, int exponente) {
+        return (niveles + (1 << exponente) - 1) >> exponente;
+    }
+
+    /**
+     * Busca los nodos que hay que dibujar para cubrir un área: los que la tocan o cuya línea
+     * hacia el padre la cruza. Requiere haber llamado antes a {@link #ubicar(int, int, int)}.
+     * @return Los índices en preorden; la cantidad válida la da {@link #getCantidadVisibles()}
+     */
+    int[] consultarVisibles(int xArea, int yArea, int anchoArea, int altoArea) {
+        visibles = indice.consultar(xArea, yArea, anchoArea, altoArea, visibles);
+        return visibles;
+    }
+
+    int getCantidadVisibles() {
+        return indice.getCantidad();
+    }
+
+    int getNumeroNodos() {
+        return valores.length;
+    }
+
+    /**
+     * @return El número de niveles del árbol
+     */
+    int getAltura() {
+        return altura;
+    }
+
+    /**
+     * @return El texto del nodo
+     */
+    String getValor(int indice) {
+        return valores[indice];
+    }
+
+    /**
+     * @return El índice del padre en preorden, o -1 para la raíz
+     */
+    int getPadre(int indice) {
+        return padres[indice];
+    }
+
+    TipoNodo getTipo(int indice) {
+        return tipos[indice];
+    }
+
+    int getX(int indice) {
+        return x[indice];
+    }
+
+    int getY(int indice) {
+        return y[indice];
+    }
+
+    /**
+     * @return El mayor exponente de banda: la banda de 2^e niveles que cubre el árbol entero
+     */
+    int getMaximoExponenteBanda() {
+        return inicioBandas.length - 2;
+    }
+
+    /**
+     * @return Cuántas bandas de 2^e niveles hay
+     */
+    int getNumeroBandas(int exponente) {
+        return inicioBandas[exponente + 1] - inicioBandas[exponente];
+    }
+
+    /**
+     * @return Cuántos grupos de nodos cercanos tiene la banda (0 si no tiene nodos)
+     */
+    int getNumeroGrupos(int exponente, int banda) {
+        return gruposBanda[inicioBandas[exponente] + banda];
+    }
+
+    /**
+     * @return El centro del nodo más a la izquierda del grupo
+     */
+    int getGrupoMinX(int exponente, int banda, int grupo) {
+        return grupoMinX[(inicioBandas[exponente] + banda) * GRUPOS_POR_BANDA + grupo];
+    }
+
+    /**
+     * @return El centro del nodo más a la derecha del grupo
+     */
+    int getGrupoMaxX(int exponente, int banda, int grupo) {
+        return grupoMaxX[(inicioBandas[exponente] + banda) * GRUPOS_POR_BANDA + grupo];
+    }
+
+    int getGrupoNodos(int exponente, int banda, int grupo) {
+        return grupoNodos[(inicioBandas[exponente] + banda) * GRUPOS_POR_BANDA + grupo];
+    }
+
+    /**
+     * @return Cuántos nodos de turno tiene el grupo
+     */
+    int getGrupoTurnos(int exponente, int banda, int grupo) {
+        return grupoTurnos[(inicioBandas[exponente] + banda) * GRUPOS_POR_BANDA + grupo];
+    }
+
+    /**
+     * @return La altura de los centros del primer nivel de la banda
+     */
+    int getBandaMinY(int exponente, int banda) {
+        return yInicial + (banda << exponente) * margenVertical;
+    }
+
+    /**
+     * @return La altura de los centros del último nivel de la banda
+     */
+    int getBandaMaxY(int exponente, int banda) {
+        int ultimoNivel = Math.min(((banda + 1) << exponente), Math.max(altura, 1)) - 1;
+        return yInicial + ultimoNivel * margenVertical;
+    }
+
+    // Caja que contiene los centros de todos los nodos
+
+    int getMinX() {
+        return minX;
+    }
+
+    int getMinY() {
+        return minY;
+    }
+
+    int getMaxX() {
+        return maxX;
+    }
+
+    int getMaxY() {
+        return maxY;
+    }
+
+    /**
+     * Intervalos horizontales de nodos, con su número de nodos y de turnos, ordenados por su borde izquierdo
+     */
+    private static class Grupos {
+        int[] minX;
+        int[] maxX;
+        int[] nodos;
+        int[] turnos;
+        int cantidad;
+
+        Grupos(int capacidad) {
+            minX = new int[capacidad];
+            maxX = new int[capacidad];
+            nodos = new int[capacidad];
+            turnos = new int[capacidad];
+        }
+
+        void agregar(int desde, int hasta, int numeroNodos, int numeroTurnos) {
+            if (cantidad == minX.length) {
+                minX = Arrays.copyOf(minX, cantidad * 2);
+                maxX = Arrays.copyOf(maxX, cantidad * 2);
+                nodos = Arrays.copyOf(nodos, cantidad * 2);
+                turnos = Arrays.copyOf(turnos, cantidad * 2);
+            }
+            minX[cantidad] = desde;
+            maxX[cantidad] = hasta;
+            nodos[cantidad] = numeroNodos;
+            turnos[cantidad] = numeroTurnos;
+            cantidad++;
+        }
+
+        /**
+         * Ordena por borde izquierdo; son pocos, así que basta con inserción
+         */
+        void ordenar() {
+            for (int k = 1; k < cantidad; k++) {
+                for (int j = k; j > 0 && minX[j - 1] > minX[j]; j--) {
+                    intercambiar(j - 1, j);
+                }
+            }
+        }
+
+        /**
+         * Une los grupos a menos de {@code separacion} y después los más cercanos hasta dejar {@code maximo}
+         */
+        void unir(int separacion, int maximo) {
+            int unidos = 0;
+            for (int k = 0; k < cantidad; k++) {
+                if (unidos > 0 && minX[k] - maxX[unidos - 1] <= separacion) {
+                    fusionar(unidos - 1, k);
+                } else {
+                    mover(k, unidos++);
+                }
+            }
+            cantidad = unidos;
+
+            while (cantidad > maximo) {
+                int cercano = 0;
+                for (int k = 1; k < cantidad - 1; k++) {
+                    if (minX[k + 1] - maxX[k] < minX[cercano + 1] - maxX[cercano]) {
+                        cercano = k;
+                    }
+                }
+                fusionar(cercano, cercano + 1);
+                for (int k = cercano + 1; k < cantidad - 1; k++) {
+                    mover(k + 1, k);
+                }
+                cantidad--;
+            }
+        }
+
+        private void fusionar(int destino, int origen) {
+            maxX[destino] = Math.max(maxX[destino], maxX[origen]);
+            nodos[destino] += nodos[origen];
+            turnos[destino] += turnos[origen];
+        }
+
+        private void mover(int origen, int destino) {
+            minX[destino] = minX[origen];
+            maxX[destino] = maxX[origen];
+            nodos[destino] = nodos[origen];
+            turnos[destino] = turnos[origen];
+        }
+
+        private void intercambiar(int a, int b) {
+            int t = minX[a]; minX[a] = minX[b]; minX[b] = t;
+            t = maxX[a]; maxX[a] = maxX[b]; maxX[b] = t;
+            t = nodos[a]; nodos[a] = nodos[b]; nodos[b] = t;
+            t = turnos[a]; turnos[a] = turnos[b]; turnos[b] = t;
+        }
+    }
+}
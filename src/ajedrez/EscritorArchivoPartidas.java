@@ -0,0 +1,196 @@
+package src.ajedrez;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Escribe partidas ya analizadas en el formato binario que lee {@link ArchivoPartidas}.
+ *
+ * Las partidas se escriben por flujo en el orden en que se agregan; el índice con la posición
+ * de cada una y la cabecera se escriben al cerrar. Un archivo que no se cerró no tiene
+ * cabecera válida y {@link ArchivoPartidas#abrir(Path)} lo rechaza. No es seguro entre hilos.
+ */
+public class EscritorArchivoPartidas implements Closeable {
+    private static final int TAMANO_BUFFER = 64 * 1024;
+
+    private final FileChannel canal;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(TAMANO_BUFFER);
+    private long posicion;
+    private long[] posiciones = new long[1024];
+    private int numeroPartidas;
+    private boolean cerrado;
+
+    /**
+     * Crea el archivo, o lo vacía si ya existe
+     */
+    public EscritorArchivoPartidas(Path archivo) throws IOException {
+        canal = FileChannel.open(archivo, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        // La cabecera se completa al cerrar
+        buffer.put(new byte[ArchivoPartidas.TAMANO_CABECERA]);
+        posicion = ArchivoPartidas.TAMANO_CABECERA;
+    }
+
+    /**
+     * Agrega una partida analizada
+     * @param turnos Turnos de una partida válida, por ejemplo {@link ChessGameParser#getTurnoStore()}
+     */
+    public void agregar(TurnoStore turnos) throws IOException {
+        int jugadas = 0;
+        for (int i = 0; i < turnos.size(); i++) {
+            jugadas += turnos.tieneJugadaNegra(i) ? 2 : 1;
+        }
+        empezarPartida(turnos.size(), jugadas);
+        for (int i = 0; i < turnos.size(); i++) {
+            escribirInt(turnos.getCodigoBlanca(i));
+            if (turnos.tieneJugadaNegra(i)) {
+                escribirInt(turnos.getCodigoNegra(i));
+            }
+        }
+    }
+
+    /**
+     * Agrega una partida dada por los códigos de sus jugadas, alternando blancas y negras
+     * @param jugadas Códigos de {@link JugadaSAN} desde la primera jugada
+     * @param cantidad Cuántas jugadas del arreglo pertenecen a la partida
+     */
+    public void agregar(int[] jugadas, int cantidad) throws IOException {
+        empezarPartida((cantidad + 1) / 2, cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            escribirInt(jugadas[i]);
+        }
+    }
+
+    /**
+     * Analiza por flujo un texto con varias partidas separadas por líneas en blanco y escribe las
+     * válidas. Las inválidas se omiten, así que los índices del archivo solo cuentan las válidas.
+     * @return Cuántas partidas se escribieron
+     */
+    public long agregarPartidas(Reader entrada) throws IOException {
+        long escritasAntes = numeroPartidas;
+        EscrituraPartidas oyente = new EscrituraPartidas();
+        new ChessGameParser().parsePartidas(entrada, oyente, oyente);
+        if (oyente.error != null) {
+            throw oyente.error;
+        }
+        return numeroPartidas - escritasAntes;
+    }
+
+    public int getNumeroPartidas() {
+        return numeroPartidas;
+    }
+
+    /**
+     * Escribe el índice y la cabecera y cierra el archivo
+     */
+    @Override
+    public void close() throws IOException {
+        if (cerrado) {
+            return;
+        }
+        cerrado = true;
+        try {
+            long posicionIndice = posicion;
+            for (int i = 0; i < numeroPartidas; i++) {
+                if (buffer.remaining() < Long.BYTES) {
+                    vaciar();
+                }
+                buffer.putLong(posiciones[i]);
+            }
+            vaciar();
+
+            ByteBuffer cabecera = ByteBuffer.allocate(ArchivoPartidas.TAMANO_CABECERA);
+            cabecera.putInt(ArchivoPartidas.MAGIA)
+                    .putInt(ArchivoPartidas.VERSION)
+                    .putLong(numeroPartidas)
+                    .putLong(posicionIndice)
+                    .putLong(0);
+            cabecera.flip();
+            long escrito = 0;
+            while (cabecera.hasRemaining()) {
+                escrito += canal.write(cabecera, escrito);
+            }
+        } finally {
+            canal.close();
+        }
+    }
+
+    private void empezarPartida(int turnos, int jugadas) throws IOException {
+        if (cerrado) {
+            throw new IOException("El archivo ya está cerrado");
+        }
+        if (numeroPartidas == Integer.MAX_VALUE / Long.BYTES) {
+            throw new IOException("El archivo no admite más partidas");
+        }
+        if (numeroPartidas == posiciones.length) {
+            posiciones = Arrays.copyOf(posiciones, posiciones.length * 2);
+        }
+        posiciones[numeroPartidas++] = posicion;
+        escribirInt(turnos);
+        escribirInt(jugadas);
+    }
+
+    private void escribirInt(int valor) throws IOException {
+        if (buffer.remaining() < Integer.BYTES) {
+            vaciar();
+        }
+        buffer.putInt(valor);
+        posicion += Integer.BYTES;
+    }
+
+    private void vaciar() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            canal.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Acumula los códigos de cada partida del flujo y la escribe al terminar si es válida
+     */
+    private class EscrituraPartidas implements ChessGameParser.OyentePartida, ChessGameParser.DestinoTurnos {
+        private int[] jugadas = new int[256];
+        private int cantidad;
+        private IOException error;
+
+        @Override
+        public void agregar(int codigoBlanca, int codigoNegra, long offsetTurno) {
+            if (cantidad + 2 > jugadas.length) {
+                jugadas = Arrays.copyOf(jugadas, jugadas.length * 2);
+            }
+            jugadas[cantidad++] = codigoBlanca;
+            if (codigoNegra != JugadaSAN.INVALIDA) {
+                jugadas[cantidad++] = codigoNegra;
+            }
+        }
+
+        @Override
+        public boolean recibeTurnos() {
+            return false;
+        }
+
+        @Override
+        public void turno(int numeroPartida, Turno turno) {
+            // Los turnos llegan como códigos a agregar
+        }
+
+        @Override
+        public void finPartida(int numeroPartida, boolean valida, String mensajeError) {
+            try {
+                if (valida && error == null) {
+                    EscritorArchivoPartidas.this.agregar(jugadas, cantidad);
+                }
+            } catch (IOException e) {
+                error = e;
+            }
+            cantidad = 0;
+        }
+    }
+}
@@ -0,0 +1,443 @@
+package src.ajedrez;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Exporta el dibujo de un árbol sin pantalla, con el mismo aspecto que el panel de
+ * {@link VisualizadorArbol} a zoom 1, para árboles de cualquier tamaño.
+ *
+ * Nunca se crea una imagen del árbol entero. El SVG se escribe por flujo, nodo a nodo en
+ * preorden. El PNG se escribe como una pirámide de mosaicos de {@link #TAMANO_MOSAICO} píxeles
+ * en {@code directorio/nivel/columna/fila.png}: el nivel {@link #getNivelMaximo()} está a
+ * tamaño real y cada nivel anterior a la mitad, hasta el nivel 0 que cabe en un mosaico. Solo
+ * se escriben los mosaicos que tocan la caja de algún nodo o de su línea; cada uno se dibuja
+ * por separado en un {@link ForkJoinPool}, así que la memoria de imágenes es de un mosaico por hilo.
+ *
+ * Los niveles con escala menor que {@link DibujoArbol#ZOOM_DETALLE} se dibujan resumidos en
+ * bandas, como el panel al alejarse.
+ *
+ * El dibujo se recorta a la caja que contiene los nodos, con un margen, en lugar de usar el
+ * lienzo mucho más ancho del panel. Un mismo exportador no admite dos exportaciones a la vez.
+ */
+public class ExportadorArbol {
+    public static final int TAMANO_MOSAICO = 256;
+    private static final int MARGEN = 40;
+    private static final int MOSAICOS_POR_TAREA = 16;
+    private static final Color COLOR_FONDO = Color.WHITE;
+
+    private final DibujoArbol dibujo;
+    private final DisposicionArbol disposicion;
+
+    // Caja exportada, en coordenadas de la disposición
+    private final int xOrigen;
+    private final int yOrigen;
+    private final int ancho;
+    private final int alto;
+    private final int nivelMaximo;
+
+    /**
+     * @throws IllegalArgumentException Si el árbol está vacío
+     */
+    public ExportadorArbol(ArbolPartida arbol) {
+        if (arbol.getNumeroNodos() == 0) {
+            throw new IllegalArgumentException("No hay árbol para exportar");
+        }
+        dibujo = new DibujoArbol(arbol);
+        disposicion = dibujo.getDisposicion();
+
+        // Misma ubicación que en el panel a zoom 1, con el lienzo a su tamaño preferido
+        int anchoLienzo = dibujo.getAnchoLienzo();
+        disposicion.ubicar(anchoLienzo / 2, DibujoArbol.Y_RAIZ, anchoLienzo / 4);
+
+        xOrigen = disposicion.getMinX() - MARGEN;
+        yOrigen = disposicion.getMinY() - MARGEN;
+        ancho = disposicion.getMaxX() - disposicion.getMinX() + 2 * MARGEN;
+        alto = disposicion.getMaxY() - disposicion.getMinY() + 2 * MARGEN;
+
+        int nivel = 0;
+        while ((long) TAMANO_MOSAICO << nivel < Math.max(ancho, alto)) {
+            nivel++;
+        }
+        nivelMaximo = nivel;
+    }
+
+    /**
+     * @return Ancho en píxeles del dibujo a tamaño real
+     */
+    public int getAncho() {
+        return ancho;
+    }
+
+    /**
+     * @return Alto en píxeles del dibujo a tamaño real
+     */
+    public int getAlto() {
+        return alto;
+    }
+
+    /**
+     * @return El nivel de la pirámide a tamaño real; el nivel 0 cabe en un solo mosaico
+     */
+    public int getNivelMaximo() {
+        return nivelMaximo;
+    }
+
+    /**
+     * Escribe el árbol como SVG en un archivo, en UTF-8
+     */
+    public void exportarSvg(Path archivo) throws IOException {
+        try (Writer salida = Files.newBufferedWriter(archivo, StandardCharsets.UTF_8)) {
+            exportarSvg(salida);
+        }
+    }
+
+    /**
+     * Escribe el árbol como SVG, nodo a nodo. No cierra la salida.
+     */
+    public void exportarSvg(Writer salida) throws IOException {
+        Writer escritor = salida instanceof BufferedWriter ? salida : new BufferedWriter(salida, 64 * 1024);
+        int altoTexto = prepararDibujo(1.0);
+
+        escritor.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        escritor.write("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"" + ancho + "\" height=\"" + alto +
+                "\" viewBox=\"" + xOrigen + " " + yOrigen + " " + ancho + " " + alto + "\"" +
+                " font-family=\"SansSerif\" font-weight=\"bold\" font-size=\"" + DibujoArbol.FUENTE_NODO.getSize() +
+                "\" text-anchor=\"middle\" stroke-width=\"1\">\n");
+        escritor.write("<rect x=\"" + xOrigen + "\" y=\"" + yOrigen + "\" width=\"" + ancho + "\" height=\"" + alto +
+                "\" fill=\"" + hex(COLOR_FONDO) + "\"/>\n");
+
+        // Mismo orden que el panel: línea hacia el padre, óvalo y etiqueta de cada nodo en preorden
+        String borde = hex(DibujoArbol.COLOR_BORDE);
+        double radioX = DibujoArbol.ANCHO_NODO / 2.0;
+        double radioY = DibujoArbol.ALTO_NODO / 2.0;
+        StringBuilder linea = new StringBuilder(256);
+        for (int i = 0; i < disposicion.getNumeroNodos(); i++) {
+            int x = disposicion.getX(i);
+            int y = disposicion.getY(i);
+            linea.setLength(0);
+
+            int padre = disposicion.getPadre(i);
+            if (padre >= 0) {
+                linea.append("<line x1=\"").append(disposicion.getX(padre))
+                        .append("\" y1=\"").append(disposicion.getY(padre) + DibujoArbol.ALTO_NODO/2)
+                        .append("\" x2=\"").append(x)
+                        .append("\" y2=\"").append(y - DibujoArbol.ALTO_NODO/2)
+                        .append("\" stroke=\"").append(borde).append("\"/>\n");
+            }
+
+            Color colorNodo = dibujo.getColorNodo(i);
+            linea.append("<ellipse cx=\"").append(x - DibujoArbol.ANCHO_NODO/2 + radioX)
+                    .append("\" cy=\"").append(y - DibujoArbol.ALTO_NODO/2 + radioY)
+                    .append("\" rx=\"").append(radioX)
+                    .append("\" ry=\"").append(radioY)
+                    .append("\" fill=\"").append(hex(colorNodo))
+                    .append("\" stroke=\"").append(borde).append("\"/>\n");
+
+            linea.append("<text x=\"").append(x)
+                    .append("\" y=\"").append(y + altoTexto/4)
+                    .append("\" fill=\"").append(hex(DibujoArbol.colorTexto(colorNodo))).append("\">");
+            escaparXml(dibujo.getEtiqueta(i), linea);
+            linea.append("</text>\n");
+            escritor.append(linea);
+        }
+
+        escritor.write("</svg>\n");
+        escritor.flush();
+    }
+
+    /**
+     * Escribe la pirámide de mosaicos PNG en el pool común
+     * @see #exportarMosaicos(Path, ForkJoinPool)
+     */
+    public long exportarMosaicos(Path directorio) throws IOException {
+        return exportarMosaicos(directorio, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Escribe la pirámide de mosaicos PNG, nivel a nivel, dibujando los mosaicos de cada nivel en paralelo
+     * @param directorio Directorio donde se crean las carpetas de cada nivel
+     * @return Cuántos mosaicos se escribieron
+     */
+    public long exportarMosaicos(Path directorio, ForkJoinPool pool) throws IOException {
+        long escritos = 0;
+        for (int nivel = 0; nivel <= nivelMaximo; nivel++) {
+            escritos += exportarNivel(directorio, nivel, pool);
+        }
+        return escritos;
+    }
+
+    /**
+     * Escribe los mosaicos no vacíos de un nivel de la pirámide
+     * @return Cuántos mosaicos se escribieron
+     */
+    public long exportarNivel(Path directorio, int nivel, ForkJoinPool pool) throws IOException {
+        if (nivel < 0 || nivel > nivelMaximo) {
+            throw new IllegalArgumentException("Nivel " + nivel + " fuera de rango (0 a " + nivelMaximo + ")");
+        }
+        double escala = 1.0 / (1L << (nivelMaximo - nivel));
+        boolean resumido = escala < DibujoArbol.ZOOM_DETALLE;
+        long[] mosaicos;
+        if (resumido) {
+            mosaicos = mosaicosResumen(escala);
+        } else {
+            prepararDibujo(escala);
+            mosaicos = mosaicosOcupados(escala);
+        }
+        if (mosaicos.length == 0) {
+            return 0;
+        }
+        Path carpeta = directorio.resolve(Integer.toString(nivel));
+        try {
+            return pool.invoke(new TareaMosaicos(carpeta, escala, resumido, mosaicos, 0, mosaicos.length));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Prepara la fuente para la escala dada y mide todas las etiquetas, para que los mosaicos
+     * puedan dibujarse en paralelo sin modificar el estado compartido
+     * @return Alto de línea de la fuente
+     */
+    private int prepararDibujo(double escala) {
+        BufferedImage muestra = new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = muestra.createGraphics();
+        try {
+            configurar(g);
+            g.scale(escala, escala);
+            dibujo.prepararFuente(g);
+            dibujo.medirEtiquetas();
+            return dibujo.getAltoTexto();
+        } finally {
+            g.dispose();
+        }
+    }
+
+    /**
+     * Calcula, sin duplicados y en orden, los mosaicos que tocan la caja de algún nodo o de la
+     * línea hacia su padre. Cada uno se codifica como columna en los 32 bits altos y fila en los bajos.
+     */
+    private long[] mosaicosOcupados(double escala) {
+        int medioAncho = DibujoArbol.ANCHO_NODO / 2 + MARGEN / 2;
+        int medioAlto = DibujoArbol.ALTO_NODO / 2 + MARGEN / 2;
+        long[] claves = new long[Math.max(16, disposicion.getNumeroNodos())];
+        int cantidad = 0;
+        for (int i = 0; i < disposicion.getNumeroNodos(); i++) {
+            int minX = disposicion.getX(i) - medioAncho;
+            int maxX = disposicion.getX(i) + medioAncho;
+            int minY = disposicion.getY(i) - medioAlto;
+            int maxY = disposicion.getY(i) + medioAlto;
+            int padre = disposicion.getPadre(i);
+            if (padre >= 0) {
+                minX = Math.min(minX, disposicion.getX(padre));
+                maxX = Math.max(maxX, disposicion.getX(padre));
+                minY = Math.min(minY, disposicion.getY(padre));
+            }
+            int c0 = mosaico(minX - xOrigen, ancho, escala);
+            int c1 = mosaico(maxX - xOrigen, ancho, escala);
+            int f0 = mosaico(minY - yOrigen, alto, escala);
+            int f1 = mosaico(maxY - yOrigen, alto, escala);
+            for (int c = c0; c <= c1; c++) {
+                for (int f = f0; f <= f1; f++) {
+                    if (cantidad == claves.length) {
+                        // Ordenar y quitar duplicados antes de ampliar
+                        cantidad = ordenarSinDuplicados(claves, cantidad);
+                        if (cantidad * 2 > claves.length) {
+                            claves = Arrays.copyOf(claves, claves.length * 2);
+                        }
+                    }
+                    claves[cantidad++] = ((long) c << 32) | f;
+                }
+            }
+        }
+        return Arrays.copyOf(claves, ordenarSinDuplicados(claves, cantidad));
+    }
+
+    /**
+     * Calcula los mosaicos que tocan algún grupo de las bandas del resumen que se dibuja con esta escala
+     */
+    private long[] mosaicosResumen(double escala) {
+        int exponente = dibujo.exponenteBanda(escala);
+        long[] claves = new long[16];
+        int cantidad = 0;
+        for (int b = 0; b < disposicion.getNumeroBandas(exponente); b++) {
+            for (int k = 0; k < disposicion.getNumeroGrupos(exponente, b); k++) {
+                int c0 = mosaico(disposicion.getGrupoMinX(exponente, b, k) - MARGEN - xOrigen, ancho, escala);
+                int c1 = mosaico(disposicion.getGrupoMaxX(exponente, b, k) + MARGEN - xOrigen, ancho, escala);
+                int f0 = mosaico(disposicion.getBandaMinY(exponente, b) - MARGEN - yOrigen, alto, escala);
+                int f1 = mosaico(disposicion.getBandaMaxY(exponente, b) + MARGEN - yOrigen, alto, escala);
+                for (int c = c0; c <= c1; c++) {
+                    for (int f = f0; f <= f1; f++) {
+                        if (cantidad == claves.length) {
+                            cantidad = ordenarSinDuplicados(claves, cantidad);
+                            if (cantidad * 2 > claves.length) {
+                                claves = Arrays.copyOf(claves, claves.length * 2);
+                            }
+                        }
+                        claves[cantidad++] = ((long) c << 32) | f;
+                    }
+                }
+            }
+        }
+        return Arrays.copyOf(claves, ordenarSinDuplicados(claves, cantidad));
+    }
+
+    /**
+     * @return La columna o fila del mosaico que contiene la coordenada, dentro de la extensión del dibujo
+     */
+    private static int mosaico(int coordenada, int extension, double escala) {
+        int limite = (int) Math.ceil(extension * escala / TAMANO_MOSAICO) - 1;
+        int indice = (int) Math.floor(coordenada * escala / TAMANO_MOSAICO);
+        return Math.max(0, Math.min(indice, limite));
+    }
+
+    private static int ordenarSinDuplicados(long[] claves, int cantidad) {
+        Arrays.sort(claves, 0, cantidad);
+        int unicos = 0;
+        for (int i = 0; i < cantidad; i++) {
+            if (unicos == 0 || claves[unicos - 1] != claves[i]) {
+                claves[unicos++] = claves[i];
+            }
+        }
+        return unicos;
+    }
+
+    private static void configurar(Graphics2D g) {
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+    }
+
+    private static String hex(Color color) {
+        return String.format(Locale.ROOT, "#%06x", color.getRGB() & 0xFFFFFF);
+    }
+
+    private static void escaparXml(String texto, StringBuilder destino) {
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            switch (c) {
+                case '&':
+                    destino.append("&amp;");
+                    break;
+                case '<':
+                    destino.append("&lt;");
+                    break;
+                case '>':
+                    destino.append("&gt;");
+                    break;
+                default:
+                    destino.append(c);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Dibuja y escribe un rango de mosaicos de un nivel, reutilizando una imagen por tarea hoja
+     */
+    private class TareaMosaicos extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+
+        private final Path carpeta;
+        private final double escala;
+        private final boolean resumido;
+        private final long[] mosaicos;
+        private final int desde;
+        private final int hasta;
+
+        TareaMosaicos(Path carpeta, double escala, boolean resumido, long[] mosaicos, int desde, int hasta) {
+            this.carpeta = carpeta;
+            this.escala = escala;
+            this.resumido = resumido;
+            this.mosaicos = mosaicos;
+            this.desde = desde;
+            this.hasta = hasta;
+        }
+
+        @Override
+        protected Long compute() {
+            if (hasta - desde <= MOSAICOS_POR_TAREA) {
+                try {
+                    return escribirMosaicos();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            int medio = (desde + hasta) >>> 1;
+            TareaMosaicos izquierda = new TareaMosaicos(carpeta, escala, resumido, mosaicos, desde, medio);
+            TareaMosaicos derecha = new TareaMosaicos(carpeta, escala, resumido, mosaicos, medio, hasta);
+            izquierda.fork();
+            long escritosDerecha = derecha.compute();
+            return izquierda.join() + escritosDerecha;
+        }
+
+        private long escribirMosaicos() throws IOException {
+            BufferedImage imagen = new BufferedImage(TAMANO_MOSAICO, TAMANO_MOSAICO, BufferedImage.TYPE_INT_RGB);
+            int[] visibles = new int[64];
+            for (int k = desde; k < hasta; k++) {
+                int columna = (int) (mosaicos[k] >>> 32);
+                int fila = (int) mosaicos[k];
+
+                // Área del mosaico en coordenadas de la disposición
+                double lado = TAMANO_MOSAICO / escala;
+                int x = (int) Math.floor(xOrigen + columna * lado);
+                int y = (int) Math.floor(yOrigen + fila * lado);
+                int cantidad = 0;
+                if (!resumido) {
+                    // El índice espacial reutiliza estado entre consultas
+                    synchronized (disposicion) {
+                        int[] encontrados = disposicion.consultarVisibles(x, y, (int) Math.ceil(lado) + 1, (int) Math.ceil(lado) + 1);
+                        cantidad = disposicion.getCantidadVisibles();
+                        if (visibles.length < cantidad) {
+                            visibles = new int[Math.max(cantidad, visibles.length * 2)];
+                        }
+                        System.arraycopy(encontrados, 0, visibles, 0, cantidad);
+                    }
+                }
+
+                Graphics2D g = imagen.createGraphics();
+                try {
+                    g.setColor(COLOR_FONDO);
+                    g.fillRect(0, 0, TAMANO_MOSAICO, TAMANO_MOSAICO);
+                    configurar(g);
+                    g.translate(-columna * TAMANO_MOSAICO, -fila * TAMANO_MOSAICO);
+                    g.scale(escala, escala);
+                    g.translate(-xOrigen, -yOrigen);
+                    if (resumido) {
+                        g.clipRect(x, y, (int) Math.ceil(lado) + 1, (int) Math.ceil(lado) + 1);
+                        dibujo.dibujarResumen(g, escala);
+                    } else {
+                        g.setFont(DibujoArbol.FUENTE_NODO);
+                        for (int v = 0; v < cantidad; v++) {
+                            dibujo.dibujarNodo(g, visibles[v]);
+                        }
+                    }
+                } finally {
+                    g.dispose();
+                }
+
+                Path carpetaColumna = carpeta.resolve(Integer.toString(columna));
+                Files.createDirectories(carpetaColumna);
+                if (!ImageIO.write(imagen, "png", carpetaColumna.resolve(fila + ".png").toFile())) {
+                    throw new IOException("No hay un escritor de imágenes PNG disponible");
+                }
+            }
+            return hasta - desde;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package src.ajedrez;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Índice espacial de rejilla para consultar qué elementos caen dentro de un rectángulo.
+ *
+ * El plano se divide en celdas cuadradas y solo se guardan las celdas ocupadas, de modo que
+ * árboles muy dispersos (cadenas largas en diagonal) no reservan memoria para el espacio vacío.
+ * Cada elemento se registra en todas las celdas que toca su caja. Las consultas devuelven los
+ * índices en orden creciente y sin repetir.
+ */
+class IndiceEspacial {
+    private static final int TAMANO_CELDA = 256;
+
+    private final Map<Long, Integer> celdas;
+    private final int[] celdaX;
+    private final int[] celdaY;
+    private final int[] inicioCelda;
+    private final int[] elementos;
+    // Marca de la última consulta en la que apareció cada elemento, para no repetirlo
+    private final int[] marcas;
+    private int consulta;
+    private int cantidad;
+
+    /**
+     * @param minX Borde izquierdo de la caja de cada elemento
+     * @param minY Borde superior de la caja de cada elemento
+     * @param maxX Borde derecho de la caja de cada elemento
+     * @param maxY Borde inferior de la caja de cada elemento
+     * @param numeroElementos Número de elementos
+     */
+    IndiceEspacial(int[] minX, int[] minY, int[] maxX, int[] maxY, int numeroElementos) {
+        celdas = new HashMap<>();
+
+        // Primera pasada: identificar las celdas ocupadas y contar sus elementos
+        int[] conteo = new int[16];
+        int pares = 0;
+        for (int i = 0; i < numeroElementos; i++) {
+            for (int cx = celda(minX[i]); cx <= celda(maxX[i]); cx++) {
+                for (int cy = celda(minY[i]); cy <= celda(maxY[i]); cy++) {
+                    Integer id = celdas.get(clave(cx, cy));
+                    if (id == null) {
+                        id = celdas.size();
+                        celdas.put(clave(cx, cy), id);
+                        if (id == conteo.length) {
+                            conteo = Arrays.copyOf(conteo, id * 2);
+                        }
+                    }
+                    conteo[id]++;
+                    pares++;
+                }
+            }
+        }
+
+        celdaX = new int[celdas.size()];
+        celdaY = new int[celdas.size()];
+        for (Map.Entry<Long, Integer> entrada : celdas.entrySet()) {
+            celdaX[entrada.getValue()] = (int) (entrada.getKey() >> 32);
+            celdaY[entrada.getValue()] = (int) (long) entrada.getKey();
+        }
+
+        // Segunda pasada: repartir los elementos por celda en un único arreglo
+        inicioCelda = new int[celdas.size() + 1];
+        for (int id = 0; id < celdas.size(); id++) {
+            inicioCelda[id + 1] = inicioCelda[id] + conteo[id];
+        }
+        int[] siguiente = Arrays.copyOf(inicioCelda, celdas.size());
+        elementos = new int[pares];
+        for (int i = 0; i < numeroElementos; i++) {
+            for (int cx = celda(minX[i]); cx <= celda(maxX[i]); cx++) {
+                for (int cy = celda(minY[i]); cy <= celda(maxY[i]); cy++) {
+                    int id = celdas.get(clave(cx, cy));
+                    elementos[siguiente[id]++] = i;
+                }
+            }
+        }
+
+        marcas = new int[numeroElementos];
+    }
+
+    /**
+     * Busca los elementos cuya caja toca el rectángulo indicado
+     * @param resultado Arreglo donde dejar los índices; se amplía si no alcanza
+     * @return El arreglo con los índices en orden creciente; su cantidad queda en {@link #getCantidad()}
+     */
+    int[] consultar(int x, int y, int ancho, int alto, int[] resultado) {
+        if (++consulta == 0) {
+            Arrays.fill(marcas, 0);
+            consulta = 1;
+        }
+        cantidad = 0;
+        int cx0 = celda(x);
+        int cy0 = celda(y);
+        int cx1 = celda(x + ancho);
+        int cy1 = celda(y + alto);
+
+        if ((long) (cx1 - cx0 + 1) * (cy1 - cy0 + 1) > celdas.size()) {
+            // Rectángulo más grande que el árbol: es más barato revisar solo las celdas ocupadas
+            for (int id = 0; id < celdaX.length; id++) {
+                if (celdaX[id] >= cx0 && celdaX[id] <= cx1 && celdaY[id] >= cy0 && celdaY[id] <= cy1) {
+                    resultado = agregarCelda(id, resultado);
+                }
+            }
+        } else {
+            for (int cx = cx0; cx <= cx1; cx++) {
+                for (int cy = cy0; cy <= cy1; cy++) {
+                    Integer id = celdas.get(clave(cx, cy));
+                    if (id != null) {
+                        resultado = agregarCelda(id, resultado);
+                    }
+                }
+            }
+        }
+        Arrays.sort(resultado, 0, cantidad);
+        return resultado;
+    }
+
+    private int[] agregarCelda(int id, int[] resultado) {
+        for (int k = inicioCelda[id]; k < inicioCelda[id + 1]; k++) {
+            int elemento = elementos[k];
+            if (marcas[elemento] != consulta) {
+                marcas[elemento] = consulta;
+                if (cantidad == resultado.length) {
+                    resultado = Arrays.copyOf(resultado, Math.max(16, cantidad * 2));
+                }
+                resultado[cantidad++] = elemento;
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * @return Cuántos índices dejó la última consulta
+     */
+    int getCantidad() {
+        return cantidad;
+    }
+
+    private static int celda(int coordenada) {
+        return Math.floorDiv(coordenada, TAMANO_CELDA);
+    }
+
+    private static long clave(int cx, int cy) {
+        return ((long) cx << 32) | (cy & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,314 @@
+package src.ajedrez;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice invertido de jugadas: para cada jugada guarda el conjunto de partidas en que se jugó,
+ * por color y por número de turno, para responder consultas como "partidas en que las negras
+ * enrocaron largo antes del turno 10" sin volver a analizar ninguna partida.
+ *
+ * Las partidas se identifican por un entero, normalmente su posición en un
+ * {@link ArchivoPartidas}. Cada lista de partidas es un {@link ConjuntoPartidas} comprimido y
+ * las consultas se combinan con {@link ConjuntoPartidas#y}, {@link ConjuntoPartidas#o} y
+ * {@link ConjuntoPartidas#excepto}. Las jugadas se comparan sin los indicadores de jaque y mate,
+ * así que "O-O-O" también encuentra "O-O-O+".
+ *
+ * Para acotar la memoria con partidas muy largas, las jugadas posteriores a
+ * {@code turnoLimite} se agrupan en una única lista: una consulta cuyo rango pase de ese turno
+ * incluye todas ellas.
+ *
+ * Admite agregar partidas mientras se consulta desde otros hilos. Cada consulta devuelve un
+ * conjunto nuevo que ya no cambia.
+ */
+public class IndiceJugadas {
+    /** En las consultas, jugadas de cualquiera de los dos colores */
+    public static final int CUALQUIER_COLOR = -1;
+    public static final int TURNO_LIMITE_POR_DEFECTO = 200;
+
+    // Turno 0 en la clave: la jugada en cualquier turno
+    private static final int CUALQUIER_TURNO = 0;
+
+    private final int turnoLimite;
+    private final ReentrantReadWriteLock cerrojo = new ReentrantReadWriteLock();
+
+    // Tabla hash de direccionamiento abierto de clave a lista, sin objetos Long por jugada
+    private long[] claves = new long[1024];
+    private ConjuntoPartidas[] listas = new ConjuntoPartidas[1024];
+    private int numeroListas;
+
+    private final ConjuntoPartidas partidas = new ConjuntoPartidas();
+    private int siguientePartida;
+
+    public IndiceJugadas() {
+        this(TURNO_LIMITE_POR_DEFECTO);
+    }
+
+    /**
+     * @param turnoLimite Último turno con lista propia; los posteriores comparten una
+     */
+    public IndiceJugadas(int turnoLimite) {
+        if (turnoLimite < 1) {
+            throw new IllegalArgumentException("El turno límite debe ser positivo");
+        }
+        this.turnoLimite = turnoLimite;
+    }
+
+    /**
+     * Agrega una partida con el siguiente identificador libre
+     * @param turnos Turnos de una partida válida, por ejemplo {@link ChessGameParser#getTurnoStore()}
+     * @return El identificador asignado a la partida
+     */
+    public int agregar(TurnoStore turnos) {
+        Lock escritura = cerrojo.writeLock();
+        escritura.lock();
+        try {
+            int partida = siguientePartida;
+            agregar(partida, turnos);
+            return partida;
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    /**
+     * Agrega una partida con un identificador dado. Si ya estaba, sus jugadas se suman a las anteriores.
+     */
+    public void agregar(int partida, TurnoStore turnos) {
+        Lock escritura = cerrojo.writeLock();
+        escritura.lock();
+        try {
+            registrarPartida(partida);
+            for (int i = 0; i < turnos.size(); i++) {
+                registrarJugada(partida, turnos.getNumeroTurno(i), Tablero.BLANCAS, turnos.getCodigoBlanca(i));
+                if (turnos.tieneJugadaNegra(i)) {
+                    registrarJugada(partida, turnos.getNumeroTurno(i), Tablero.NEGRAS, turnos.getCodigoNegra(i));
+                }
+            }
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    /**
+     * Agrega una partida dada por los códigos de sus jugadas, alternando blancas y negras
+     */
+    public void agregar(int partida, int[] jugadas, int cantidad) {
+        Lock escritura = cerrojo.writeLock();
+        escritura.lock();
+        try {
+            registrarPartida(partida);
+            for (int i = 0; i < cantidad; i++) {
+                registrarJugada(partida, i / 2 + 1, i % 2 == 0 ? Tablero.BLANCAS : Tablero.NEGRAS, jugadas[i]);
+            }
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    /**
+     * Agrega todas las partidas de un archivo binario, identificadas por su posición en él
+     * @return Cuántas partidas se agregaron
+     */
+    public int agregar(ArchivoPartidas archivo) {
+        int[] jugadas = new int[256];
+        for (int partida = 0; partida < archivo.getNumeroPartidas(); partida++) {
+            int cantidad = archivo.getNumeroJugadas(partida);
+            if (cantidad > jugadas.length) {
+                jugadas = new int[Math.max(cantidad, jugadas.length * 2)];
+            }
+            archivo.leerJugadas(partida, jugadas);
+            agregar(partida, jugadas, cantidad);
+        }
+        return archivo.getNumeroPartidas();
+    }
+
+    /**
+     * @param jugada La jugada en notación SAN
+     * @return Las partidas en que cualquiera de los dos colores hizo la jugada
+     */
+    public ConjuntoPartidas partidasCon(String jugada) {
+        return partidasCon(jugada, CUALQUIER_COLOR);
+    }
+
+    /**
+     * @param jugada La jugada en notación SAN
+     * @param color {@link Tablero#BLANCAS}, {@link Tablero#NEGRAS} o {@link #CUALQUIER_COLOR}
+     * @return Las partidas en que ese color hizo la jugada en algún turno
+     */
+    public ConjuntoPartidas partidasCon(String jugada, int color) {
+        return partidasCon(jugada, color, 1, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param jugada La jugada en notación SAN
+     * @param color {@link Tablero#BLANCAS}, {@link Tablero#NEGRAS} o {@link #CUALQUIER_COLOR}
+     * @param desdeTurno Primer turno del rango, desde 1
+     * @param hastaTurno Último turno del rango, incluido
+     * @return Las partidas en que ese color hizo la jugada en alguno de los turnos del rango
+     * @throws IllegalArgumentException Si la jugada no es válida según la gramática
+     */
+    public ConjuntoPartidas partidasCon(String jugada, int color, int desdeTurno, int hastaTurno) {
+        int codigo = JugadaSAN.clasificar(jugada);
+        if (!JugadaSAN.esValida(codigo)) {
+            throw new IllegalArgumentException("'" + jugada + "' no es una jugada válida según la gramática BNF");
+        }
+        if (color != CUALQUIER_COLOR && color != Tablero.BLANCAS && color != Tablero.NEGRAS) {
+            throw new IllegalArgumentException("Color desconocido: " + color);
+        }
+        codigo = JugadaSAN.sinJaque(codigo);
+
+        Lock lectura = cerrojo.readLock();
+        lectura.lock();
+        try {
+            ConjuntoPartidas resultado = new ConjuntoPartidas();
+            for (int c = Tablero.BLANCAS; c <= Tablero.NEGRAS; c++) {
+                if (color == CUALQUIER_COLOR || color == c) {
+                    resultado = resultado.o(buscarEnRango(codigo, c, Math.max(desdeTurno, 1), hastaTurno));
+                }
+            }
+            return resultado;
+        } finally {
+            lectura.unlock();
+        }
+    }
+
+    /**
+     * @return Todas las partidas del índice, por ejemplo para negar una consulta con {@link ConjuntoPartidas#excepto}
+     */
+    public ConjuntoPartidas getPartidas() {
+        Lock lectura = cerrojo.readLock();
+        lectura.lock();
+        try {
+            return partidas.copia();
+        } finally {
+            lectura.unlock();
+        }
+    }
+
+    public int getNumeroPartidas() {
+        Lock lectura = cerrojo.readLock();
+        lectura.lock();
+        try {
+            return partidas.getCardinalidad();
+        } finally {
+            lectura.unlock();
+        }
+    }
+
+    /**
+     * @return Cuántas listas de partidas guarda el índice (una por jugada, color y turno)
+     */
+    public int getNumeroListas() {
+        Lock lectura = cerrojo.readLock();
+        lectura.lock();
+        try {
+            return numeroListas;
+        } finally {
+            lectura.unlock();
+        }
+    }
+
+    public int getTurnoLimite() {
+        return turnoLimite;
+    }
+
+    /**
+     * Con el cerrojo de lectura tomado
+     */
+    private ConjuntoPartidas buscarEnRango(int codigo, int color, int desdeTurno, int hastaTurno) {
+        if (desdeTurno > hastaTurno) {
+            return new ConjuntoPartidas();
+        }
+        if (desdeTurno == 1 && hastaTurno == Integer.MAX_VALUE) {
+            ConjuntoPartidas lista = buscarLista(clave(codigo, color, CUALQUIER_TURNO));
+            return lista != null ? lista.copia() : new ConjuntoPartidas();
+        }
+
+        ConjuntoPartidas resultado = new ConjuntoPartidas();
+        int hasta = Math.min(hastaTurno, turnoLimite + 1);
+        for (int turno = Math.min(desdeTurno, turnoLimite + 1); turno <= hasta; turno++) {
+            ConjuntoPartidas lista = buscarLista(clave(codigo, color, turno));
+            if (lista != null) {
+                resultado = resultado.o(lista);
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Con el cerrojo de escritura tomado
+     */
+    private void registrarPartida(int partida) {
+        partidas.agregar(partida);
+        siguientePartida = Math.max(siguientePartida, partida + 1);
+    }
+
+    /**
+     * Con el cerrojo de escritura tomado
+     */
+    private void registrarJugada(int partida, int turno, int color, int codigo) {
+        codigo = JugadaSAN.sinJaque(codigo);
+        obtenerLista(clave(codigo, color, CUALQUIER_TURNO)).agregar(partida);
+        obtenerLista(clave(codigo, color, Math.min(turno, turnoLimite + 1))).agregar(partida);
+    }
+
+    private ConjuntoPartidas buscarLista(long clave) {
+        int mascara = claves.length - 1;
+        for (int i = mezclar(clave) & mascara; listas[i] != null; i = (i + 1) & mascara) {
+            if (claves[i] == clave) {
+                return listas[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Con el cerrojo de escritura tomado: la lista de la clave, creándola si no existe
+     */
+    private ConjuntoPartidas obtenerLista(long clave) {
+        int mascara = claves.length - 1;
+        int i = mezclar(clave) & mascara;
+        for (; listas[i] != null; i = (i + 1) & mascara) {
+            if (claves[i] == clave) {
+                return listas[i];
+            }
+        }
+        if ((numeroListas + 1) * 4 > claves.length * 3) {
+            ampliarTabla();
+            return obtenerLista(clave);
+        }
+        ConjuntoPartidas lista = new ConjuntoPartidas();
+        claves[i] = clave;
+        listas[i] = lista;
+        numeroListas++;
+        return lista;
+    }
+
+    private void ampliarTabla() {
+        long[] clavesAnteriores = claves;
+        ConjuntoPartidas[] listasAnteriores = listas;
+        claves = new long[clavesAnteriores.length * 2];
+        listas = new ConjuntoPartidas[clavesAnteriores.length * 2];
+        int mascara = claves.length - 1;
+        for (int j = 0; j < clavesAnteriores.length; j++) {
+            if (listasAnteriores[j] != null) {
+                int i = mezclar(clavesAnteriores[j]) & mascara;
+                while (listas[i] != null) {
+                    i = (i + 1) & mascara;
+                }
+                claves[i] = clavesAnteriores[j];
+                listas[i] = listasAnteriores[j];
+            }
+        }
+    }
+
+    private static int mezclar(long clave) {
+        long h = clave * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static long clave(int codigo, int color, int turno) {
+        return ((long) codigo << 32) | ((long) turno << 1) | color;
+    }
+}
@@ -0,0 +1,37 @@
+package src.ajedrez;
+
+/**
+ * Punto único donde se elige la implementación de {@link Metricas} que usan el analizador y el
+ * visualizador. Por omisión se emiten eventos de JDK Flight Recorder, que no cuestan nada
+ * mientras no haya una grabación activa.
+ */
+public final class Instrumentacion {
+    private static volatile Metricas metricas = metricasPredeterminadas();
+
+    private Instrumentacion() {
+    }
+
+    public static Metricas getMetricas() {
+        return metricas;
+    }
+
+    /**
+     * @param nuevas Las métricas a usar desde ahora, o null para no medir nada
+     */
+    public static void setMetricas(Metricas nuevas) {
+        metricas = nuevas != null ? nuevas : Metricas.NINGUNA;
+    }
+
+    private static Metricas metricasPredeterminadas() {
+        // Entorno de ejecución sin el módulo jdk.jfr (jlink o --limit-modules): crear MetricasJfr
+        // funcionaría igual, porque sus clases de jdk.jfr no se resuelven hasta la primera medición
+        if (ModuleLayer.boot().findModule("jdk.jfr").isEmpty()) {
+            return Metricas.NINGUNA;
+        }
+        try {
+            return new MetricasJfr();
+        } catch (LinkageError e) {
+            return Metricas.NINGUNA;
+        }
+    }
+}
@@ -0,0 +1,389 @@
+package src.ajedrez;
+
+/**
+ * Analizador léxico de jugadas en notación algebraica estándar (SAN).
+ *
+ * Reconoce la misma gramática BNF que antes se validaba con expresiones regulares:
+ * <pre>
+ *   enroque        ::= ("O-O" | "O-O-O") [jaque]
+ *   movimientoPieza::= pieza [desambiguacion] ["x"] casilla [promocion] [jaque]
+ *   peonAvance     ::= casilla [promocion] [jaque]
+ *   peonCaptura    ::= letra "x" casilla [promocion] [jaque]
+ *   desambiguacion ::= letra | numero | letra numero
+ *   pieza          ::= "K" | "Q" | "R" | "B" | "N"
+ *   promocion      ::= "=" ("Q" | "R" | "B" | "N")
+ *   jaque          ::= "+" | "#"
+ * </pre>
+ * La jugada se recorre una sola vez de izquierda a derecha y el resultado se devuelve
+ * empaquetado en un {@code int}, sin crear objetos. Un código igual a {@link #INVALIDA}
+ * indica que la jugada no pertenece a la gramática.
+ *
+ * Distribución de bits del código:
+ * <pre>
+ *   0-2   tipo de jugada (ordinal de {@link TipoJugada} + 1)
+ *   3-5   pieza que mueve (0 = peón, 1..5 = K Q R B N)
+ *   6-11  casilla destino (columna * 8 + fila)
+ *   12-15 columna de desambiguación u origen del peón (0 = ninguna, 1..8 = a..h)
+ *   16-19 fila de desambiguación (0 = ninguna, 1..8)
+ *   20    captura
+ *   21-23 pieza de promoción (0 = ninguna, 2..5 = Q R B N)
+ *   24    jaque
+ *   25    jaque mate
+ * </pre>
+ */
+public final class JugadaSAN {
+
+    /**
+     * Tipos de jugada reconocidos por la gramática
+     */
+    public enum TipoJugada {
+        ENROQUE_CORTO,
+        ENROQUE_LARGO,
+        MOVIMIENTO_PIEZA,
+        PEON_AVANCE,
+        PEON_CAPTURA
+    }
+
+    /** Código devuelto para jugadas que no cumplen la gramática */
+    public static final int INVALIDA = 0;
+
+    public static final int PEON = 0;
+    public static final int REY = 1;
+    public static final int DAMA = 2;
+    public static final int TORRE = 3;
+    public static final int ALFIL = 4;
+    public static final int CABALLO = 5;
+
+    private static final String LETRAS_PIEZA = " KQRBN";
+    private static final TipoJugada[] TIPOS = TipoJugada.values();
+
+    private static final int DESPL_TIPO = 0;
+    private static final int DESPL_PIEZA = 3;
+    private static final int DESPL_DESTINO = 6;
+    private static final int DESPL_COLUMNA = 12;
+    private static final int DESPL_FILA = 16;
+    private static final int BIT_CAPTURA = 1 << 20;
+    private static final int DESPL_PROMOCION = 21;
+    private static final int BIT_JAQUE = 1 << 24;
+    private static final int BIT_MATE = 1 << 25;
+
+    private JugadaSAN() {
+    }
+
+    /**
+     * Clasifica una jugada completa
+     * @param jugada La jugada en notación SAN
+     * @return El código empaquetado de la jugada o {@link #INVALIDA}
+     */
+    public static int clasificar(CharSequence jugada) {
+        return clasificar(jugada, 0, jugada.length());
+    }
+
+    /**
+     * Clasifica la jugada contenida en {@code texto[inicio, fin)} en una sola pasada
+     * @return El código empaquetado de la jugada o {@link #INVALIDA}
+     */
+    public static int clasificar(CharSequence texto, int inicio, int fin) {
+        if (fin - inicio < 2) {
+            return INVALIDA;
+        }
+
+        int i = inicio;
+        char c = texto.charAt(i++);
+
+        // Enroques: O-O y O-O-O
+        if (c == 'O') {
+            if (fin - i < 2 || texto.charAt(i) != '-' || texto.charAt(i + 1) != 'O') {
+                return INVALIDA;
+            }
+            i += 2;
+            int tipo = TipoJugada.ENROQUE_CORTO.ordinal() + 1;
+            if (fin - i >= 2 && texto.charAt(i) == '-' && texto.charAt(i + 1) == 'O') {
+                i += 2;
+                tipo = TipoJugada.ENROQUE_LARGO.ordinal() + 1;
+            }
+            return sufijoJaque(texto, i, fin, tipo << DESPL_TIPO);
+        }
+
+        int pieza = indicePieza(c);
+        int columnaDesamb = 0;
+        int filaDesamb = 0;
+        int captura = 0;
+        int columna;
+        int fila;
+
+        if (pieza != PEON) {
+            // Movimiento de pieza: se acumulan letra/número hasta completar la casilla destino
+            int columnaPendiente = 0;
+            int filaPendiente = 0;
+            while (true) {
+                if (i >= fin) {
+                    return INVALIDA;
+                }
+                c = texto.charAt(i++);
+                if (esLetra(c)) {
+                    if (columnaPendiente != 0 || captura != 0) {
+                        // Letra tras otra letra o tras la captura: empieza la casilla destino
+                        if (captura == 0) {
+                            columnaDesamb = columnaPendiente;
+                            filaDesamb = filaPendiente;
+                        }
+                        columnaPendiente = c - 'a' + 1;
+                        filaPendiente = 0;
+                        break;
+                    }
+                    if (filaPendiente != 0) {
+                        // Número de desambiguación seguido de la columna destino
+                        columnaDesamb = 0;
+                        filaDesamb = filaPendiente;
+                        columnaPendiente = c - 'a' + 1;
+                        filaPendiente = 0;
+                        break;
+                    }
+                    columnaPendiente = c - 'a' + 1;
+                } else if (esNumero(c)) {
+                    if (filaPendiente != 0 || captura != 0) {
+                        return INVALIDA;
+                    }
+                    filaPendiente = c - '0';
+                    if (columnaPendiente != 0 && (i >= fin || !esInicioCasilla(texto.charAt(i)))) {
+                        // Letra y número sin nada detrás que pueda ser casilla: es el destino
+                        columna = columnaPendiente;
+                        fila = filaPendiente;
+                        return sufijo(texto, i, fin, pieza, columna, fila, 0, 0, 0,
+                                TipoJugada.MOVIMIENTO_PIEZA);
+                    }
+                } else if (c == 'x' && captura == 0) {
+                    columnaDesamb = columnaPendiente;
+                    filaDesamb = filaPendiente;
+                    columnaPendiente = 0;
+                    filaPendiente = 0;
+                    captura = BIT_CAPTURA;
+                } else {
+                    return INVALIDA;
+                }
+            }
+
+            // Se tiene la columna destino; falta la fila
+            if (i >= fin || !esNumero(texto.charAt(i))) {
+                return INVALIDA;
+            }
+            columna = columnaPendiente;
+            fila = texto.charAt(i++) - '0';
+            return sufijo(texto, i, fin, pieza, columna, fila, columnaDesamb, filaDesamb, captura,
+                    TipoJugada.MOVIMIENTO_PIEZA);
+        }
+
+        // Jugadas de peón: avance (e4) o captura (exd5)
+        if (!esLetra(c)) {
+            return INVALIDA;
+        }
+        int columnaInicial = c - 'a' + 1;
+        c = texto.charAt(i++);
+        if (esNumero(c)) {
+            return sufijo(texto, i, fin, PEON, columnaInicial, c - '0', 0, 0, 0,
+                    TipoJugada.PEON_AVANCE);
+        }
+        if (c != 'x' || fin - i < 2) {
+            return INVALIDA;
+        }
+        char letra = texto.charAt(i);
+        char numero = texto.charAt(i + 1);
+        if (!esLetra(letra) || !esNumero(numero)) {
+            return INVALIDA;
+        }
+        return sufijo(texto, i + 2, fin, PEON, letra - 'a' + 1, numero - '0', columnaInicial, 0,
+                BIT_CAPTURA, TipoJugada.PEON_CAPTURA);
+    }
+
+    /**
+     * Reconoce la promoción y el jaque opcionales y arma el código final
+     */
+    private static int sufijo(CharSequence texto, int i, int fin, int pieza, int columna, int fila,
+                              int columnaDesamb, int filaDesamb, int captura, TipoJugada tipo) {
+        int codigo = ((tipo.ordinal() + 1) << DESPL_TIPO)
+                | (pieza << DESPL_PIEZA)
+                | (((columna - 1) * 8 + (fila - 1)) << DESPL_DESTINO)
+                | (columnaDesamb << DESPL_COLUMNA)
+                | (filaDesamb << DESPL_FILA)
+                | captura;
+
+        if (i < fin && texto.charAt(i) == '=') {
+            if (fin - i < 2) {
+                return INVALIDA;
+            }
+            int promocion = indicePieza(texto.charAt(i + 1));
+            if (promocion < DAMA) {
+                return INVALIDA;
+            }
+            codigo |= promocion << DESPL_PROMOCION;
+            i += 2;
+        }
+        return sufijoJaque(texto, i, fin, codigo);
+    }
+
+    private static int sufijoJaque(CharSequence texto, int i, int fin, int codigo) {
+        if (i < fin) {
+            char c = texto.charAt(i++);
+            if (c == '+') {
+                codigo |= BIT_JAQUE;
+            } else if (c == '#') {
+                codigo |= BIT_MATE;
+            } else {
+                return INVALIDA;
+            }
+        }
+        return i == fin ? codigo : INVALIDA;
+    }
+
+    private static int indicePieza(char c) {
+        switch (c) {
+            case 'K': return REY;
+            case 'Q': return DAMA;
+            case 'R': return TORRE;
+            case 'B': return ALFIL;
+            case 'N': return CABALLO;
+            default: return PEON;
+        }
+    }
+
+    private static boolean esLetra(char c) {
+        return c >= 'a' && c <= 'h';
+    }
+
+    private static boolean esNumero(char c) {
+        return c >= '1' && c <= '8';
+    }
+
+    private static boolean esInicioCasilla(char c) {
+        return esLetra(c) || c == 'x';
+    }
+
+    /**
+     * Reconstruye el texto SAN de una jugada a partir de su código
+     * @param codigo Código válido devuelto por {@link #clasificar(CharSequence)}
+     * @return La jugada en notación SAN, idéntica a la original
+     */
+    public static String aSAN(int codigo) {
+        StringBuilder sb = new StringBuilder(8);
+        escribirSAN(codigo, sb);
+        return sb.toString();
+    }
+
+    /**
+     * Escribe el texto SAN de una jugada al final de {@code destino}
+     */
+    public static void escribirSAN(int codigo, StringBuilder destino) {
+        int tipo = (codigo >>> DESPL_TIPO) & 0x7;
+        if (tipo == TipoJugada.ENROQUE_CORTO.ordinal() + 1) {
+            destino.append("O-O");
+        } else if (tipo == TipoJugada.ENROQUE_LARGO.ordinal() + 1) {
+            destino.append("O-O-O");
+        } else {
+            int pieza = (codigo >>> DESPL_PIEZA) & 0x7;
+            if (pieza != PEON) {
+                destino.append(letraPieza(pieza));
+            }
+            int columnaDesamb = columnaDesambiguacion(codigo);
+            if (columnaDesamb != 0) {
+                destino.append((char) ('a' + columnaDesamb - 1));
+            }
+            int filaDesamb = filaDesambiguacion(codigo);
+            if (filaDesamb != 0) {
+                destino.append((char) ('0' + filaDesamb));
+            }
+            if (esCaptura(codigo)) {
+                destino.append('x');
+            }
+            int casilla = casillaDestino(codigo);
+            destino.append((char) ('a' + casilla / 8)).append((char) ('1' + casilla % 8));
+            int promocion = piezaPromocion(codigo);
+            if (promocion != PEON) {
+                destino.append('=').append(letraPieza(promocion));
+            }
+        }
+        if (esJaque(codigo)) {
+            destino.append('+');
+        } else if (esMate(codigo)) {
+            destino.append('#');
+        }
+    }
+
+    // Consultas sobre el código empaquetado
+
+    public static boolean esValida(int codigo) {
+        return codigo != INVALIDA;
+    }
+
+    public static TipoJugada tipo(int codigo) {
+        return TIPOS[((codigo >>> DESPL_TIPO) & 0x7) - 1];
+    }
+
+    public static boolean esEnroque(int codigo) {
+        int tipo = (codigo >>> DESPL_TIPO) & 0x7;
+        return tipo == TipoJugada.ENROQUE_CORTO.ordinal() + 1 || tipo == TipoJugada.ENROQUE_LARGO.ordinal() + 1;
+    }
+
+    /**
+     * @return La pieza que mueve ({@link #PEON}, {@link #REY}, ...); los enroques devuelven {@link #REY}
+     */
+    public static int pieza(int codigo) {
+        return esEnroque(codigo) ? REY : (codigo >>> DESPL_PIEZA) & 0x7;
+    }
+
+    public static char letraPieza(int pieza) {
+        return LETRAS_PIEZA.charAt(pieza);
+    }
+
+    /**
+     * @return La casilla destino como columna * 8 + fila (0 = a1, 63 = h8); sin sentido en enroques
+     */
+    public static int casillaDestino(int codigo) {
+        return (codigo >>> DESPL_DESTINO) & 0x3F;
+    }
+
+    /**
+     * @return La columna de desambiguación (1..8) o 0 si no hay; en capturas de peón es la columna de origen
+     */
+    public static int columnaDesambiguacion(int codigo) {
+        return (codigo >>> DESPL_COLUMNA) & 0xF;
+    }
+
+    /**
+     * @return La fila de desambiguación (1..8) o 0 si no hay
+     */
+    public static int filaDesambiguacion(int codigo) {
+        return (codigo >>> DESPL_FILA) & 0xF;
+    }
+
+    public static boolean esCaptura(int codigo) {
+        return (codigo & BIT_CAPTURA) != 0;
+    }
+
+    public static boolean esPromocion(int codigo) {
+        return piezaPromocion(codigo) != PEON;
+    }
+
+    /**
+     * @return La pieza a la que se promociona o {@link #PEON} si no hay promoción
+     */
+    public static int piezaPromocion(int codigo) {
+        return (codigo >>> DESPL_PROMOCION) & 0x7;
+    }
+
+    public static boolean esJaque(int codigo) {
+        return (codigo & BIT_JAQUE) != 0;
+    }
+
+    public static boolean esMate(int codigo) {
+        return (codigo & BIT_MATE) != 0;
+    }
+
+    /**
+     * @return El mismo código sin los indicadores de jaque y mate, para comparar jugadas
+     *         independientemente de cómo se anotó el jaque
+     */
+    public static int sinJaque(int codigo) {
+        return codigo & ~(BIT_JAQUE | BIT_MATE);
+    }
+}
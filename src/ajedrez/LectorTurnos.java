@@ -0,0 +1,385 @@
+package src.ajedrez;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+
+/**
+ * Lector incremental que reconoce turnos ("12. Nf3 Nc6") directamente sobre un {@link Reader}.
+ *
+ * Reproduce el comportamiento del antiguo patrón {@code (\d+)\.\s+(\S+)(\s+(\S+))?} aplicado con
+ * {@code find()} sobre el texto normalizado, pero sin cargar ni copiar la partida en memoria:
+ * el texto se recorre por bloques y solo se conserva el token actual. Las jugadas se clasifican
+ * con {@link JugadaSAN} directamente sobre el token, y su texto solo se crea cuando se pide.
+ *
+ * Si se crea con {@code separarPartidas}, una línea en blanco marca el final de una partida y
+ * el comienzo de la siguiente (ver {@link #siguientePartida()}).
+ */
+class LectorTurnos {
+    private static final int TAMANO_BUFFER = 8192;
+
+    private final Reader entrada;
+    private final boolean separarPartidas;
+    private final long limiteTurnos;
+    private final char[] buffer = new char[TAMANO_BUFFER];
+    private int posicion;
+    private int limite;
+    private long desplazamientoBuffer;
+
+    // Token actual
+    private char[] token = new char[32];
+    private CharBuffer vistaToken = CharBuffer.wrap(token);
+    private int longitudToken;
+    private long inicioToken;
+    private boolean tokenPendiente;
+
+    // Estado de la partida actual
+    private boolean enLimitePartida;
+    private int tokensEnPartida;
+    private boolean iniciado;
+    private long inicioPartida;
+
+    // Último turno reconocido
+    private int numeroTurno;
+    private String textoNumeroTurno;
+    private int codigoBlanca;
+    private int codigoNegra;
+    private boolean hayNegra;
+    private String jugadaBlanca;
+    private String jugadaNegra;
+    private long offsetTurno;
+    private long offsetBlanca;
+    private long offsetNegra;
+
+    LectorTurnos(Reader entrada, boolean separarPartidas) {
+        this(entrada, separarPartidas, 0);
+    }
+
+    /**
+     * @param posicionInicial Posición que ocupa el primer carácter de {@code entrada} en el texto
+     *                        completo; se suma a todas las posiciones informadas
+     */
+    LectorTurnos(Reader entrada, boolean separarPartidas, long posicionInicial) {
+        this(entrada, separarPartidas, posicionInicial, Long.MAX_VALUE);
+    }
+
+    /**
+     * @param limiteTurnos Posición a partir de la cual ya no se reconocen turnos: la lectura
+     *                     termina en el primer encabezado de turno que empiece en ella o después
+     */
+    LectorTurnos(Reader entrada, boolean separarPartidas, long posicionInicial, long limiteTurnos) {
+        this.entrada = entrada;
+        this.separarPartidas = separarPartidas;
+        this.desplazamientoBuffer = posicionInicial;
+        this.limiteTurnos = limiteTurnos;
+    }
+
+    /**
+     * Avanza hasta el siguiente turno de la partida actual
+     * @return false si la partida (o la entrada) no contiene más turnos
+     */
+    boolean siguienteTurno() throws IOException {
+        while (siguienteToken()) {
+            if (!esEncabezadoTurno()) {
+                // Texto entre turnos que no forma un turno: se ignora como hacía find()
+                continue;
+            }
+            if (inicioToken >= limiteTurnos) {
+                return false;
+            }
+            leerNumeroTurno();
+            offsetTurno = inicioToken;
+            if (!siguienteToken()) {
+                return false;
+            }
+            codigoBlanca = clasificarToken();
+            jugadaBlanca = textoSiInvalida(codigoBlanca);
+            offsetBlanca = inicioToken;
+            hayNegra = siguienteToken();
+            if (hayNegra) {
+                codigoNegra = clasificarToken();
+                jugadaNegra = textoSiInvalida(codigoNegra);
+                offsetNegra = inicioToken;
+            } else {
+                codigoNegra = JugadaSAN.INVALIDA;
+                jugadaNegra = null;
+                offsetNegra = -1;
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Descarta lo que quede de la partida actual y se posiciona en la siguiente
+     * @return false si no quedan más partidas en la entrada
+     */
+    boolean siguientePartida() throws IOException {
+        if (iniciado) {
+            while (siguienteToken()) {
+                // Saltar el resto de la partida actual
+            }
+        }
+        iniciado = true;
+        if (!tokenPendiente && !leerToken()) {
+            return false;
+        }
+        tokenPendiente = true;
+        enLimitePartida = false;
+        tokensEnPartida = 0;
+        inicioPartida = inicioToken;
+        return true;
+    }
+
+    /**
+     * @return El número del último turno leído, o -1 si no cabe en un int
+     */
+    int getNumeroTurno() {
+        return numeroTurno;
+    }
+
+    /**
+     * @return Los dígitos del último número de turno tal como aparecen en el texto
+     */
+    String getTextoNumeroTurno() {
+        return textoNumeroTurno != null ? textoNumeroTurno : String.valueOf(numeroTurno);
+    }
+
+    int getCodigoBlanca() {
+        return codigoBlanca;
+    }
+
+    /**
+     * @return El código de la jugada negra; {@link JugadaSAN#INVALIDA} si no es válida o no existe
+     */
+    int getCodigoNegra() {
+        return codigoNegra;
+    }
+
+    boolean hayJugadaNegra() {
+        return hayNegra;
+    }
+
+    String getJugadaBlanca() {
+        return jugadaBlanca != null ? jugadaBlanca : JugadaSAN.aSAN(codigoBlanca);
+    }
+
+    /**
+     * @return El texto de la jugada negra, o null si el turno no la tiene
+     */
+    String getJugadaNegra() {
+        if (!hayNegra) {
+            return null;
+        }
+        return jugadaNegra != null ? jugadaNegra : JugadaSAN.aSAN(codigoNegra);
+    }
+
+    // Posiciones, en caracteres desde el inicio de la entrada
+
+    long getInicioPartida() {
+        return inicioPartida;
+    }
+
+    long getOffsetTurno() {
+        return offsetTurno;
+    }
+
+    long getOffsetBlanca() {
+        return offsetBlanca;
+    }
+
+    /**
+     * @return La posición de la jugada negra, o -1 si el turno no la tiene
+     */
+    long getOffsetNegra() {
+        return offsetNegra;
+    }
+
+    /**
+     * Obtiene el siguiente token que pertenece a la partida actual
+     */
+    private boolean siguienteToken() throws IOException {
+        if (enLimitePartida) {
+            return false;
+        }
+        if (tokenPendiente) {
+            tokenPendiente = false;
+            tokensEnPartida++;
+            return true;
+        }
+        int saltosLinea = saltarEspacios();
+        if (saltosLinea < 0 || !leerCaracteresToken()) {
+            return false;
+        }
+        if (separarPartidas && saltosLinea >= 2 && tokensEnPartida > 0) {
+            // Línea en blanco: el token pertenece a la siguiente partida
+            enLimitePartida = true;
+            tokenPendiente = true;
+            return false;
+        }
+        tokensEnPartida++;
+        return true;
+    }
+
+    /**
+     * Lee el siguiente token sin asignarlo a ninguna partida
+     */
+    private boolean leerToken() throws IOException {
+        return saltarEspacios() >= 0 && leerCaracteresToken();
+    }
+
+    /**
+     * Salta espacios en blanco contando los saltos de línea
+     * @return Los saltos de línea saltados, o -1 si se alcanzó el final de la entrada
+     */
+    private int saltarEspacios() throws IOException {
+        int saltosLinea = 0;
+        while (true) {
+            if (posicion == limite && !llenarBuffer()) {
+                return -1;
+            }
+            char c = buffer[posicion];
+            if (!esEspacio(c)) {
+                return saltosLinea;
+            }
+            if (c == '\n') {
+                saltosLinea++;
+            }
+            posicion++;
+        }
+    }
+
+    private boolean leerCaracteresToken() throws IOException {
+        longitudToken = 0;
+        inicioToken = desplazamientoBuffer + posicion;
+        while (posicion < limite || llenarBuffer()) {
+            char c = buffer[posicion];
+            if (esEspacio(c)) {
+                break;
+            }
+            if (longitudToken == token.length) {
+                char[] mayor = new char[token.length * 2];
+                System.arraycopy(token, 0, mayor, 0, longitudToken);
+                token = mayor;
+                vistaToken = CharBuffer.wrap(token);
+            }
+            token[longitudToken++] = c;
+            posicion++;
+        }
+        return longitudToken > 0;
+    }
+
+    private int clasificarToken() {
+        vistaToken.limit(longitudToken);
+        return JugadaSAN.clasificar(vistaToken, 0, longitudToken);
+    }
+
+    /**
+     * Conserva el texto de las jugadas inválidas, que no se puede reconstruir desde su código
+     */
+    private String textoSiInvalida(int codigo) {
+        return codigo == JugadaSAN.INVALIDA ? new String(token, 0, longitudToken) : null;
+    }
+
+    private boolean llenarBuffer() throws IOException {
+        desplazamientoBuffer += limite;
+        posicion = limite = 0;
+        int leidos = entrada.read(buffer, 0, buffer.length);
+        while (leidos == 0) {
+            leidos = entrada.read(buffer, 0, buffer.length);
+        }
+        if (leidos < 0) {
+            return false;
+        }
+        limite = leidos;
+        return true;
+    }
+
+    /**
+     * Un token es encabezado de turno si termina en uno o más dígitos seguidos de un punto
+     */
+    private boolean esEncabezadoTurno() {
+        return longitudToken >= 2 && token[longitudToken - 1] == '.' && esDigito(token[longitudToken - 2]);
+    }
+
+    private void leerNumeroTurno() {
+        int fin = longitudToken - 1;
+        int inicio = fin - 1;
+        while (inicio > 0 && esDigito(token[inicio - 1])) {
+            inicio--;
+        }
+        int valor = 0;
+        for (int i = inicio; i < fin; i++) {
+            int digito = token[i] - '0';
+            if (valor > (Integer.MAX_VALUE - digito) / 10) {
+                valor = -1;
+                break;
+            }
+            valor = valor * 10 + digito;
+        }
+        numeroTurno = valor;
+        // El texto solo hace falta para informar del desbordamiento
+        textoNumeroTurno = valor < 0 ? new String(token, inicio, fin - inicio) : null;
+    }
+
+    /**
+     * Busca el primer encabezado de turno que empiece después de {@code desde}, sin contar el
+     * token que pudiera estar cortado en esa posición
+     * @param numeroMinimo Se saltan los encabezados con un número menor o que no cabe en un int
+     * @return La posición del encabezado, o -1 si no hay ninguno
+     */
+    static int buscarEncabezado(CharSequence texto, int desde, int numeroMinimo) {
+        int i = desde;
+        int fin = texto.length();
+        while (i < fin && !esEspacio(texto.charAt(i))) {
+            i++;
+        }
+        while (i < fin) {
+            while (i < fin && esEspacio(texto.charAt(i))) {
+                i++;
+            }
+            int inicio = i;
+            while (i < fin && !esEspacio(texto.charAt(i))) {
+                i++;
+            }
+            if (i > inicio && numeroEncabezado(texto, inicio, i) >= numeroMinimo) {
+                return inicio;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Número de turno de un token, con las mismas reglas que la lectura de turnos
+     * @return El número, o -1 si el token no es un encabezado de turno o el número no cabe en un int
+     */
+    static int numeroEncabezado(CharSequence texto, int inicio, int fin) {
+        if (fin - inicio < 2 || texto.charAt(fin - 1) != '.' || !esDigito(texto.charAt(fin - 2))) {
+            return -1;
+        }
+        int primero = fin - 2;
+        while (primero > inicio && esDigito(texto.charAt(primero - 1))) {
+            primero--;
+        }
+        int valor = 0;
+        for (int i = primero; i < fin - 1; i++) {
+            int digito = texto.charAt(i) - '0';
+            if (valor > (Integer.MAX_VALUE - digito) / 10) {
+                return -1;
+            }
+            valor = valor * 10 + digito;
+        }
+        return valor;
+    }
+
+    private static boolean esDigito(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * Mismos caracteres que {@code \s} en las expresiones regulares de Java
+     */
+    static boolean esEspacio(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+}
@@ -4,11 +4,32 @@ import javax.swing.SwingUtilities;
 import javax.swing.UIManager;
 
 /**
- * Clase principal para ejecutar la aplicación
+ * Clase principal para ejecutar la aplicación.
+ * Con {@code --validate archivo...} valida partidas por consola sin cargar la interfaz gráfica,
+ * y con {@code --serve} atiende validaciones por HTTP ({@link ServicioValidacion}).
  */
 public class Main {
 
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals(ValidacionConsola.OPCION_VALIDAR)) {
+            String[] resto = new String[args.length - 1];
+            System.arraycopy(args, 1, resto, 0, resto.length);
+            System.exit(new ValidacionConsola(System.out, System.err).ejecutar(resto));
+        }
+        if (args.length > 0 && args[0].equals(ServicioValidacion.OPCION_SERVIR)) {
+            String[] resto = new String[args.length - 1];
+            System.arraycopy(args, 1, resto, 0, resto.length);
+            System.exit(ServicioValidacion.ejecutar(resto, System.err));
+        }
+
+        iniciarInterfaz();
+    }
+
+    /**
+     * Abre la ventana principal. Está separado de {@link #main(String[])} para que el modo de
+     * consola no llegue a cargar ninguna clase de AWT ni Swing.
+     */
+    private static void iniciarInterfaz() {
         try {
             // Intentar usar el look and feel del sistema
             UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
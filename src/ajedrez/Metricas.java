@@ -0,0 +1,79 @@
+package src.ajedrez;
+
+/**
+ * Recibe mediciones del analizador y del dibujo del árbol.
+ *
+ * Todos los métodos tienen una implementación vacía, así que cada implementación solo atiende
+ * lo que le interesa. Se invocan una vez por partida o por cuadro dibujado, nunca por jugada,
+ * y pueden llamarse desde varios hilos a la vez. La implementación en uso se elige con
+ * {@link Instrumentacion#setMetricas(Metricas)}.
+ */
+public interface Metricas {
+    /** Implementación que descarta todas las mediciones */
+    Metricas NINGUNA = new Metricas() {
+    };
+
+    /**
+     * Terminó la lectura de una partida: normalización del texto, reconocimiento de los turnos y
+     * validación de las jugadas, que se hacen en una sola pasada
+     * @param turnos Turnos válidos leídos
+     * @param jugadas Jugadas válidas leídas (blancas y negras)
+     * @param nanos Duración de la lectura
+     * @param valida Si la partida resultó válida
+     */
+    default void lecturaTerminada(int turnos, int jugadas, long nanos, boolean valida) {
+    }
+
+    /**
+     * Una partida no es válida
+     */
+    default void falloDetectado(TipoFallo tipo) {
+    }
+
+    /**
+     * @param nodos Nodos del árbol construido
+     * @param nanos Duración de la construcción
+     */
+    default void arbolConstruido(int nodos, long nanos) {
+    }
+
+    /**
+     * Terminó de dibujarse un cuadro del árbol
+     * @param nodosDibujados Nodos dibujados en este cuadro (solo los visibles)
+     * @param nanos Duración del dibujo
+     */
+    default void dibujoTerminado(int nodosDibujados, long nanos) {
+    }
+
+    /**
+     * @return Unas métricas que entregan cada medición a estas y después a {@code otras}
+     */
+    default Metricas y(Metricas otras) {
+        Metricas primeras = this;
+        return new Metricas() {
+            @Override
+            public void lecturaTerminada(int turnos, int jugadas, long nanos, boolean valida) {
+                primeras.lecturaTerminada(turnos, jugadas, nanos, valida);
+                otras.lecturaTerminada(turnos, jugadas, nanos, valida);
+            }
+
+            @Override
+            public void falloDetectado(TipoFallo tipo) {
+                primeras.falloDetectado(tipo);
+                otras.falloDetectado(tipo);
+            }
+
+            @Override
+            public void arbolConstruido(int nodos, long nanos) {
+                primeras.arbolConstruido(nodos, nanos);
+                otras.arbolConstruido(nodos, nanos);
+            }
+
+            @Override
+            public void dibujoTerminado(int nodosDibujados, long nanos) {
+                primeras.dibujoTerminado(nodosDibujados, nanos);
+                otras.dibujoTerminado(nodosDibujados, nanos);
+            }
+        };
+    }
+}
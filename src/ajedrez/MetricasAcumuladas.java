@@ -0,0 +1,172 @@
+package src.ajedrez;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Métricas que acumulan contadores y tiempos en memoria, seguras entre hilos.
+ *
+ * Los tiempos de dibujo se reparten en un histograma de cubetas de potencias de dos: la cubeta
+ * {@code i} cuenta los cuadros que tardaron entre 2^i y 2^(i+1) microsegundos.
+ */
+public class MetricasAcumuladas implements Metricas {
+    private static final int CUBETAS = 24;
+
+    private final LongAdder partidas = new LongAdder();
+    private final LongAdder partidasValidas = new LongAdder();
+    private final LongAdder turnos = new LongAdder();
+    private final LongAdder jugadas = new LongAdder();
+    private final LongAdder nanosLectura = new LongAdder();
+    private final LongAdder[] fallos = new LongAdder[TipoFallo.values().length];
+
+    private final LongAdder arboles = new LongAdder();
+    private final LongAdder nodosArbol = new LongAdder();
+    private final LongAdder nanosArbol = new LongAdder();
+
+    private final LongAdder cuadros = new LongAdder();
+    private final LongAdder nodosDibujados = new LongAdder();
+    private final LongAdder nanosDibujo = new LongAdder();
+    private final AtomicLongArray histogramaDibujo = new AtomicLongArray(CUBETAS);
+
+    public MetricasAcumuladas() {
+        for (int i = 0; i < fallos.length; i++) {
+            fallos[i] = new LongAdder();
+        }
+    }
+
+    @Override
+    public void lecturaTerminada(int turnos, int jugadas, long nanos, boolean valida) {
+        partidas.increment();
+        if (valida) {
+            partidasValidas.increment();
+        }
+        this.turnos.add(turnos);
+        this.jugadas.add(jugadas);
+        nanosLectura.add(nanos);
+    }
+
+    @Override
+    public void falloDetectado(TipoFallo tipo) {
+        fallos[tipo.ordinal()].increment();
+    }
+
+    @Override
+    public void arbolConstruido(int nodos, long nanos) {
+        arboles.increment();
+        nodosArbol.add(nodos);
+        nanosArbol.add(nanos);
+    }
+
+    @Override
+    public void dibujoTerminado(int nodosDibujados, long nanos) {
+        cuadros.increment();
+        this.nodosDibujados.add(nodosDibujados);
+        nanosDibujo.add(nanos);
+        histogramaDibujo.incrementAndGet(cubeta(nanos));
+    }
+
+    public long getPartidas() {
+        return partidas.sum();
+    }
+
+    public long getPartidasValidas() {
+        return partidasValidas.sum();
+    }
+
+    public long getTurnos() {
+        return turnos.sum();
+    }
+
+    public long getJugadas() {
+        return jugadas.sum();
+    }
+
+    public long getFallos(TipoFallo tipo) {
+        return fallos[tipo.ordinal()].sum();
+    }
+
+    /**
+     * @return Jugadas validadas por segundo de lectura
+     */
+    public double getJugadasPorSegundo() {
+        long nanos = nanosLectura.sum();
+        return nanos > 0 ? jugadas.sum() * 1e9 / nanos : 0;
+    }
+
+    public long getArbolesConstruidos() {
+        return arboles.sum();
+    }
+
+    /**
+     * @return Nodos creados por segundo de construcción de árboles
+     */
+    public double getNodosPorSegundo() {
+        long nanos = nanosArbol.sum();
+        return nanos > 0 ? nodosArbol.sum() * 1e9 / nanos : 0;
+    }
+
+    public long getCuadrosDibujados() {
+        return cuadros.sum();
+    }
+
+    public double getNodosPorCuadro() {
+        long total = cuadros.sum();
+        return total > 0 ? (double) nodosDibujados.sum() / total : 0;
+    }
+
+    /**
+     * @return Cuántos cuadros cayeron en cada cubeta de duración (ver la descripción de la clase)
+     */
+    public long[] getHistogramaDibujo() {
+        long[] copia = new long[CUBETAS];
+        for (int i = 0; i < CUBETAS; i++) {
+            copia[i] = histogramaDibujo.get(i);
+        }
+        return copia;
+    }
+
+    /**
+     * @param percentil Valor entre 0 y 1
+     * @return Cota superior, en microsegundos, de la duración del dibujo en ese percentil
+     */
+    public long getPercentilDibujoMicros(double percentil) {
+        long[] histograma = getHistogramaDibujo();
+        long total = 0;
+        for (long cantidad : histograma) {
+            total += cantidad;
+        }
+        long objetivo = (long) Math.ceil(total * percentil);
+        long acumulado = 0;
+        for (int i = 0; i < CUBETAS; i++) {
+            acumulado += histograma[i];
+            if (acumulado >= objetivo && acumulado > 0) {
+                return 1L << (i + 1);
+            }
+        }
+        return 0;
+    }
+
+    private static int cubeta(long nanos) {
+        long micros = Math.max(1, nanos / 1000);
+        return Math.min(CUBETAS - 1, 63 - Long.numberOfLeadingZeros(micros));
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder resumen = new StringBuilder();
+        resumen.append(String.format(Locale.ROOT,
+                "Lectura: %d partidas (%d válidas), %d turnos, %d jugadas, %.0f jugadas/s%n",
+                getPartidas(), getPartidasValidas(), getTurnos(), getJugadas(), getJugadasPorSegundo()));
+        resumen.append("Fallos:");
+        for (TipoFallo tipo : TipoFallo.values()) {
+            resumen.append(' ').append(tipo).append('=').append(getFallos(tipo));
+        }
+        resumen.append(String.format(Locale.ROOT, "%nÁrboles: %d construidos, %.0f nodos/s%n",
+                getArbolesConstruidos(), getNodosPorSegundo()));
+        resumen.append(String.format(Locale.ROOT, "Dibujo: %d cuadros, %.1f nodos/cuadro, p50 < %d us, p99 < %d us",
+                getCuadrosDibujados(), getNodosPorCuadro(),
+                getPercentilDibujoMicros(0.5), getPercentilDibujoMicros(0.99)));
+        return resumen.toString();
+    }
+}
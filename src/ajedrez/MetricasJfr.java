@@ -0,0 +1,123 @@
+package src.ajedrez;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Publica las mediciones como eventos propios de JDK Flight Recorder, visibles en JDK Mission
+ * Control o con {@code jfr print --events src.ajedrez.*}. Mientras Flight Recorder no se haya
+ * iniciado no se carga ninguna clase de evento, para no alargar el arranque; después cada evento
+ * se crea solo si está habilitado en la grabación en curso.
+ */
+public class MetricasJfr implements Metricas {
+    private static final String CATEGORIA = "Ajedrez";
+
+    @Override
+    public void lecturaTerminada(int turnos, int jugadas, long nanos, boolean valida) {
+        if (!FlightRecorder.isInitialized()) {
+            return;
+        }
+        EventoLectura evento = new EventoLectura();
+        if (evento.isEnabled()) {
+            evento.turnos = turnos;
+            evento.jugadas = jugadas;
+            evento.duracion = nanos;
+            evento.valida = valida;
+            evento.commit();
+        }
+    }
+
+    @Override
+    public void falloDetectado(TipoFallo tipo) {
+        if (!FlightRecorder.isInitialized()) {
+            return;
+        }
+        EventoFallo evento = new EventoFallo();
+        if (evento.isEnabled()) {
+            evento.tipo = tipo.name();
+            evento.commit();
+        }
+    }
+
+    @Override
+    public void arbolConstruido(int nodos, long nanos) {
+        if (!FlightRecorder.isInitialized()) {
+            return;
+        }
+        EventoArbol evento = new EventoArbol();
+        if (evento.isEnabled()) {
+            evento.nodos = nodos;
+            evento.duracion = nanos;
+            evento.commit();
+        }
+    }
+
+    @Override
+    public void dibujoTerminado(int nodosDibujados, long nanos) {
+        if (!FlightRecorder.isInitialized()) {
+            return;
+        }
+        EventoDibujo evento = new EventoDibujo();
+        if (evento.isEnabled()) {
+            evento.nodosDibujados = nodosDibujados;
+            evento.duracion = nanos;
+            evento.commit();
+        }
+    }
+
+    @Name("src.ajedrez.Lectura")
+    @Label("Lectura de partida")
+    @Category(CATEGORIA)
+    @Description("Reconocimiento y validación de los turnos de una partida")
+    static class EventoLectura extends Event {
+        @Label("Turnos")
+        int turnos;
+
+        @Label("Jugadas")
+        int jugadas;
+
+        @Label("Duración")
+        @Timespan(Timespan.NANOSECONDS)
+        long duracion;
+
+        @Label("Válida")
+        boolean valida;
+    }
+
+    @Name("src.ajedrez.Fallo")
+    @Label("Partida inválida")
+    @Category(CATEGORIA)
+    static class EventoFallo extends Event {
+        @Label("Tipo de fallo")
+        String tipo;
+    }
+
+    @Name("src.ajedrez.Arbol")
+    @Label("Construcción del árbol")
+    @Category(CATEGORIA)
+    static class EventoArbol extends Event {
+        @Label("Nodos")
+        int nodos;
+
+        @Label("Duración")
+        @Timespan(Timespan.NANOSECONDS)
+        long duracion;
+    }
+
+    @Name("src.ajedrez.Dibujo")
+    @Label("Dibujo del árbol")
+    @Category(CATEGORIA)
+    static class EventoDibujo extends Event {
+        @Label("Nodos dibujados")
+        int nodosDibujados;
+
+        @Label("Duración")
+        @Timespan(Timespan.NANOSECONDS)
+        long duracion;
+    }
+}
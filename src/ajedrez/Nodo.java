@@ -4,24 +4,57 @@ package src.ajedrez;
  * Clase que representa un nodo en el árbol binario
  */
 public class Nodo {
+    // Null en los nodos de turno, cuya etiqueta se genera a partir del número
     private String valor;
+    private int numeroTurno;
+    private TipoNodo tipo;
     private Nodo hijoIzquierdo;
     private Nodo hijoDerecho;
 
     public Nodo(String valor) {
+        this(valor, null);
+    }
+
+    /**
+     * @param tipo Clase del nodo dentro del árbol de la partida, o null si no se conoce
+     */
+    public Nodo(String valor, TipoNodo tipo) {
         this.valor = valor;
+        this.tipo = tipo;
         this.hijoIzquierdo = null;
         this.hijoDerecho = null;
     }
 
+    /**
+     * Crea un nodo de turno que no guarda su etiqueta "T" + número, sino que la genera al pedirla
+     */
+    public static Nodo deTurno(int numeroTurno) {
+        return new Nodo(numeroTurno);
+    }
+
+    /**
+     * Nodo de turno, para {@link #deTurno(int)} y las subclases
+     */
+    Nodo(int numeroTurno) {
+        this(null, TipoNodo.TURNO);
+        this.numeroTurno = numeroTurno;
+    }
+
     public String getValor() {
-        return valor;
+        return valor != null || tipo != TipoNodo.TURNO ? valor : "T" + numeroTurno;
     }
 
     public void setValor(String valor) {
         this.valor = valor;
     }
 
+    /**
+     * @return La clase del nodo, o null si se creó sin indicarla
+     */
+    public TipoNodo getTipo() {
+        return tipo;
+    }
+
     public Nodo getHijoIzquierdo() {
         return hijoIzquierdo;
     }
@@ -0,0 +1,93 @@
+package src.ajedrez;
+
+/**
+ * Nodo de un árbol creado con {@link ArbolBinario#diferido(TurnoStore)}: la raíz o un turno, que
+ * crea sus hijos a partir de los turnos la primera vez que se piden o se reemplazan.
+ *
+ * Los hijos se crean una sola vez aunque se pidan desde varios hilos. Las jugadas son hojas y
+ * se crean como {@link Nodo} normales.
+ */
+class NodoDiferido extends Nodo {
+    // Null cuando los hijos ya están creados; se escribe después de ellos para publicarlos
+    private volatile TurnoStore turnos;
+    // Índice del turno en el almacén, o -1 en la raíz
+    private final int indice;
+
+    /**
+     * Raíz del árbol de unos turnos, que no deben estar vacíos
+     */
+    NodoDiferido(TurnoStore turnos) {
+        super(ArbolBinario.VALOR_RAIZ, TipoNodo.RAIZ);
+        this.turnos = turnos;
+        this.indice = -1;
+    }
+
+    private NodoDiferido(TurnoStore turnos, int indice) {
+        super(indice + 1);
+        this.turnos = turnos;
+        this.indice = indice;
+    }
+
+    @Override
+    public Nodo getHijoIzquierdo() {
+        if (turnos != null) {
+            crearHijos();
+        }
+        return super.getHijoIzquierdo();
+    }
+
+    @Override
+    public void setHijoIzquierdo(Nodo hijoIzquierdo) {
+        if (turnos != null) {
+            crearHijos();
+        }
+        super.setHijoIzquierdo(hijoIzquierdo);
+    }
+
+    @Override
+    public Nodo getHijoDerecho() {
+        if (turnos != null) {
+            crearHijos();
+        }
+        return super.getHijoDerecho();
+    }
+
+    @Override
+    public void setHijoDerecho(Nodo hijoDerecho) {
+        if (turnos != null) {
+            crearHijos();
+        }
+        super.setHijoDerecho(hijoDerecho);
+    }
+
+    /**
+     * Crea los hijos con la misma forma que deja {@link ArbolBinario#appendTurno(int, int, int)}:
+     * la raíz tiene el primer turno a la izquierda y el último par a la derecha; cada turno impar
+     * tiene el siguiente impar a la izquierda, o su jugada blanca si es el último, y su jugada
+     * negra a la derecha; el turno par tiene sus dos jugadas.
+     */
+    private synchronized void crearHijos() {
+        TurnoStore origen = turnos;
+        if (origen == null) {
+            return;
+        }
+        int n = origen.size();
+        if (indice < 0) {
+            super.setHijoIzquierdo(new NodoDiferido(origen, 0));
+            if (n >= 2) {
+                super.setHijoDerecho(new NodoDiferido(origen, n % 2 == 0 ? n - 1 : n - 2));
+            }
+        } else {
+            boolean impar = indice % 2 == 0;
+            if (impar && indice + 2 < n) {
+                super.setHijoIzquierdo(new NodoDiferido(origen, indice + 2));
+            } else {
+                super.setHijoIzquierdo(new Nodo(origen.getJugadaBlanca(indice), TipoNodo.JUGADA_BLANCA));
+            }
+            if (origen.tieneJugadaNegra(indice)) {
+                super.setHijoDerecho(new Nodo(origen.getJugadaNegra(indice), TipoNodo.JUGADA_NEGRA));
+            }
+        }
+        turnos = null;
+    }
+}
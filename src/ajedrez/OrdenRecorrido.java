@@ -0,0 +1,15 @@
+package src.ajedrez;
+
+/**
+ * Orden en que {@link ArbolPartida#recorrer(OrdenRecorrido)} visita los nodos
+ */
+public enum OrdenRecorrido {
+    /** Nodo, izquierdo, derecho */
+    PREORDEN,
+    /** Izquierdo, nodo, derecho */
+    INORDEN,
+    /** Izquierdo, derecho, nodo */
+    POSTORDEN,
+    /** De arriba abajo y de izquierda a derecha */
+    POR_NIVELES
+}
@@ -0,0 +1,140 @@
+package src.ajedrez;
+
+import java.util.List;
+
+/**
+ * Resultado inmutable de analizar una partida con {@link ChessGameParser#analizar(String)}.
+ *
+ * Guarda los turnos válidos, que en una partida inválida son los anteriores al error, y el
+ * primer error. El árbol, un {@link ArbolCompacto} inmutable, se construye la primera vez que
+ * se pide y después se reutiliza. Puede compartirse entre hilos.
+ */
+public final class ResultadoAnalisis {
+    /** Color de un error que no está en una jugada, como un número de turno mal escrito */
+    public static final int SIN_COLOR = -1;
+
+    /**
+     * Primer error de una partida inválida
+     */
+    public static final class ErrorAnalisis {
+        private final TipoFallo tipo;
+        private final String mensaje;
+        private final int numeroTurno;
+        private final int color;
+        private final long offset;
+
+        ErrorAnalisis(TipoFallo tipo, String mensaje, int numeroTurno, int color, long offset) {
+            this.tipo = tipo;
+            this.mensaje = mensaje;
+            this.numeroTurno = numeroTurno;
+            this.color = color;
+            this.offset = offset;
+        }
+
+        public TipoFallo getTipo() {
+            return tipo;
+        }
+
+        public String getMensaje() {
+            return mensaje;
+        }
+
+        /**
+         * @return El número del turno en que se detectó el error, el que se esperaba en la
+         *         secuencia, o 0 si el error no está en un turno
+         */
+        public int getNumeroTurno() {
+            return numeroTurno;
+        }
+
+        /**
+         * @return {@link Tablero#BLANCAS} o {@link Tablero#NEGRAS} si el error está en una
+         *         jugada, o {@link #SIN_COLOR}
+         */
+        public int getColor() {
+            return color;
+        }
+
+        /**
+         * @return La posición (en caracteres) del elemento que provocó el error, o -1 si no se conoce
+         */
+        public long getOffset() {
+            return offset;
+        }
+    }
+
+    private final TurnoStore turnos;
+    private final ErrorAnalisis error;
+    private ArbolCompacto arbol;
+
+    ResultadoAnalisis(TurnoStore turnos, ErrorAnalisis error) {
+        this.turnos = turnos.soloLectura();
+        this.error = error;
+    }
+
+    public boolean esValida() {
+        return error == null;
+    }
+
+    /**
+     * @return El primer error, o null si la partida es válida
+     */
+    public ErrorAnalisis getError() {
+        return error;
+    }
+
+    public int getNumeroTurnos() {
+        return turnos.size();
+    }
+
+    /**
+     * @param indice Posición del turno, empezando en 0
+     */
+    public int getCodigoBlanca(int indice) {
+        return turnos.getCodigoBlanca(indice);
+    }
+
+    /**
+     * @return El código de la jugada negra o {@link JugadaSAN#INVALIDA} si el turno no la tiene
+     */
+    public int getCodigoNegra(int indice) {
+        return turnos.getCodigoNegra(indice);
+    }
+
+    public Turno getTurno(int indice) {
+        return turnos.getTurno(indice);
+    }
+
+    /**
+     * @return Una vista de solo lectura que crea cada {@link Turno} al consultarlo
+     */
+    public List<Turno> getTurnos() {
+        return turnos.comoLista();
+    }
+
+    /**
+     * @return Una copia de los turnos en su forma compacta, por ejemplo para {@link IndiceJugadas}
+     */
+    public TurnoStore copiarTurnos() {
+        TurnoStore copia = new TurnoStore();
+        copia.copiarDe(turnos, turnos.size());
+        return copia;
+    }
+
+    /**
+     * Construye el árbol la primera vez que se pide. Es de solo lectura, así que todos los que lo
+     * piden comparten el mismo; para modificarlo se construye un {@link ArbolBinario} con
+     * {@link #copiarTurnos()}.
+     * @return El árbol de la partida, vacío si no es válida
+     */
+    public synchronized ArbolPartida getArbol() {
+        if (arbol == null) {
+            long inicio = System.nanoTime();
+            arbol = new ArbolCompacto(esValida() ? turnos : new TurnoStore());
+            if (arbol.getNumeroNodos() > 0) {
+                Instrumentacion.getMetricas().arbolConstruido(arbol.getNumeroNodos(), System.nanoTime() - inicio);
+            }
+        }
+        return arbol;
+    }
+}
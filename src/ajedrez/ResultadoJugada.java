@@ -0,0 +1,32 @@
+package src.ajedrez;
+
+/**
+ * Resultado de reproducir una jugada sobre un {@link Tablero}
+ */
+public enum ResultadoJugada {
+    LEGAL("la jugada es legal"),
+    SIN_PIEZA("ninguna pieza puede llegar a la casilla destino"),
+    AMBIGUA("varias piezas pueden hacer la jugada y falta desambiguación"),
+    REY_EN_JAQUE("deja al propio rey en jaque"),
+    CASILLA_PROPIA("la casilla destino está ocupada por una pieza propia"),
+    CAPTURA_SIN_PIEZA("indica captura pero no hay pieza que capturar"),
+    CAPTURA_NO_INDICADA("captura una pieza sin indicarlo con 'x'"),
+    ENROQUE_ILEGAL("el enroque no está permitido en esta posición"),
+    PROMOCION_FALTANTE("el peón llega a la última fila sin indicar la promoción"),
+    PROMOCION_INDEBIDA("indica una promoción que no corresponde"),
+    JAQUE_NO_INDICADO("da jaque sin indicarlo con '+'"),
+    JAQUE_INCORRECTO("indica jaque pero no lo da"),
+    MATE_NO_INDICADO("da jaque mate sin indicarlo con '#'"),
+    MATE_INCORRECTO("indica jaque mate pero el rival puede responder"),
+    PARTIDA_TERMINADA("la partida ya terminó por jaque mate o ahogado");
+
+    private final String descripcion;
+
+    ResultadoJugada(String descripcion) {
+        this.descripcion = descripcion;
+    }
+
+    public String getDescripcion() {
+        return descripcion;
+    }
+}
@@ -0,0 +1,95 @@
+package src.ajedrez;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Resultado agregado de validar un lote de partidas
+ */
+public class ResultadoLote {
+
+    /**
+     * Partida inválida dentro del lote
+     */
+    public static class ErrorPartida {
+        private final long numeroPartida;
+        private final long offsetError;
+        private final String mensaje;
+
+        public ErrorPartida(long numeroPartida, long offsetError, String mensaje) {
+            this.numeroPartida = numeroPartida;
+            this.offsetError = offsetError;
+            this.mensaje = mensaje;
+        }
+
+        /**
+         * @return La posición de la partida en el lote, empezando en 1
+         */
+        public long getNumeroPartida() {
+            return numeroPartida;
+        }
+
+        /**
+         * @return La posición en el archivo del elemento que provocó el error
+         */
+        public long getOffsetError() {
+            return offsetError;
+        }
+
+        public String getMensaje() {
+            return mensaje;
+        }
+    }
+
+    private long totalPartidas;
+    private long partidasValidas;
+    private final List<ErrorPartida> errores;
+
+    public ResultadoLote() {
+        this.errores = new ArrayList<>();
+    }
+
+    /**
+     * Registra el resultado de la siguiente partida del lote
+     */
+    void registrar(boolean valida, long offsetError, String mensaje) {
+        totalPartidas++;
+        if (valida) {
+            partidasValidas++;
+        } else {
+            errores.add(new ErrorPartida(totalPartidas, offsetError, mensaje));
+        }
+    }
+
+    /**
+     * Añade al final los resultados de un lote posterior, renumerando sus partidas
+     */
+    void combinar(ResultadoLote siguiente) {
+        for (ErrorPartida error : siguiente.errores) {
+            errores.add(new ErrorPartida(totalPartidas + error.numeroPartida,
+                    error.offsetError, error.mensaje));
+        }
+        totalPartidas += siguiente.totalPartidas;
+        partidasValidas += siguiente.partidasValidas;
+    }
+
+    public long getTotalPartidas() {
+        return totalPartidas;
+    }
+
+    public long getPartidasValidas() {
+        return partidasValidas;
+    }
+
+    public long getPartidasInvalidas() {
+        return totalPartidas - partidasValidas;
+    }
+
+    /**
+     * @return Las partidas inválidas en el orden en que aparecen en el lote
+     */
+    public List<ErrorPartida> getErrores() {
+        return Collections.unmodifiableList(errores);
+    }
+}
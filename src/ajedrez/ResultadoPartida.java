@@ -0,0 +1,37 @@
+package src.ajedrez;
+
+/**
+ * Resultado final de una partida, con su notación PGN
+ */
+public enum ResultadoPartida {
+    GANAN_BLANCAS("1-0"),
+    TABLAS("1/2-1/2"),
+    GANAN_NEGRAS("0-1"),
+    DESCONOCIDO("*");
+
+    private final String notacion;
+
+    ResultadoPartida(String notacion) {
+        this.notacion = notacion;
+    }
+
+    public String getNotacion() {
+        return notacion;
+    }
+
+    /**
+     * @param notacion "1-0", "0-1", "1/2-1/2" o "*"
+     * @return El resultado correspondiente, o {@link #DESCONOCIDO} si la notación no es ninguna de ellas
+     */
+    public static ResultadoPartida desdeNotacion(String notacion) {
+        if (notacion != null) {
+            String texto = notacion.trim();
+            for (ResultadoPartida resultado : values()) {
+                if (resultado.notacion.equals(texto)) {
+                    return resultado;
+                }
+            }
+        }
+        return DESCONOCIDO;
+    }
+}
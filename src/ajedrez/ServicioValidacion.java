@@ -0,0 +1,433 @@
+package src.ajedrez;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.lang.reflect.InvocationTargetException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Servicio HTTP local que valida partidas para otros procesos, sin arrancar una JVM por partida.
+ * Usa el servidor del JDK ({@code com.sun.net.httpserver}) y no tiene dependencias externas.
+ *
+ * <ul>
+ *   <li>{@code POST /partida}: el cuerpo es una partida, que puede ocupar varias líneas. Responde
+ *       un objeto JSON.</li>
+ *   <li>{@code POST /lote}: el cuerpo tiene una partida por línea. Responde una línea JSON por
+ *       partida (NDJSON), escrita en cuanto se valida, así que el lote se lee y se responde por
+ *       flujo sin guardarlo entero.</li>
+ * </ul>
+ * Con {@code ?legal=true} o {@code ?legal=false} se elige por petición si se comprueba la
+ * legalidad. Las partidas se validan con {@link ChessGameParser#analizar(String)} sobre
+ * analizadores compartidos entre todas las peticiones.
+ *
+ * Cada petición se atiende en un hilo virtual si la JVM los tiene (JDK 21+). Como mucho
+ * {@code maximoEnCurso} peticiones se validan a la vez; las que llegan por encima del límite
+ * reciben enseguida un 503 con {@code Retry-After} en lugar de acumularse en memoria.
+ */
+public class ServicioValidacion implements Closeable {
+    public static final String OPCION_SERVIR = "--serve";
+    public static final int PUERTO_POR_DEFECTO = 8080;
+    public static final int MAXIMO_EN_CURSO_POR_DEFECTO = 256;
+    /** Tamaño máximo de una partida, en caracteres, para que una petición no agote la memoria */
+    public static final int TAMANO_MAXIMO_PARTIDA = 8 * 1024 * 1024;
+
+    private static final String USO = "Uso: java src.ajedrez.Main " + OPCION_SERVIR
+            + " [--host dirección] [--port puerto] [--max-in-flight n] [--legal]";
+    private static final String TIPO_JSON = "application/json; charset=utf-8";
+    private static final String TIPO_NDJSON = "application/x-ndjson; charset=utf-8";
+    private static final int TAMANO_BUFFER = 16 * 1024;
+    // Segundos que se sugiere esperar a un cliente rechazado por el límite
+    private static final String REINTENTO = "1";
+    // Resultados de leerLinea
+    private static final int FIN_ENTRADA = 0;
+    private static final int LINEA_COMPLETA = 1;
+    private static final int LINEA_DEMASIADO_LARGA = 2;
+
+    private final HttpServer servidor;
+    private final ExecutorService hilos;
+    private final boolean hilosVirtuales;
+    private final Semaphore enCurso;
+    private final ChessGameParser sintactico = new ChessGameParser();
+    private final ChessGameParser legal = new ChessGameParser();
+    private final boolean legalPorDefecto;
+    private final CountDownLatch detenido = new CountDownLatch(1);
+
+    /**
+     * Crea el servicio escuchando en la dirección dada. No atiende peticiones hasta {@link #iniciar()}.
+     * @param direccion Dirección y puerto; el puerto 0 elige uno libre
+     * @param maximoEnCurso Peticiones que se validan a la vez como máximo
+     * @param validarLegalidad Si se comprueba la legalidad cuando la petición no lo indica
+     */
+    public ServicioValidacion(InetSocketAddress direccion, int maximoEnCurso, boolean validarLegalidad) throws IOException {
+        if (maximoEnCurso < 1) {
+            throw new IllegalArgumentException("El máximo de peticiones en curso debe ser positivo");
+        }
+        this.enCurso = new Semaphore(maximoEnCurso);
+        this.legalPorDefecto = validarLegalidad;
+        legal.setValidarLegalidad(true);
+
+        ExecutorService virtuales = crearHilosVirtuales();
+        this.hilosVirtuales = virtuales != null;
+        this.hilos = virtuales != null ? virtuales : crearPool(maximoEnCurso);
+
+        this.servidor = HttpServer.create(direccion, 0);
+        servidor.createContext("/partida", intercambio -> atender(intercambio, false));
+        servidor.createContext("/lote", intercambio -> atender(intercambio, true));
+        servidor.setExecutor(hilos);
+    }
+
+    public void iniciar() {
+        servidor.start();
+    }
+
+    /**
+     * @return La dirección en que escucha, con el puerto real si se pidió el 0
+     */
+    public InetSocketAddress getDireccion() {
+        return servidor.getAddress();
+    }
+
+    /**
+     * @return true si las peticiones se atienden en hilos virtuales
+     */
+    public boolean usaHilosVirtuales() {
+        return hilosVirtuales;
+    }
+
+    /**
+     * Bloquea hasta que el servicio se detiene con {@link #close()}
+     */
+    public void esperar() throws InterruptedException {
+        detenido.await();
+    }
+
+    /**
+     * Deja de aceptar conexiones, espera un momento a las peticiones en curso y libera los hilos
+     */
+    @Override
+    public void close() {
+        if (detenido.getCount() == 0) {
+            return;
+        }
+        servidor.stop(1);
+        hilos.shutdown();
+        detenido.countDown();
+    }
+
+    /**
+     * Arranca el servicio con los argumentos que siguen a {@link #OPCION_SERVIR} y lo mantiene
+     * hasta que se interrumpe el proceso
+     * @return El código de salida del proceso si no pudo arrancar
+     */
+    public static int ejecutar(String[] args, PrintStream errores) {
+        String host = null;
+        int puerto = PUERTO_POR_DEFECTO;
+        int maximoEnCurso = MAXIMO_EN_CURSO_POR_DEFECTO;
+        boolean legalidad = false;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                if (arg.equals("--legal")) {
+                    legalidad = true;
+                } else if (arg.equals("--host") && i + 1 < args.length) {
+                    host = args[++i];
+                } else if (arg.equals("--port") && i + 1 < args.length) {
+                    puerto = Integer.parseInt(args[++i]);
+                } else if (arg.equals("--max-in-flight") && i + 1 < args.length) {
+                    maximoEnCurso = Integer.parseInt(args[++i]);
+                } else {
+                    errores.println("Opción desconocida: " + arg);
+                    errores.println(USO);
+                    return ValidacionConsola.SALIDA_ERROR;
+                }
+            }
+        } catch (NumberFormatException e) {
+            errores.println("Número no válido: " + e.getMessage());
+            errores.println(USO);
+            return ValidacionConsola.SALIDA_ERROR;
+        }
+
+        try {
+            // Por defecto solo se atiende a procesos de la misma máquina
+            InetAddress interfaz = host != null ? InetAddress.getByName(host) : InetAddress.getLoopbackAddress();
+            ServicioValidacion servicio = new ServicioValidacion(new InetSocketAddress(interfaz, puerto),
+                    maximoEnCurso, legalidad);
+            Runtime.getRuntime().addShutdownHook(new Thread(servicio::close));
+            servicio.iniciar();
+            errores.println("Validando partidas en http://" + servicio.getDireccion().getHostString() + ":"
+                    + servicio.getDireccion().getPort() + "/partida y /lote ("
+                    + (servicio.usaHilosVirtuales() ? "hilos virtuales" : "pool de hilos") + ", hasta "
+                    + maximoEnCurso + " peticiones a la vez)");
+            servicio.esperar();
+            return ValidacionConsola.SALIDA_VALIDAS;
+        } catch (IllegalArgumentException | IOException e) {
+            errores.println("No se pudo iniciar el servicio: " + e.getMessage());
+            return ValidacionConsola.SALIDA_ERROR;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ValidacionConsola.SALIDA_VALIDAS;
+        }
+    }
+
+    private void atender(HttpExchange intercambio, boolean lote) throws IOException {
+        try {
+            String ruta = intercambio.getRequestURI().getPath();
+            if (!ruta.equals("/partida") && !ruta.equals("/lote")) {
+                responderError(intercambio, 404, "No existe " + ruta);
+                return;
+            }
+            if (!intercambio.getRequestMethod().equals("POST")) {
+                intercambio.getResponseHeaders().set("Allow", "POST");
+                responderError(intercambio, 405, "Solo se admite POST");
+                return;
+            }
+            Boolean legalidad = leerLegalidad(intercambio.getRequestURI());
+            if (legalidad == null) {
+                responderError(intercambio, 400, "El parámetro legal debe ser true o false");
+                return;
+            }
+
+            if (!enCurso.tryAcquire()) {
+                intercambio.getResponseHeaders().set("Retry-After", REINTENTO);
+                responderError(intercambio, 503, "Demasiadas peticiones en curso");
+                return;
+            }
+            try {
+                ChessGameParser parser = legalidad ? legal : sintactico;
+                if (lote) {
+                    validarLote(intercambio, parser);
+                } else {
+                    validarPartida(intercambio, parser);
+                }
+            } finally {
+                enCurso.release();
+            }
+        } catch (RuntimeException e) {
+            // Si la respuesta ya empezó, el cliente verá el flujo cortado
+            if (intercambio.getResponseCode() < 0) {
+                responderError(intercambio, 500, "Error inesperado: " + e.getMessage());
+            }
+            e.printStackTrace();
+        } finally {
+            intercambio.close();
+        }
+    }
+
+    private void validarPartida(HttpExchange intercambio, ChessGameParser parser) throws IOException {
+        String partida = leerCuerpo(intercambio.getRequestBody());
+        if (partida == null) {
+            responderError(intercambio, 413, "La partida supera " + TAMANO_MAXIMO_PARTIDA + " caracteres");
+            return;
+        }
+        StringBuilder json = new StringBuilder();
+        escribirResultado(json, 1, parser.analizar(partida));
+        byte[] respuesta = json.append('\n').toString().getBytes(StandardCharsets.UTF_8);
+        intercambio.getResponseHeaders().set("Content-Type", TIPO_JSON);
+        intercambio.sendResponseHeaders(200, respuesta.length);
+        try (OutputStream cuerpo = intercambio.getResponseBody()) {
+            cuerpo.write(respuesta);
+        }
+    }
+
+    /**
+     * Valida las líneas a medida que llegan y escribe cada resultado por bloques (chunked).
+     * La salida se vacía cuando no queda entrada ya recibida, así que un cliente que envía
+     * partida a partida recibe cada respuesta sin esperar al resto del lote.
+     */
+    private void validarLote(HttpExchange intercambio, ChessGameParser parser) throws IOException {
+        intercambio.getResponseHeaders().set("Content-Type", TIPO_NDJSON);
+        intercambio.sendResponseHeaders(200, 0);
+        BufferedReader entrada = new BufferedReader(
+                new InputStreamReader(intercambio.getRequestBody(), StandardCharsets.UTF_8), TAMANO_BUFFER);
+        try (Writer salida = new BufferedWriter(
+                new OutputStreamWriter(intercambio.getResponseBody(), StandardCharsets.UTF_8), TAMANO_BUFFER)) {
+            StringBuilder linea = new StringBuilder();
+            StringBuilder json = new StringBuilder();
+            int numeroPartida = 0;
+            int estado;
+            while ((estado = leerLinea(entrada, linea)) != FIN_ENTRADA) {
+                String partida = linea.toString();
+                if (estado == LINEA_COMPLETA && partida.trim().isEmpty()) {
+                    continue;
+                }
+                numeroPartida++;
+                json.setLength(0);
+                if (estado == LINEA_DEMASIADO_LARGA) {
+                    json.append("{\"partida\":").append(numeroPartida).append(",\"valida\":false,\"error\":{\"mensaje\":");
+                    escribirTexto(json, "La partida supera " + TAMANO_MAXIMO_PARTIDA + " caracteres");
+                    json.append("}}");
+                } else {
+                    escribirResultado(json, numeroPartida, parser.analizar(partida));
+                }
+                salida.append(json).append('\n');
+                if (!entrada.ready()) {
+                    salida.flush();
+                }
+            }
+        }
+    }
+
+    /**
+     * Lee la siguiente línea sin su fin de línea. Si supera {@link #TAMANO_MAXIMO_PARTIDA} se
+     * descarta el resto hasta el fin de línea.
+     */
+    private static int leerLinea(BufferedReader entrada, StringBuilder linea) throws IOException {
+        linea.setLength(0);
+        boolean larga = false;
+        int c = entrada.read();
+        if (c < 0) {
+            return FIN_ENTRADA;
+        }
+        for (; c >= 0 && c != '\n'; c = entrada.read()) {
+            if (linea.length() < TAMANO_MAXIMO_PARTIDA) {
+                linea.append((char) c);
+            } else {
+                larga = true;
+            }
+        }
+        if (linea.length() > 0 && linea.charAt(linea.length() - 1) == '\r') {
+            linea.setLength(linea.length() - 1);
+        }
+        return larga ? LINEA_DEMASIADO_LARGA : LINEA_COMPLETA;
+    }
+
+    /**
+     * @return El cuerpo completo como texto, o null si supera {@link #TAMANO_MAXIMO_PARTIDA}
+     */
+    private static String leerCuerpo(InputStream cuerpo) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[TAMANO_BUFFER];
+        int n;
+        while ((n = cuerpo.read(buffer)) > 0) {
+            // Cada carácter ocupa al menos un byte en UTF-8
+            if (bytes.size() + n > TAMANO_MAXIMO_PARTIDA * 4L) {
+                return null;
+            }
+            bytes.write(buffer, 0, n);
+        }
+        String texto = new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+        return texto.length() <= TAMANO_MAXIMO_PARTIDA ? texto : null;
+    }
+
+    /**
+     * @return La legalidad pedida en la consulta, la del servicio si no se indica, o null si el valor no es válido
+     */
+    private Boolean leerLegalidad(URI uri) {
+        String consulta = uri.getRawQuery();
+        if (consulta == null) {
+            return legalPorDefecto;
+        }
+        Boolean legalidad = legalPorDefecto;
+        for (String parametro : consulta.split("&")) {
+            if (parametro.equals("legal") || parametro.equals("legal=true")) {
+                legalidad = true;
+            } else if (parametro.equals("legal=false")) {
+                legalidad = false;
+            } else if (parametro.startsWith("legal=")) {
+                return null;
+            }
+        }
+        return legalidad;
+    }
+
+    /**
+     * Escribe un resultado como objeto JSON. Las posiciones de error son relativas a la partida.
+     */
+    private static void escribirResultado(StringBuilder json, int numeroPartida, ResultadoAnalisis resultado) {
+        json.append("{\"partida\":").append(numeroPartida)
+                .append(",\"valida\":").append(resultado.esValida())
+                .append(",\"turnos\":").append(resultado.getNumeroTurnos());
+        ResultadoAnalisis.ErrorAnalisis error = resultado.getError();
+        if (error != null) {
+            json.append(",\"error\":{\"tipo\":\"").append(error.getTipo()).append("\",\"mensaje\":");
+            escribirTexto(json, error.getMensaje());
+            json.append(",\"turno\":").append(error.getNumeroTurno());
+            if (error.getColor() == Tablero.BLANCAS) {
+                json.append(",\"color\":\"blancas\"");
+            } else if (error.getColor() == Tablero.NEGRAS) {
+                json.append(",\"color\":\"negras\"");
+            }
+            json.append(",\"offset\":").append(error.getOffset()).append('}');
+        }
+        json.append('}');
+    }
+
+    private static void escribirTexto(StringBuilder json, String texto) {
+        json.append('"');
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        json.append('"');
+    }
+
+    private static void responderError(HttpExchange intercambio, int codigo, String mensaje) throws IOException {
+        StringBuilder json = new StringBuilder("{\"error\":");
+        escribirTexto(json, mensaje);
+        byte[] respuesta = json.append("}\n").toString().getBytes(StandardCharsets.UTF_8);
+        intercambio.getResponseHeaders().set("Content-Type", TIPO_JSON);
+        intercambio.sendResponseHeaders(codigo, respuesta.length);
+        try (OutputStream cuerpo = intercambio.getResponseBody()) {
+            cuerpo.write(respuesta);
+        }
+    }
+
+    /**
+     * Se compila para Java 11, así que los hilos virtuales se piden por reflexión
+     * @return Un ejecutor con un hilo virtual por tarea, o null si la JVM no los tiene
+     */
+    private static ExecutorService crearHilosVirtuales() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+            // Antes del JDK 21, o en el 19 y el 20 sin --enable-preview
+            return null;
+        }
+    }
+
+    /**
+     * Sin hilos virtuales, un pool con algunos hilos más que el límite: las peticiones que lo
+     * superan se rechazan enseguida en lugar de esperar en la cola del pool
+     */
+    private static ExecutorService crearPool(int maximoEnCurso) {
+        int tamano = maximoEnCurso + Math.max(2, maximoEnCurso / 8);
+        AtomicInteger contador = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(tamano, tamano, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), tarea -> {
+                    Thread hilo = new Thread(tarea, "validacion-http-" + contador.incrementAndGet());
+                    hilo.setDaemon(true);
+                    return hilo;
+                });
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+}
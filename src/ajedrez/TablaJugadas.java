@@ -0,0 +1,48 @@
+package src.ajedrez;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tabla de símbolos compartida con el texto canónico de cada jugada.
+ *
+ * El vocabulario SAN es pequeño y las mismas jugadas ("e4", "Nf3", "O-O") se repiten en todas
+ * las partidas, así que cada jugada se guarda una sola vez y los árboles y turnos apuntan a esa
+ * instancia en lugar de tener cada uno su propia copia. La clave es el código empaquetado de
+ * {@link JugadaSAN}, que identifica el texto sin ambigüedad. Es segura entre hilos.
+ */
+public final class TablaJugadas {
+    private static final ConcurrentHashMap<Integer, String> TEXTOS = new ConcurrentHashMap<>(1024);
+
+    private TablaJugadas() {
+    }
+
+    /**
+     * @param codigo Código de una jugada válida
+     * @return El texto SAN canónico de la jugada
+     */
+    public static String texto(int codigo) {
+        String texto = TEXTOS.get(codigo);
+        if (texto == null) {
+            texto = TEXTOS.computeIfAbsent(codigo, JugadaSAN::aSAN);
+        }
+        return texto;
+    }
+
+    /**
+     * @return La instancia canónica de la jugada, o la misma cadena si no es una jugada válida
+     */
+    public static String canonica(String jugada) {
+        if (jugada == null) {
+            return null;
+        }
+        int codigo = JugadaSAN.clasificar(jugada);
+        return JugadaSAN.esValida(codigo) ? texto(codigo) : jugada;
+    }
+
+    /**
+     * @return Cuántas jugadas distintas contiene la tabla
+     */
+    public static int getTamano() {
+        return TEXTOS.size();
+    }
+}
@@ -0,0 +1,566 @@
+package src.ajedrez;
+
+import java.util.Arrays;
+
+/**
+ * Posición de ajedrez representada con bitboards para comprobar la legalidad de las jugadas.
+ *
+ * Cada tipo de pieza de cada color ocupa un {@code long} con un bit por casilla
+ * (a1 = bit 0, h1 = bit 7, a8 = bit 56). Los ataques de caballo, rey y peón salen de tablas
+ * precalculadas y los de las piezas de largo alcance de rayos precalculados recortados en la
+ * primera pieza que bloquea. Las jugadas llegan ya clasificadas por {@link JugadaSAN}, se
+ * resuelve la desambiguación, se comprueba que la jugada sea legal y que los indicadores de
+ * captura, promoción, jaque y mate sean correctos. Reproducir una jugada no crea objetos.
+ *
+ * No es segura entre hilos: cada analizador usa su propio tablero.
+ */
+public class Tablero {
+    public static final int BLANCAS = 0;
+    public static final int NEGRAS = 1;
+
+    private static final int PEON = JugadaSAN.PEON;
+    private static final int REY = JugadaSAN.REY;
+    private static final int DAMA = JugadaSAN.DAMA;
+    private static final int TORRE = JugadaSAN.TORRE;
+    private static final int ALFIL = JugadaSAN.ALFIL;
+    private static final int CABALLO = JugadaSAN.CABALLO;
+
+    private static final int ENROQUE_CORTO_BLANCAS = 1;
+    private static final int ENROQUE_LARGO_BLANCAS = 2;
+    private static final int ENROQUE_CORTO_NEGRAS = 4;
+    private static final int ENROQUE_LARGO_NEGRAS = 8;
+
+    private static final String LETRAS_FEN = "PKQRBNpkqrbn";
+    private static final int[] PIEZAS_PRIMERA_FILA = {TORRE, CABALLO, ALFIL, DAMA, REY, ALFIL, CABALLO, TORRE};
+
+    // Rayos desde cada casilla: N, NE, E, NO crecen en índice; S, SE, SO, O decrecen
+    private static final int NORTE = 0;
+    private static final int NORESTE = 1;
+    private static final int ESTE = 2;
+    private static final int NOROESTE = 3;
+    private static final int SUR = 4;
+    private static final int SURESTE = 5;
+    private static final int OESTE = 6;
+    private static final int SUROESTE = 7;
+    private static final int[][] PASOS_RAYO = {{1, 0}, {1, 1}, {0, 1}, {1, -1}, {-1, 0}, {-1, 1}, {0, -1}, {-1, -1}};
+
+    private static final long[][] RAYOS = new long[8][64];
+    private static final long[] ATAQUES_CABALLO = new long[64];
+    private static final long[] ATAQUES_REY = new long[64];
+    // Casillas que ataca un peón de cada color desde cada casilla
+    private static final long[][] ATAQUES_PEON = new long[2][64];
+    // Derechos de enroque que sobreviven a que una pieza salga de la casilla o llegue a ella
+    private static final int[] MASCARA_ENROQUE = new int[64];
+    private static final long[] COLUMNAS = new long[8];
+    private static final long[] FILAS = new long[8];
+
+    static {
+        for (int casilla = 0; casilla < 64; casilla++) {
+            int fila = casilla >> 3;
+            int columna = casilla & 7;
+            ATAQUES_CABALLO[casilla] = saltos(fila, columna, new int[][]{
+                    {1, 2}, {2, 1}, {2, -1}, {1, -2}, {-1, -2}, {-2, -1}, {-2, 1}, {-1, 2}});
+            ATAQUES_REY[casilla] = saltos(fila, columna, new int[][]{
+                    {1, 0}, {1, 1}, {0, 1}, {-1, 1}, {-1, 0}, {-1, -1}, {0, -1}, {1, -1}});
+            ATAQUES_PEON[BLANCAS][casilla] = saltos(fila, columna, new int[][]{{1, -1}, {1, 1}});
+            ATAQUES_PEON[NEGRAS][casilla] = saltos(fila, columna, new int[][]{{-1, -1}, {-1, 1}});
+            for (int direccion = 0; direccion < 8; direccion++) {
+                int f = fila + PASOS_RAYO[direccion][0];
+                int c = columna + PASOS_RAYO[direccion][1];
+                while (f >= 0 && f < 8 && c >= 0 && c < 8) {
+                    RAYOS[direccion][casilla] |= 1L << (f * 8 + c);
+                    f += PASOS_RAYO[direccion][0];
+                    c += PASOS_RAYO[direccion][1];
+                }
+            }
+            MASCARA_ENROQUE[casilla] = 0xF;
+            COLUMNAS[columna] |= 1L << casilla;
+            FILAS[fila] |= 1L << casilla;
+        }
+        MASCARA_ENROQUE[0] &= ~ENROQUE_LARGO_BLANCAS;
+        MASCARA_ENROQUE[7] &= ~ENROQUE_CORTO_BLANCAS;
+        MASCARA_ENROQUE[4] &= ~(ENROQUE_CORTO_BLANCAS | ENROQUE_LARGO_BLANCAS);
+        MASCARA_ENROQUE[56] &= ~ENROQUE_LARGO_NEGRAS;
+        MASCARA_ENROQUE[63] &= ~ENROQUE_CORTO_NEGRAS;
+        MASCARA_ENROQUE[60] &= ~(ENROQUE_CORTO_NEGRAS | ENROQUE_LARGO_NEGRAS);
+    }
+
+    // Índice de bitboard: color * 6 + pieza
+    private final long[] piezas = new long[12];
+    private final long[] ocupacionColor = new long[2];
+    // Pieza en cada casilla con el mismo índice, o -1 si está vacía
+    private final byte[] casillas = new byte[64];
+    private int turno;
+    private int derechosEnroque;
+    // Casilla a la que se puede capturar al paso, o -1
+    private int casillaAlPaso;
+    private boolean terminada;
+
+    /**
+     * Crea un tablero con la posición inicial
+     */
+    public Tablero() {
+        reiniciar();
+    }
+
+    /**
+     * Vuelve a la posición inicial
+     */
+    public void reiniciar() {
+        Arrays.fill(piezas, 0L);
+        ocupacionColor[BLANCAS] = 0L;
+        ocupacionColor[NEGRAS] = 0L;
+        Arrays.fill(casillas, (byte) -1);
+        for (int columna = 0; columna < 8; columna++) {
+            poner(columna, BLANCAS * 6 + PIEZAS_PRIMERA_FILA[columna]);
+            poner(8 + columna, BLANCAS * 6 + PEON);
+            poner(48 + columna, NEGRAS * 6 + PEON);
+            poner(56 + columna, NEGRAS * 6 + PIEZAS_PRIMERA_FILA[columna]);
+        }
+        turno = BLANCAS;
+        derechosEnroque = ENROQUE_CORTO_BLANCAS | ENROQUE_LARGO_BLANCAS | ENROQUE_CORTO_NEGRAS | ENROQUE_LARGO_NEGRAS;
+        casillaAlPaso = -1;
+        terminada = false;
+    }
+
+    /**
+     * Copia la posición de otro tablero, por ejemplo para probar jugadas sin perder la actual
+     */
+    public void copiarDe(Tablero otro) {
+        System.arraycopy(otro.piezas, 0, piezas, 0, piezas.length);
+        System.arraycopy(otro.ocupacionColor, 0, ocupacionColor, 0, ocupacionColor.length);
+        System.arraycopy(otro.casillas, 0, casillas, 0, casillas.length);
+        turno = otro.turno;
+        derechosEnroque = otro.derechosEnroque;
+        casillaAlPaso = otro.casillaAlPaso;
+        terminada = otro.terminada;
+    }
+
+    /**
+     * Reproduce la siguiente jugada de la partida.
+     * Si el resultado es un error de jaque o mate la jugada queda hecha; con cualquier otro error
+     * la posición no cambia. En ambos casos la partida no debería continuar.
+     * @param codigo Código de {@link JugadaSAN} de una jugada sintácticamente válida
+     * @return {@link ResultadoJugada#LEGAL} o el motivo por el que la jugada no es legal
+     */
+    public ResultadoJugada aplicar(int codigo) {
+        if (terminada) {
+            return ResultadoJugada.PARTIDA_TERMINADA;
+        }
+
+        ResultadoJugada resultado;
+        if (JugadaSAN.esEnroque(codigo)) {
+            resultado = enrocar(JugadaSAN.tipo(codigo) == JugadaSAN.TipoJugada.ENROQUE_CORTO);
+        } else if (JugadaSAN.pieza(codigo) == PEON) {
+            resultado = moverPeon(codigo);
+        } else {
+            resultado = moverPieza(codigo);
+        }
+        if (resultado != ResultadoJugada.LEGAL) {
+            // Sin ninguna jugada posible la partida ya había terminado en ahogado
+            return hayJugadaLegal() ? resultado : ResultadoJugada.PARTIDA_TERMINADA;
+        }
+
+        // La jugada ya está hecha: comprobar los indicadores de jaque y mate del rival
+        boolean jaque = enJaque();
+        boolean mate = jaque && !hayJugadaLegal();
+        if (mate) {
+            terminada = true;
+            return JugadaSAN.esMate(codigo) ? ResultadoJugada.LEGAL : ResultadoJugada.MATE_NO_INDICADO;
+        }
+        if (JugadaSAN.esMate(codigo)) {
+            return jaque ? ResultadoJugada.MATE_INCORRECTO : ResultadoJugada.JAQUE_INCORRECTO;
+        }
+        if (jaque != JugadaSAN.esJaque(codigo)) {
+            return jaque ? ResultadoJugada.JAQUE_NO_INDICADO : ResultadoJugada.JAQUE_INCORRECTO;
+        }
+        return ResultadoJugada.LEGAL;
+    }
+
+    /**
+     * @return {@link #BLANCAS} o {@link #NEGRAS}, el color al que le toca mover
+     */
+    public int getTurno() {
+        return turno;
+    }
+
+    /**
+     * @return true si el rey del color al que le toca mover está en jaque
+     */
+    public boolean enJaque() {
+        int rey = Long.numberOfTrailingZeros(piezas[turno * 6 + REY]);
+        return atacantes(rey, turno ^ 1, ocupacionColor[BLANCAS] | ocupacionColor[NEGRAS]) != 0;
+    }
+
+    /**
+     * @return true si la última jugada dio jaque mate
+     */
+    public boolean estaTerminada() {
+        return terminada;
+    }
+
+    /**
+     * @return Las cuatro primeras partes de la notación FEN de la posición (piezas, turno,
+     *         enroques y casilla al paso)
+     */
+    public String aFEN() {
+        StringBuilder fen = new StringBuilder(64);
+        for (int fila = 7; fila >= 0; fila--) {
+            int vacias = 0;
+            for (int columna = 0; columna < 8; columna++) {
+                int pieza = casillas[fila * 8 + columna];
+                if (pieza < 0) {
+                    vacias++;
+                    continue;
+                }
+                if (vacias > 0) {
+                    fen.append(vacias);
+                    vacias = 0;
+                }
+                fen.append(LETRAS_FEN.charAt(pieza));
+            }
+            if (vacias > 0) {
+                fen.append(vacias);
+            }
+            if (fila > 0) {
+                fen.append('/');
+            }
+        }
+        fen.append(turno == BLANCAS ? " w " : " b ");
+        if (derechosEnroque == 0) {
+            fen.append('-');
+        } else {
+            if ((derechosEnroque & ENROQUE_CORTO_BLANCAS) != 0) fen.append('K');
+            if ((derechosEnroque & ENROQUE_LARGO_BLANCAS) != 0) fen.append('Q');
+            if ((derechosEnroque & ENROQUE_CORTO_NEGRAS) != 0) fen.append('k');
+            if ((derechosEnroque & ENROQUE_LARGO_NEGRAS) != 0) fen.append('q');
+        }
+        fen.append(' ');
+        if (casillaAlPaso < 0) {
+            fen.append('-');
+        } else {
+            fen.append((char) ('a' + (casillaAlPaso & 7))).append((char) ('1' + (casillaAlPaso >> 3)));
+        }
+        return fen.toString();
+    }
+
+    private ResultadoJugada moverPieza(int codigo) {
+        int pieza = JugadaSAN.pieza(codigo);
+        int destino = casillaDestino(codigo);
+        long bitDestino = 1L << destino;
+        if ((ocupacionColor[turno] & bitDestino) != 0) {
+            return ResultadoJugada.CASILLA_PROPIA;
+        }
+        if (JugadaSAN.esPromocion(codigo)) {
+            return ResultadoJugada.PROMOCION_INDEBIDA;
+        }
+        boolean captura = (ocupacionColor[turno ^ 1] & bitDestino) != 0;
+        if (captura != JugadaSAN.esCaptura(codigo)) {
+            return captura ? ResultadoJugada.CAPTURA_NO_INDICADA : ResultadoJugada.CAPTURA_SIN_PIEZA;
+        }
+
+        // Las piezas que pueden llegar al destino son las que este ataca con el mismo movimiento
+        long ocupacion = ocupacionColor[BLANCAS] | ocupacionColor[NEGRAS];
+        long candidatos = ataques(pieza, destino, ocupacion) & piezas[turno * 6 + pieza];
+        int columna = JugadaSAN.columnaDesambiguacion(codigo);
+        if (columna != 0) {
+            candidatos &= COLUMNAS[columna - 1];
+        }
+        int fila = JugadaSAN.filaDesambiguacion(codigo);
+        if (fila != 0) {
+            candidatos &= FILAS[fila - 1];
+        }
+        if (candidatos == 0) {
+            return ResultadoJugada.SIN_PIEZA;
+        }
+
+        // Solo cuentan para la ambigüedad las piezas que pueden mover legalmente
+        int origen = -1;
+        int legales = 0;
+        for (long resto = candidatos; resto != 0; resto &= resto - 1) {
+            int desde = Long.numberOfTrailingZeros(resto);
+            if (esLegal(desde, destino, pieza, destino)) {
+                origen = desde;
+                legales++;
+            }
+        }
+        if (legales == 0) {
+            return ResultadoJugada.REY_EN_JAQUE;
+        }
+        if (legales > 1) {
+            return ResultadoJugada.AMBIGUA;
+        }
+        ejecutar(origen, destino, turno * 6 + pieza, destino, turno * 6 + pieza);
+        return ResultadoJugada.LEGAL;
+    }
+
+    private ResultadoJugada moverPeon(int codigo) {
+        int destino = casillaDestino(codigo);
+        int filaDestino = destino >> 3;
+        long bitDestino = 1L << destino;
+        int avance = turno == BLANCAS ? 8 : -8;
+        int filaOrigen = filaDestino - (turno == BLANCAS ? 1 : -1);
+        if ((ocupacionColor[turno] & bitDestino) != 0) {
+            return ResultadoJugada.CASILLA_PROPIA;
+        }
+        if (filaOrigen < 0 || filaOrigen > 7) {
+            return ResultadoJugada.SIN_PIEZA;
+        }
+
+        long peones = piezas[turno * 6 + PEON];
+        int origen;
+        int casillaCaptura;
+        if (JugadaSAN.tipo(codigo) == JugadaSAN.TipoJugada.PEON_AVANCE) {
+            if ((ocupacionColor[turno ^ 1] & bitDestino) != 0) {
+                return ResultadoJugada.SIN_PIEZA;
+            }
+            origen = destino - avance;
+            if ((peones & (1L << origen)) == 0) {
+                // Avance doble desde la fila inicial, con la casilla intermedia libre
+                int filaDoble = turno == BLANCAS ? 3 : 4;
+                if (filaDestino != filaDoble || casillas[origen] >= 0 || (peones & (1L << (origen - avance))) == 0) {
+                    return ResultadoJugada.SIN_PIEZA;
+                }
+                origen -= avance;
+            }
+            casillaCaptura = destino;
+        } else {
+            int columnaOrigen = JugadaSAN.columnaDesambiguacion(codigo) - 1;
+            if (Math.abs(columnaOrigen - (destino & 7)) != 1) {
+                return ResultadoJugada.SIN_PIEZA;
+            }
+            origen = filaOrigen * 8 + columnaOrigen;
+            if ((peones & (1L << origen)) == 0) {
+                return ResultadoJugada.SIN_PIEZA;
+            }
+            if ((ocupacionColor[turno ^ 1] & bitDestino) != 0) {
+                casillaCaptura = destino;
+            } else if (destino == casillaAlPaso) {
+                casillaCaptura = destino - avance;
+            } else {
+                return ResultadoJugada.CAPTURA_SIN_PIEZA;
+            }
+        }
+
+        boolean ultimaFila = filaDestino == (turno == BLANCAS ? 7 : 0);
+        if (ultimaFila != JugadaSAN.esPromocion(codigo)) {
+            return ultimaFila ? ResultadoJugada.PROMOCION_FALTANTE : ResultadoJugada.PROMOCION_INDEBIDA;
+        }
+        if (!esLegal(origen, destino, PEON, casillaCaptura)) {
+            return ResultadoJugada.REY_EN_JAQUE;
+        }
+        int piezaFinal = turno * 6 + (ultimaFila ? JugadaSAN.piezaPromocion(codigo) : PEON);
+        ejecutar(origen, destino, turno * 6 + PEON, casillaCaptura, piezaFinal);
+        return ResultadoJugada.LEGAL;
+    }
+
+    private ResultadoJugada enrocar(boolean corto) {
+        int base = turno == BLANCAS ? 0 : 56;
+        int derecho = corto
+                ? (turno == BLANCAS ? ENROQUE_CORTO_BLANCAS : ENROQUE_CORTO_NEGRAS)
+                : (turno == BLANCAS ? ENROQUE_LARGO_BLANCAS : ENROQUE_LARGO_NEGRAS);
+        if ((derechosEnroque & derecho) == 0) {
+            return ResultadoJugada.ENROQUE_ILEGAL;
+        }
+
+        // Casillas entre rey y torre que deben estar libres y casillas que recorre el rey
+        long libres = corto ? 0x60L << base : 0x0EL << base;
+        int torreDesde = corto ? base + 7 : base;
+        int torreHasta = corto ? base + 5 : base + 3;
+        int reyHasta = corto ? base + 6 : base + 2;
+        long ocupacion = ocupacionColor[BLANCAS] | ocupacionColor[NEGRAS];
+        if ((ocupacion & libres) != 0) {
+            return ResultadoJugada.ENROQUE_ILEGAL;
+        }
+        int paso = corto ? 1 : -1;
+        for (int casilla = base + 4; casilla != reyHasta + paso; casilla += paso) {
+            if (atacantes(casilla, turno ^ 1, ocupacion) != 0) {
+                return ResultadoJugada.ENROQUE_ILEGAL;
+            }
+        }
+
+        trasladar(torreDesde, torreHasta, turno * 6 + TORRE);
+        ejecutar(base + 4, reyHasta, turno * 6 + REY, reyHasta, turno * 6 + REY);
+        return ResultadoJugada.LEGAL;
+    }
+
+    /**
+     * Comprueba, sin hacer la jugada, que el propio rey no queda atacado después de ella
+     * @param casillaCaptura Casilla de la pieza capturada (distinta del destino al capturar al paso)
+     */
+    private boolean esLegal(int desde, int hasta, int pieza, int casillaCaptura) {
+        int rival = turno ^ 1;
+        long capturada = (1L << casillaCaptura) & ocupacionColor[rival];
+        long ocupacion = ((ocupacionColor[BLANCAS] | ocupacionColor[NEGRAS]) & ~(1L << desde) & ~capturada)
+                | (1L << hasta);
+        int rey = pieza == REY ? hasta : Long.numberOfTrailingZeros(piezas[turno * 6 + REY]);
+        return (atacantes(rey, rival, ocupacion) & ~capturada) == 0;
+    }
+
+    /**
+     * Busca, sin crear objetos, alguna jugada legal para el color al que le toca mover
+     */
+    private boolean hayJugadaLegal() {
+        long propias = ocupacionColor[turno];
+        long rivales = ocupacionColor[turno ^ 1];
+        long ocupacion = propias | rivales;
+        for (int pieza = REY; pieza <= CABALLO; pieza++) {
+            for (long origenes = piezas[turno * 6 + pieza]; origenes != 0; origenes &= origenes - 1) {
+                int desde = Long.numberOfTrailingZeros(origenes);
+                for (long destinos = ataques(pieza, desde, ocupacion) & ~propias; destinos != 0; destinos &= destinos - 1) {
+                    int hasta = Long.numberOfTrailingZeros(destinos);
+                    if (esLegal(desde, hasta, pieza, hasta)) {
+                        return true;
+                    }
+                }
+            }
+        }
+
+        int avance = turno == BLANCAS ? 8 : -8;
+        int filaInicial = turno == BLANCAS ? 1 : 6;
+        for (long origenes = piezas[turno * 6 + PEON]; origenes != 0; origenes &= origenes - 1) {
+            int desde = Long.numberOfTrailingZeros(origenes);
+            int adelante = desde + avance;
+            if (adelante >= 0 && adelante < 64 && casillas[adelante] < 0) {
+                if (esLegal(desde, adelante, PEON, adelante)) {
+                    return true;
+                }
+                int doble = adelante + avance;
+                if (desde >> 3 == filaInicial && casillas[doble] < 0 && esLegal(desde, doble, PEON, doble)) {
+                    return true;
+                }
+            }
+            for (long capturas = ATAQUES_PEON[turno][desde] & rivales; capturas != 0; capturas &= capturas - 1) {
+                int hasta = Long.numberOfTrailingZeros(capturas);
+                if (esLegal(desde, hasta, PEON, hasta)) {
+                    return true;
+                }
+            }
+            if (casillaAlPaso >= 0 && (ATAQUES_PEON[turno][desde] & (1L << casillaAlPaso)) != 0
+                    && esLegal(desde, casillaAlPaso, PEON, casillaAlPaso - avance)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return Las piezas del color indicado que atacan la casilla con la ocupación dada
+     */
+    private long atacantes(int casilla, int color, long ocupacion) {
+        int base = color * 6;
+        long alfilesYDamas = piezas[base + ALFIL] | piezas[base + DAMA];
+        long torresYDamas = piezas[base + TORRE] | piezas[base + DAMA];
+        return (ATAQUES_CABALLO[casilla] & piezas[base + CABALLO])
+                | (ATAQUES_REY[casilla] & piezas[base + REY])
+                | (ATAQUES_PEON[color ^ 1][casilla] & piezas[base + PEON])
+                | (alfilesYDamas != 0 ? ataquesAlfil(casilla, ocupacion) & alfilesYDamas : 0)
+                | (torresYDamas != 0 ? ataquesTorre(casilla, ocupacion) & torresYDamas : 0);
+    }
+
+    private static long ataques(int pieza, int casilla, long ocupacion) {
+        switch (pieza) {
+            case REY:
+                return ATAQUES_REY[casilla];
+            case DAMA:
+                return ataquesAlfil(casilla, ocupacion) | ataquesTorre(casilla, ocupacion);
+            case TORRE:
+                return ataquesTorre(casilla, ocupacion);
+            case ALFIL:
+                return ataquesAlfil(casilla, ocupacion);
+            default:
+                return ATAQUES_CABALLO[casilla];
+        }
+    }
+
+    private static long ataquesTorre(int casilla, long ocupacion) {
+        return rayoCreciente(NORTE, casilla, ocupacion) | rayoCreciente(ESTE, casilla, ocupacion)
+                | rayoDecreciente(SUR, casilla, ocupacion) | rayoDecreciente(OESTE, casilla, ocupacion);
+    }
+
+    private static long ataquesAlfil(int casilla, long ocupacion) {
+        return rayoCreciente(NORESTE, casilla, ocupacion) | rayoCreciente(NOROESTE, casilla, ocupacion)
+                | rayoDecreciente(SURESTE, casilla, ocupacion) | rayoDecreciente(SUROESTE, casilla, ocupacion);
+    }
+
+    /**
+     * Rayo hacia índices mayores, cortado detrás de la primera pieza (la más cercana es el bit más bajo)
+     */
+    private static long rayoCreciente(int direccion, int casilla, long ocupacion) {
+        long rayo = RAYOS[direccion][casilla];
+        long bloqueos = rayo & ocupacion;
+        if (bloqueos != 0) {
+            rayo ^= RAYOS[direccion][Long.numberOfTrailingZeros(bloqueos)];
+        }
+        return rayo;
+    }
+
+    /**
+     * Rayo hacia índices menores, cortado detrás de la primera pieza (la más cercana es el bit más alto)
+     */
+    private static long rayoDecreciente(int direccion, int casilla, long ocupacion) {
+        long rayo = RAYOS[direccion][casilla];
+        long bloqueos = rayo & ocupacion;
+        if (bloqueos != 0) {
+            rayo ^= RAYOS[direccion][63 - Long.numberOfLeadingZeros(bloqueos)];
+        }
+        return rayo;
+    }
+
+    /**
+     * Hace la jugada y pasa el turno al rival
+     * @param pieza Índice de la pieza que mueve
+     * @param piezaFinal Índice de la pieza que queda en el destino (distinta al promocionar)
+     */
+    private void ejecutar(int desde, int hasta, int pieza, int casillaCaptura, int piezaFinal) {
+        int capturada = casillas[casillaCaptura];
+        if (capturada >= 0) {
+            quitar(casillaCaptura, capturada);
+        }
+        quitar(desde, pieza);
+        poner(hasta, piezaFinal);
+
+        derechosEnroque &= MASCARA_ENROQUE[desde] & MASCARA_ENROQUE[hasta];
+        casillaAlPaso = pieza % 6 == PEON && Math.abs(hasta - desde) == 16 ? (desde + hasta) >> 1 : -1;
+        turno ^= 1;
+    }
+
+    private void trasladar(int desde, int hasta, int pieza) {
+        quitar(desde, pieza);
+        poner(hasta, pieza);
+    }
+
+    private void poner(int casilla, int pieza) {
+        long bit = 1L << casilla;
+        piezas[pieza] |= bit;
+        ocupacionColor[pieza / 6] |= bit;
+        casillas[casilla] = (byte) pieza;
+    }
+
+    private void quitar(int casilla, int pieza) {
+        long bit = ~(1L << casilla);
+        piezas[pieza] &= bit;
+        ocupacionColor[pieza / 6] &= bit;
+        casillas[casilla] = -1;
+    }
+
+    /**
+     * Convierte la casilla de {@link JugadaSAN} (columna * 8 + fila) al índice del tablero (fila * 8 + columna)
+     */
+    private static int casillaDestino(int codigo) {
+        int casilla = JugadaSAN.casillaDestino(codigo);
+        return (casilla & 7) * 8 + (casilla >> 3);
+    }
+
+    private static long saltos(int fila, int columna, int[][] pasos) {
+        long destinos = 0;
+        for (int[] paso : pasos) {
+            int f = fila + paso[0];
+            int c = columna + paso[1];
+            if (f >= 0 && f < 8 && c >= 0 && c < 8) {
+                destinos |= 1L << (f * 8 + c);
+            }
+        }
+        return destinos;
+    }
+}
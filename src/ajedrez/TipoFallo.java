@@ -0,0 +1,14 @@
+package src.ajedrez;
+
+/**
+ * Motivo por el que una partida no es válida, para contar los fallos por tipo
+ */
+public enum TipoFallo {
+    NUMERO_TURNO,
+    SECUENCIA_TURNOS,
+    JUGADA_BLANCA,
+    JUGADA_NEGRA,
+    SIN_TURNOS,
+    JUGADA_ILEGAL,
+    ERROR_INESPERADO
+}
@@ -0,0 +1,11 @@
+package src.ajedrez;
+
+/**
+ * Clase de nodo dentro del árbol de una partida
+ */
+public enum TipoNodo {
+    RAIZ,
+    TURNO,
+    JUGADA_BLANCA,
+    JUGADA_NEGRA
+}
@@ -0,0 +1,207 @@
+package src.ajedrez;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Almacén compacto de los turnos de una partida.
+ *
+ * Cada jugada se guarda como el código empaquetado de {@link JugadaSAN} en arreglos de
+ * enteros paralelos (uno para blancas y otro para negras), en lugar de un {@link Turno} con dos
+ * {@code String} por turno. Los números de turno no se guardan porque el analizador garantiza
+ * que son consecutivos desde 1. El texto SAN se obtiene de {@link TablaJugadas} solo cuando se pide.
+ * Opcionalmente se guarda la posición de cada turno en el texto analizado.
+ */
+public class TurnoStore {
+    private static final int CAPACIDAD_INICIAL = 64;
+
+    private int[] blancas;
+    private int[] negras;
+    private int[] offsets;
+    private int tamano;
+    private boolean soloLectura;
+
+    public TurnoStore() {
+        this.blancas = new int[CAPACIDAD_INICIAL];
+        this.negras = new int[CAPACIDAD_INICIAL];
+        this.offsets = new int[CAPACIDAD_INICIAL];
+        this.tamano = 0;
+    }
+
+    /**
+     * Añade el siguiente turno
+     * @param codigoBlanca Código de la jugada blanca
+     * @param codigoNegra Código de la jugada negra o {@link JugadaSAN#INVALIDA} si no hay
+     */
+    public void agregar(int codigoBlanca, int codigoNegra) {
+        agregar(codigoBlanca, codigoNegra, -1);
+    }
+
+    /**
+     * Añade el siguiente turno junto con su posición en el texto
+     * @param offsetTurno Posición del número de turno en el texto, o -1 si no se conoce
+     */
+    public void agregar(int codigoBlanca, int codigoNegra, long offsetTurno) {
+        comprobarModificable();
+        asegurarCapacidad(tamano + 1);
+        blancas[tamano] = codigoBlanca;
+        negras[tamano] = codigoNegra;
+        offsets[tamano] = offsetTurno >= 0 && offsetTurno <= Integer.MAX_VALUE ? (int) offsetTurno : -1;
+        tamano++;
+    }
+
+    /**
+     * Reemplaza el contenido por los primeros {@code cantidad} turnos de otro almacén
+     */
+    public void copiarDe(TurnoStore otro, int cantidad) {
+        if (cantidad < 0 || cantidad > otro.tamano) {
+            throw new IndexOutOfBoundsException("No se pueden copiar " + cantidad + " de " + otro.tamano + " turnos");
+        }
+        comprobarModificable();
+        asegurarCapacidad(cantidad);
+        System.arraycopy(otro.blancas, 0, blancas, 0, cantidad);
+        System.arraycopy(otro.negras, 0, negras, 0, cantidad);
+        System.arraycopy(otro.offsets, 0, offsets, 0, cantidad);
+        tamano = cantidad;
+    }
+
+    public void limpiar() {
+        comprobarModificable();
+        tamano = 0;
+    }
+
+    /**
+     * Impide modificar el almacén desde ahora, antes de entregarlo a quien puede compartirlo
+     * @return Este mismo almacén
+     */
+    TurnoStore soloLectura() {
+        soloLectura = true;
+        return this;
+    }
+
+    /**
+     * @return true si agregar, copiar o limpiar lanzan {@link UnsupportedOperationException}
+     */
+    public boolean isSoloLectura() {
+        return soloLectura;
+    }
+
+    private void comprobarModificable() {
+        if (soloLectura) {
+            throw new UnsupportedOperationException("Los turnos son de solo lectura");
+        }
+    }
+
+    public int size() {
+        return tamano;
+    }
+
+    public boolean isEmpty() {
+        return tamano == 0;
+    }
+
+    /**
+     * @param indice Posición del turno, empezando en 0
+     */
+    public int getNumeroTurno(int indice) {
+        comprobarIndice(indice);
+        return indice + 1;
+    }
+
+    public int getCodigoBlanca(int indice) {
+        comprobarIndice(indice);
+        return blancas[indice];
+    }
+
+    /**
+     * @return El código de la jugada negra o {@link JugadaSAN#INVALIDA} si el turno no la tiene
+     */
+    public int getCodigoNegra(int indice) {
+        comprobarIndice(indice);
+        return negras[indice];
+    }
+
+    /**
+     * @return La posición del número de turno en el texto, o -1 si no se conoce
+     */
+    public int getOffsetTurno(int indice) {
+        comprobarIndice(indice);
+        return offsets[indice];
+    }
+
+    /**
+     * Busca el último turno que comienza antes de una posición del texto
+     * @return El índice del turno, o -1 si ninguno comienza antes de {@code offset}
+     */
+    public int buscarTurnoAntesDe(long offset) {
+        int bajo = 0;
+        int alto = tamano - 1;
+        int encontrado = -1;
+        while (bajo <= alto) {
+            int medio = (bajo + alto) >>> 1;
+            if (offsets[medio] >= 0 && offsets[medio] < offset) {
+                encontrado = medio;
+                bajo = medio + 1;
+            } else {
+                alto = medio - 1;
+            }
+        }
+        return encontrado;
+    }
+
+    public boolean tieneJugadaNegra(int indice) {
+        return getCodigoNegra(indice) != JugadaSAN.INVALIDA;
+    }
+
+    public String getJugadaBlanca(int indice) {
+        return TablaJugadas.texto(getCodigoBlanca(indice));
+    }
+
+    /**
+     * @return El texto de la jugada negra o null si el turno no la tiene
+     */
+    public String getJugadaNegra(int indice) {
+        int codigo = getCodigoNegra(indice);
+        return codigo != JugadaSAN.INVALIDA ? TablaJugadas.texto(codigo) : null;
+    }
+
+    /**
+     * Construye el {@link Turno} de la posición indicada
+     */
+    public Turno getTurno(int indice) {
+        return new Turno(getNumeroTurno(indice), getJugadaBlanca(indice), getJugadaNegra(indice));
+    }
+
+    /**
+     * @return Una vista de solo lectura que crea cada {@link Turno} al consultarlo
+     */
+    public List<Turno> comoLista() {
+        return new AbstractList<Turno>() {
+            @Override
+            public Turno get(int indice) {
+                return getTurno(indice);
+            }
+
+            @Override
+            public int size() {
+                return tamano;
+            }
+        };
+    }
+
+    private void asegurarCapacidad(int capacidadMinima) {
+        if (capacidadMinima > blancas.length) {
+            int capacidad = Math.max(blancas.length * 2, capacidadMinima);
+            blancas = Arrays.copyOf(blancas, capacidad);
+            negras = Arrays.copyOf(negras, capacidad);
+            offsets = Arrays.copyOf(offsets, capacidad);
+        }
+    }
+
+    private void comprobarIndice(int indice) {
+        if (indice < 0 || indice >= tamano) {
+            throw new IndexOutOfBoundsException("Turno " + indice + " fuera de rango (" + tamano + " turnos)");
+        }
+    }
+}
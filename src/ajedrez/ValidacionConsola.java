@@ -0,0 +1,206 @@
+package src.ajedrez;
+
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Modo de línea de comandos para validar archivos de partidas sin interfaz gráfica.
+ *
+ * Cada archivo se lee por flujo con {@link ChessGameParser#parsePartidas(Reader, ChessGameParser.OyentePartida)},
+ * así que puede tener cualquier tamaño. Por cada partida se escribe una línea con su resultado
+ * y al final un resumen con el rendimiento. Esta clase no usa AWT ni Swing, de modo que
+ * funciona en servidores sin pantalla y no paga su carga de clases.
+ */
+public class ValidacionConsola {
+    public static final String OPCION_VALIDAR = "--validate";
+
+    /** Todas las partidas son válidas */
+    public static final int SALIDA_VALIDAS = 0;
+    /** Se encontró al menos una partida inválida */
+    public static final int SALIDA_INVALIDAS = 1;
+    /** Argumentos incorrectos o archivo que no se pudo leer */
+    public static final int SALIDA_ERROR = 2;
+
+    private static final String USO =
+            "Uso: java src.ajedrez.Main " + OPCION_VALIDAR + " [-q] [--metrics] [--legal] archivo... (\"-\" lee la entrada estándar)";
+
+    private final PrintStream salida;
+    private final PrintStream errores;
+    private boolean silencioso;
+    private boolean legalidad;
+    private MetricasAcumuladas metricas;
+
+    private long partidas;
+    private long partidasInvalidas;
+    private long turnos;
+    private long bytes;
+    private boolean errorLectura;
+
+    public ValidacionConsola(PrintStream salida, PrintStream errores) {
+        this.salida = salida;
+        this.errores = errores;
+    }
+
+    /**
+     * Ejecuta la validación con los argumentos que siguen a {@link #OPCION_VALIDAR}
+     * @param args Opciones y archivos a validar
+     * @return El código de salida del proceso
+     */
+    public int ejecutar(String[] args) {
+        List<String> archivos = new ArrayList<>();
+        boolean finOpciones = false;
+        for (String arg : args) {
+            if (!finOpciones && arg.equals("--")) {
+                finOpciones = true;
+            } else if (!finOpciones && (arg.equals("-q") || arg.equals("--quiet"))) {
+                silencioso = true;
+            } else if (!finOpciones && arg.equals("--legal")) {
+                legalidad = true;
+            } else if (!finOpciones && arg.equals("--metrics")) {
+                metricas = new MetricasAcumuladas();
+            } else if (!finOpciones && arg.startsWith("-") && !arg.equals("-")) {
+                errores.println("Opción desconocida: " + arg);
+                errores.println(USO);
+                return SALIDA_ERROR;
+            } else {
+                archivos.add(arg);
+            }
+        }
+        if (archivos.isEmpty()) {
+            errores.println(USO);
+            return SALIDA_ERROR;
+        }
+
+        Metricas anteriores = Instrumentacion.getMetricas();
+        if (metricas != null) {
+            Instrumentacion.setMetricas(anteriores.y(metricas));
+        }
+        long inicio = System.nanoTime();
+        try {
+            for (String archivo : archivos) {
+                validarArchivo(archivo);
+            }
+        } finally {
+            Instrumentacion.setMetricas(anteriores);
+        }
+        salida.flush();
+        imprimirResumen(System.nanoTime() - inicio);
+        if (metricas != null) {
+            errores.println(metricas);
+        }
+
+        if (errorLectura) {
+            return SALIDA_ERROR;
+        }
+        return partidasInvalidas > 0 ? SALIDA_INVALIDAS : SALIDA_VALIDAS;
+    }
+
+    private void validarArchivo(String nombre) {
+        // La entrada estándar no es de este método: se lee sin cerrarla
+        try (InputStream flujo = nombre.equals("-") ? new EntradaSinCierre(System.in) : Files.newInputStream(Paths.get(nombre));
+             ContadorBytes contador = new ContadorBytes(flujo)) {
+            // Un carácter por byte: las posiciones de error coinciden con posiciones en el archivo
+            Reader lector = new BufferedReader(new InputStreamReader(contador, StandardCharsets.ISO_8859_1), 64 * 1024);
+            ChessGameParser parser = new ChessGameParser();
+            parser.setValidarLegalidad(legalidad);
+            parser.parsePartidas(lector, new ChessGameParser.OyentePartida() {
+                @Override
+                public boolean recibeTurnos() {
+                    return false;
+                }
+
+                @Override
+                public void turno(int numeroPartida, Turno turno) {
+                }
+
+                @Override
+                public void finPartida(int numeroPartida, boolean valida, String mensajeError) {
+                    partidas++;
+                    turnos += parser.getTurnosLeidos();
+                    if (valida) {
+                        if (!silencioso) {
+                            salida.println(nombre + ":" + numeroPartida + ": VALIDA");
+                        }
+                    } else {
+                        partidasInvalidas++;
+                        salida.println(nombre + ":" + numeroPartida + ": INVALIDA en la posición "
+                                + parser.getOffsetError() + ": " + mensajeError);
+                    }
+                }
+            });
+            bytes += contador.getLeidos();
+        } catch (NoSuchFileException e) {
+            errores.println(nombre + ": no existe el archivo");
+            errorLectura = true;
+        } catch (IOException e) {
+            errores.println(nombre + ": error de lectura: " + e.getMessage());
+            errorLectura = true;
+        }
+    }
+
+    private void imprimirResumen(long nanos) {
+        double segundos = Math.max(nanos, 1) / 1e9;
+        errores.println(String.format(Locale.ROOT,
+                "%d partidas (%d válidas, %d inválidas), %d turnos, %d bytes en %.3f s: %.1f partidas/s, %.2f MB/s",
+                partidas, partidas - partidasInvalidas, partidasInvalidas, turnos, bytes, segundos,
+                partidas / segundos, bytes / segundos / (1024 * 1024)));
+    }
+
+    /**
+     * Flujo que no cierra el que envuelve, para poder leer la entrada estándar más de una vez
+     */
+    private static class EntradaSinCierre extends FilterInputStream {
+        EntradaSinCierre(InputStream entrada) {
+            super(entrada);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * Flujo que cuenta los bytes leídos, para informar del rendimiento también con la entrada estándar
+     */
+    private static class ContadorBytes extends FilterInputStream {
+        private long leidos;
+
+        ContadorBytes(InputStream entrada) {
+            super(entrada);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                leidos++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] destino, int offset, int longitud) throws IOException {
+            int n = super.read(destino, offset, longitud);
+            if (n > 0) {
+                leidos += n;
+            }
+            return n;
+        }
+
+        long getLeidos() {
+            return leidos;
+        }
+    }
+}
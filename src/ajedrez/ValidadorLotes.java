@@ -0,0 +1,201 @@
+package src.ajedrez;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Valida en paralelo archivos con muchas partidas separadas por líneas en blanco.
+ *
+ * El archivo se divide en bloques que terminan siempre en una línea en blanco, de modo que
+ * ninguna partida queda partida entre dos bloques. Cada bloque se proyecta en memoria y se
+ * valida con su propio {@link ChessGameParser} dentro de un {@link ForkJoinPool}; los
+ * resultados se combinan respetando el orden original de las partidas.
+ *
+ * El texto se interpreta byte a byte (ISO-8859-1), suficiente para la notación SAN, por lo que
+ * las posiciones de error coinciden con posiciones en bytes dentro del archivo.
+ */
+public class ValidadorLotes {
+    private static final long TAMANO_MINIMO_BLOQUE = 1L << 20;
+    private static final int TAMANO_LECTURA = 64 * 1024;
+
+    private final ForkJoinPool pool;
+
+    public ValidadorLotes() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public ValidadorLotes(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Valida todas las partidas de un archivo
+     * @param archivo Archivo de partidas en formato SAN separadas por líneas en blanco
+     * @return Los contadores de partidas válidas e inválidas y los errores en orden
+     */
+    public ResultadoLote validar(Path archivo) throws IOException {
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            List<long[]> bloques = dividirEnBloques(canal);
+            if (bloques.isEmpty()) {
+                return new ResultadoLote();
+            }
+            try {
+                return pool.invoke(new TareaValidacion(canal, bloques, 0, bloques.size()));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    /**
+     * Calcula los límites [inicio, fin) de cada bloque, cortando siempre tras una línea en blanco
+     */
+    private List<long[]> dividirEnBloques(FileChannel canal) throws IOException {
+        long tamano = canal.size();
+        long tamanoObjetivo = Math.max(TAMANO_MINIMO_BLOQUE,
+                tamano / (pool.getParallelism() * 4L));
+
+        List<long[]> bloques = new ArrayList<>();
+        long inicio = 0;
+        while (inicio < tamano) {
+            long fin = inicio + tamanoObjetivo >= tamano
+                    ? tamano
+                    : buscarLineaEnBlanco(canal, inicio + tamanoObjetivo, tamano);
+            if (fin - inicio > Integer.MAX_VALUE) {
+                throw new IOException("La partida que comienza antes de la posición " + fin +
+                        " es demasiado grande para validarse por bloques");
+            }
+            bloques.add(new long[]{inicio, fin});
+            inicio = fin;
+        }
+        return bloques;
+    }
+
+    /**
+     * Busca, a partir de {@code desde}, el final de la siguiente línea en blanco
+     * @return La posición justo después del segundo salto de línea, o el tamaño del archivo
+     */
+    private static long buscarLineaEnBlanco(FileChannel canal, long desde, long tamano) throws IOException {
+        ByteBuffer lectura = ByteBuffer.allocate(TAMANO_LECTURA);
+        int saltosLinea = 0;
+        long posicion = desde;
+        while (posicion < tamano) {
+            lectura.clear();
+            int leidos = canal.read(lectura, posicion);
+            if (leidos <= 0) {
+                break;
+            }
+            for (int i = 0; i < leidos; i++) {
+                byte b = lectura.get(i);
+                if (b == '\n') {
+                    if (++saltosLinea == 2) {
+                        return posicion + i + 1;
+                    }
+                } else if (b != ' ' && b != '\t' && b != '\r' && b != '\f' && b != 0x0B) {
+                    saltosLinea = 0;
+                }
+            }
+            posicion += leidos;
+        }
+        return tamano;
+    }
+
+    /**
+     * Valida un rango de bloques dividiéndolo por la mitad hasta llegar a un único bloque
+     */
+    private static class TareaValidacion extends RecursiveTask<ResultadoLote> {
+        private static final long serialVersionUID = 1L;
+
+        private final FileChannel canal;
+        private final List<long[]> bloques;
+        private final int desde;
+        private final int hasta;
+
+        TareaValidacion(FileChannel canal, List<long[]> bloques, int desde, int hasta) {
+            this.canal = canal;
+            this.bloques = bloques;
+            this.desde = desde;
+            this.hasta = hasta;
+        }
+
+        @Override
+        protected ResultadoLote compute() {
+            if (hasta - desde == 1) {
+                try {
+                    return validarBloque(bloques.get(desde));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            int medio = (desde + hasta) >>> 1;
+            TareaValidacion izquierda = new TareaValidacion(canal, bloques, desde, medio);
+            TareaValidacion derecha = new TareaValidacion(canal, bloques, medio, hasta);
+            izquierda.fork();
+            ResultadoLote resultadoDerecha = derecha.compute();
+            ResultadoLote resultado = izquierda.join();
+            resultado.combinar(resultadoDerecha);
+            return resultado;
+        }
+
+        private ResultadoLote validarBloque(long[] bloque) throws IOException {
+            long inicio = bloque[0];
+            MappedByteBuffer datos = canal.map(FileChannel.MapMode.READ_ONLY, inicio, bloque[1] - inicio);
+
+            ResultadoLote resultado = new ResultadoLote();
+            ChessGameParser parser = new ChessGameParser();
+            parser.parsePartidas(new LectorBytes(datos), new ChessGameParser.OyentePartida() {
+                @Override
+                public void turno(int numeroPartida, Turno turno) {
+                }
+
+                @Override
+                public void finPartida(int numeroPartida, boolean valida, String mensajeError) {
+                    long offsetError = valida ? -1 : inicio + parser.getOffsetError();
+                    resultado.registrar(valida, offsetError, mensajeError);
+                }
+            });
+            return resultado;
+        }
+    }
+
+    /**
+     * Lector de caracteres sobre un buffer de bytes, un carácter por byte
+     */
+    private static class LectorBytes extends Reader {
+        private final ByteBuffer datos;
+
+        LectorBytes(ByteBuffer datos) {
+            this.datos = datos;
+        }
+
+        @Override
+        public int read(char[] destino, int offset, int longitud) {
+            int restantes = datos.remaining();
+            if (restantes == 0) {
+                return -1;
+            }
+            int n = Math.min(longitud, restantes);
+            int posicion = datos.position();
+            for (int i = 0; i < n; i++) {
+                destino[offset + i] = (char) (datos.get(posicion + i) & 0xFF);
+            }
+            datos.position(posicion + n);
+            return n;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
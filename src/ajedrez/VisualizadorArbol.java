@@ -1,9 +1,14 @@
 package src.ajedrez;
 
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import java.awt.*;
 import java.awt.geom.AffineTransform;
 import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * Visualizador de árbol binario para juegos de ajedrez - VERSIÓN FINAL CORREGIDA
@@ -13,12 +18,25 @@ public class VisualizadorArbol extends JFrame {
     private JButton btnAnalizar;
     private JButton btnVisualizarArbol;
     private JButton btnEjemplo;
+    private JCheckBox chkValidarEnVivo;
+    private JCheckBox chkLegalidad;
     private JPanel panelArbol;
     private JTextArea txtErrores;
+    private ArbolPanel arbolPanelActual;
 
+    // Último análisis terminado; sirve de base para el siguiente análisis incremental
     private ChessGameParser parser;
     private ArbolBinario arbol;
 
+    // Validación en segundo plano
+    private static final int RETARDO_VALIDACION_MS = 300;
+    private Timer temporizadorValidacion;
+    private SwingWorker<ChessGameParser, Void> analisisEnCurso;
+    private int generacionAnalisis;
+    // Primera posición modificada desde el texto del último análisis terminado / lanzado
+    private int cambioDesdeAnalisis = Integer.MAX_VALUE;
+    private int cambioDesdeLanzamiento = Integer.MAX_VALUE;
+
     public VisualizadorArbol() {
         parser = new ChessGameParser();
         setTitle("Analizador Sintáctico de Partidas de Ajedrez");
@@ -54,12 +72,16 @@ public class VisualizadorArbol extends JFrame {
         btnAnalizar = new JButton("Analizar Partida");
         btnVisualizarArbol = new JButton("Visualizar Árbol");
         btnEjemplo = new JButton("Cargar Ejemplo");
+        chkValidarEnVivo = new JCheckBox("Validar mientras escribe", true);
+        chkLegalidad = new JCheckBox("Comprobar legalidad", false);
 
         btnVisualizarArbol.setEnabled(false);
 
         buttonPanel.add(btnAnalizar);
         buttonPanel.add(btnVisualizarArbol);
         buttonPanel.add(btnEjemplo);
+        buttonPanel.add(chkValidarEnVivo);
+        buttonPanel.add(chkLegalidad);
 
         inputPanel.add(buttonPanel, BorderLayout.SOUTH);
 
@@ -95,31 +117,127 @@ public class VisualizadorArbol extends JFrame {
         btnAnalizar.addActionListener(e -> analizarPartida());
         btnVisualizarArbol.addActionListener(e -> visualizarArbol());
         btnEjemplo.addActionListener(e -> cargarEjemplo());
+        chkLegalidad.addActionListener(e -> {
+            if (!txtPartida.getText().trim().isEmpty()) {
+                analizarPartida();
+            }
+        });
+
+        // Validación en vivo: se espera a que el usuario deje de escribir antes de analizar
+        temporizadorValidacion = new Timer(RETARDO_VALIDACION_MS, e -> lanzarAnalisis());
+        temporizadorValidacion.setRepeats(false);
+        txtPartida.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                registrarCambio(e.getOffset());
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                registrarCambio(e.getOffset());
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                // Solo cambios de atributos: el texto no varía
+            }
+        });
 
         // Añadir panel principal al frame
         getContentPane().add(mainPanel);
     }
 
     private void analizarPartida() {
-        String partidaSAN = txtPartida.getText().trim();
+        // Análisis completo, también fuera del hilo de eventos
+        cambioDesdeAnalisis = 0;
+        cambioDesdeLanzamiento = 0;
+        temporizadorValidacion.stop();
+        lanzarAnalisis();
+    }
 
-        if (partidaSAN.isEmpty()) {
+    /**
+     * Anota la primera posición modificada del texto y reinicia la espera de la validación en vivo
+     */
+    private void registrarCambio(int offset) {
+        cambioDesdeAnalisis = Math.min(cambioDesdeAnalisis, offset);
+        cambioDesdeLanzamiento = Math.min(cambioDesdeLanzamiento, offset);
+        if (chkValidarEnVivo.isSelected()) {
+            temporizadorValidacion.restart();
+        }
+    }
+
+    /**
+     * Lanza el análisis del texto actual en segundo plano, cancelando el que estuviera en curso.
+     * Solo se vuelve a analizar desde el turno afectado por los cambios pendientes.
+     */
+    private void lanzarAnalisis() {
+        if (analisisEnCurso != null) {
+            analisisEnCurso.cancel(true);
+        }
+        int generacion = ++generacionAnalisis;
+
+        String partidaSAN = txtPartida.getText();
+        if (partidaSAN.trim().isEmpty()) {
+            analisisEnCurso = null;
             txtErrores.setText("Debe ingresar una partida para analizar.");
             txtErrores.setForeground(Color.RED);
             btnVisualizarArbol.setEnabled(false);
             return;
         }
 
-        boolean esValida = parser.parse(partidaSAN);
+        ChessGameParser anterior = parser;
+        int offsetCambio = cambioDesdeAnalisis;
+        boolean legalidad = chkLegalidad.isSelected();
+        cambioDesdeLanzamiento = Integer.MAX_VALUE;
+
+        analisisEnCurso = new SwingWorker<ChessGameParser, Void>() {
+            @Override
+            protected ChessGameParser doInBackground() {
+                ChessGameParser nuevo = new ChessGameParser();
+                nuevo.setValidarLegalidad(legalidad);
+                nuevo.parseIncremental(partidaSAN, anterior, offsetCambio);
+                return nuevo;
+            }
 
-        if (esValida) {
-            txtErrores.setText("La partida es sintácticamente válida. Se encontraron " +
-                    parser.getTurnos().size() + " turnos.");
+            @Override
+            protected void done() {
+                if (isCancelled() || generacion != generacionAnalisis) {
+                    return;
+                }
+                try {
+                    mostrarResultado(get());
+                } catch (Exception e) {
+                    txtErrores.setText("Error inesperado al analizar la partida: " + e.getMessage());
+                    txtErrores.setForeground(Color.RED);
+                }
+            }
+        };
+        analisisEnCurso.execute();
+    }
+
+    /**
+     * Muestra el resultado de un análisis terminado y lo toma como base del siguiente
+     */
+    private void mostrarResultado(ChessGameParser resultado) {
+        parser = resultado;
+        cambioDesdeAnalisis = cambioDesdeLanzamiento;
+        analisisEnCurso = null;
+
+        if (resultado.getErrorMessage().isEmpty()) {
+            String validez = resultado.isValidarLegalidad() ? "válida y legal" : "sintácticamente válida";
+            txtErrores.setText("La partida es " + validez + ". Se encontraron " +
+                    resultado.getTurnoStore().size() + " turnos.");
             txtErrores.setForeground(new Color(0, 128, 0)); // Verde
             btnVisualizarArbol.setEnabled(true);
-            arbol = parser.obtenerArbol();
+            arbol = resultado.obtenerArbol();
+
+            // Si el árbol está a la vista, se actualiza con la nueva partida
+            if (arbolPanelActual != null) {
+                arbolPanelActual.setArbol(arbol);
+                arbolPanelActual.repaint();
+            }
         } else {
-            txtErrores.setText("Error en la partida: " + parser.getErrorMessage());
+            txtErrores.setText("Error en la partida: " + resultado.getErrorMessage());
             txtErrores.setForeground(Color.RED);
             btnVisualizarArbol.setEnabled(false);
             arbol = null;
@@ -140,6 +258,7 @@ public class VisualizadorArbol extends JFrame {
         // Crear un nuevo panel para visualizar el árbol
         ArbolPanel arbolPanel = new ArbolPanel();
         arbolPanel.setArbol(arbol);
+        arbolPanelActual = arbolPanel;
 
         // Añadir controles de zoom
         JPanel controlPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
@@ -218,6 +337,11 @@ public class VisualizadorArbol extends JFrame {
     private void cargarEjemplo() {
         String ejemploPartida = "1. d4 d5 2. Bf4 Nf6 3. e3 e6 4. c3 c5 5. Nd2 Nc6 6. Bd3 Bd6";
         txtPartida.setText(ejemploPartida);
+        if (chkValidarEnVivo.isSelected()) {
+            // La validación en vivo lo analizaría de todos modos: se hace ya, sin esperar
+            analizarPartida();
+            return;
+        }
         txtErrores.setText("Ejemplo cargado. Presione 'Analizar Partida' para procesar.");
         txtErrores.setForeground(Color.BLUE);
         btnVisualizarArbol.setEnabled(false);
@@ -225,22 +349,46 @@ public class VisualizadorArbol extends JFrame {
 
     /**
      * Panel para dibujar el árbol binario - VERSIÓN FINAL
+     *
+     * El dibujo se guarda en mosaicos de {@code TAMANO_MOSAICO} píxeles que se dibujan la primera
+     * vez que quedan a la vista y después solo se copian, así que desplazarse por el árbol no
+     * vuelve a dibujar óvalos ni textos. Los mosaicos se descartan al cambiar el árbol, el zoom o
+     * el ancho del panel. Se conservan los usados más recientemente, hasta el doble de los que
+     * cubren la mayor área repintada; los mosaicos vacíos no guardan imagen.
      */
-    private class ArbolPanel extends JPanel {
-        private ArbolBinario arbol;
-        private final int ANCHO_NODO = 35;
-        private final int ALTO_NODO = 35;
-        private final int MARGEN_VERTICAL = 60;
-        private final int MARGEN_HORIZONTAL = 60;
-        private final Color COLOR_NODO_RAIZ = Color.YELLOW;
-        private final Color COLOR_NODO_TURNO = Color.WHITE;
-        private final Color COLOR_NODO_BLANCO = new Color(255, 240, 200); // Beige
-        private final Color COLOR_NODO_NEGRO = new Color(120, 120, 120); // Gris
-        private final Color COLOR_BORDE = Color.BLACK;
+    static class ArbolPanel extends JPanel {
+        private static final int TAMANO_MOSAICO = 256;
+        private static final int MINIMO_MOSAICOS = 16;
+        // Franja dibujada alrededor de cada mosaico y no copiada: el antialiasing de las líneas
+        // gruesas cambia cerca del borde del recorte, y así las uniones entre mosaicos no se notan
+        private static final int BORDE_MOSAICO = 32;
+        // Marca de los mosaicos sin nada dibujado, que no ocupan memoria ni se copian
+        private static final BufferedImage MOSAICO_VACIO = new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB);
+
+        private ArbolPartida arbol;
+        private DisposicionArbol disposicion;
+        private DibujoArbol dibujo;
         private double zoom = 1.0;
 
-        public void setArbol(ArbolBinario arbol) {
+        // Mosaicos por columna (32 bits altos) y fila, en orden de uso para descartar los más antiguos
+        private final Map<Long, BufferedImage> mosaicos = new LinkedHashMap<Long, BufferedImage>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, BufferedImage> mayor) {
+                return size() > limiteMosaicos;
+            }
+        };
+        private int anchoMosaicos = -1;
+        private int limiteMosaicos = MINIMO_MOSAICOS;
+
+        /**
+         * @param arbol El árbol a dibujar, enlazado o compacto, o null para no dibujar nada
+         */
+        public void setArbol(ArbolPartida arbol) {
             this.arbol = arbol;
+            // La estructura del árbol se recorre una sola vez por árbol
+            this.dibujo = arbol != null ? new DibujoArbol(arbol) : null;
+            this.disposicion = dibujo != null ? dibujo.getDisposicion() : null;
+            descartarMosaicos();
             updatePreferredSize();
         }
 
@@ -249,23 +397,30 @@ public class VisualizadorArbol extends JFrame {
         }
 
         public void setZoom(double zoom) {
+            if (zoom != this.zoom) {
+                descartarMosaicos();
+            }
             this.zoom = zoom;
             updatePreferredSize();
         }
 
+        /**
+         * Obliga a dibujar de nuevo todo el árbol en el siguiente repintado
+         */
+        void descartarMosaicos() {
+            mosaicos.clear();
+            limiteMosaicos = MINIMO_MOSAICOS;
+        }
+
         /**
          * Ajusta el tamaño preferido del panel según el tamaño del árbol
          */
         private void updatePreferredSize() {
             if (arbol == null) return;
 
-            // Obtener dimensiones del árbol
-            int altura = calcularAltura(arbol.getRaiz());
-            int numNodos = contarNodos(arbol.getRaiz());
-
-            // Calcular tamaño requerido con margen abundante
-            int anchoEstimado = Math.max(numNodos * 100, 3000); // Un ancho generoso
-            int altoEstimado = altura * (ALTO_NODO + MARGEN_VERTICAL) * 2;
+            // Calcular tamaño requerido con margen abundante, a partir de la disposición
+            int anchoEstimado = dibujo.getAnchoLienzo();
+            int altoEstimado = dibujo.getAltoLienzo();
 
             // Aplicar zoom
             int prefWidth = (int) (anchoEstimado * zoom);
@@ -277,26 +432,6 @@ public class VisualizadorArbol extends JFrame {
             revalidate();
         }
 
-        /**
-         * Calcula la altura del árbol
-         */
-        private int calcularAltura(Nodo nodo) {
-            if (nodo == null) return 0;
-            return 1 + Math.max(
-                    calcularAltura(nodo.getHijoIzquierdo()),
-                    calcularAltura(nodo.getHijoDerecho())
-            );
-        }
-
-        /**
-         * Cuenta el número total de nodos en el árbol
-         */
-        private int contarNodos(Nodo nodo) {
-            if (nodo == null) return 0;
-            return 1 + contarNodos(nodo.getHijoIzquierdo()) +
-                    contarNodos(nodo.getHijoDerecho());
-        }
-
         @Override
         protected void paintComponent(Graphics g) {
             super.paintComponent(g);
@@ -308,124 +443,129 @@ public class VisualizadorArbol extends JFrame {
             }
 
             Graphics2D g2d = (Graphics2D) g;
-            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-            g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
-
-            // Aplicar zoom manteniendo la transformación original
-            AffineTransform originalTransform = g2d.getTransform();
-            g2d.scale(zoom, zoom);
-
-            // Coordenadas iniciales para la raíz
-            int startX = (int) ((getWidth() / zoom) / 2);
-            int startY = 50;
-
+            Rectangle area = g2d.getClipBounds();
             try {
-                // Calculamos el offset inicial para dejar espacio suficiente
-                int offsetInicial = (int) (getWidth() / (zoom * 4));
-
-                // Dibujar árbol desde la raíz
-                dibujarArbolBinario(g2d, arbol.getRaiz(), startX, startY, offsetInicial, 0);
+                long inicio = System.nanoTime();
+                int dibujados = area != null && isOpaque() && esTraslacionEntera(g2d.getTransform())
+                        ? copiarMosaicos(g2d, area)
+                        : dibujarArbol(g2d);
+                Instrumentacion.getMetricas().dibujoTerminado(dibujados, System.nanoTime() - inicio);
             } catch (Exception e) {
                 g2d.setColor(Color.RED);
                 g2d.drawString("Error al dibujar el árbol: " + e.getMessage(), 10, 20);
                 e.printStackTrace();
             }
-
-            // Restaurar transformación original
-            g2d.setTransform(originalTransform);
         }
 
         /**
-         * Dibuja el árbol binario recursivamente
+         * Copia los mosaicos que cubren el área, dibujando antes los que falten
+         * @return El número de nodos dibujados en los mosaicos nuevos
          */
-        private void dibujarArbolBinario(Graphics2D g, Nodo nodo, int x, int y, int offset, int nivel) {
-            if (nodo == null) return;
-
-            // Determinar el color según el tipo de nodo
-            Color colorNodo;
-            if (nivel == 0) {
-                // Nodo raíz "Partida"
-                colorNodo = COLOR_NODO_RAIZ;
-            } else if (nodo.getValor().startsWith("T")) {
-                // Nodos de turnos (T1, T2, etc.)
-                colorNodo = COLOR_NODO_TURNO;
-            } else {
-                // Jugadas - blancas a la izquierda, negras a la derecha
-                Nodo padre = encontrarPadre(arbol.getRaiz(), nodo);
-                if (padre != null && padre.getHijoIzquierdo() == nodo) {
-                    colorNodo = COLOR_NODO_BLANCO;
-                } else {
-                    colorNodo = COLOR_NODO_NEGRO;
-                }
-            }
-
-            // Dibujar nodo
-            g.setColor(colorNodo);
-            g.fillOval(x - ANCHO_NODO/2, y - ALTO_NODO/2, ANCHO_NODO, ALTO_NODO);
-            g.setColor(COLOR_BORDE);
-            g.drawOval(x - ANCHO_NODO/2, y - ALTO_NODO/2, ANCHO_NODO, ALTO_NODO);
-
-            // Dibujar texto del nodo
-            String texto = nodo.getValor();
-            if (texto.length() > 3) {
-                texto = texto.substring(0, 3);
+        private int copiarMosaicos(Graphics2D g2d, Rectangle area) {
+            // La posición de la raíz depende del ancho del panel
+            if (getWidth() != anchoMosaicos) {
+                descartarMosaicos();
+                anchoMosaicos = getWidth();
             }
 
-            g.setFont(new Font("SansSerif", Font.BOLD, 12));
-            FontMetrics fm = g.getFontMetrics();
-            int anchoTexto = fm.stringWidth(texto);
-            int altoTexto = fm.getHeight();
-
-            // Color del texto según el fondo
-            if (colorNodo.equals(COLOR_NODO_NEGRO)) {
-                g.setColor(Color.WHITE);
-            } else {
-                g.setColor(Color.BLACK);
+            int dibujados = 0;
+            int columnaInicial = Math.floorDiv(area.x, TAMANO_MOSAICO);
+            int filaInicial = Math.floorDiv(area.y, TAMANO_MOSAICO);
+            int columnaFinal = Math.floorDiv(area.x + area.width - 1, TAMANO_MOSAICO);
+            int filaFinal = Math.floorDiv(area.y + area.height - 1, TAMANO_MOSAICO);
+            // Espacio para la vista y otro tanto alrededor, para ir y volver sin dibujar de nuevo
+            limiteMosaicos = Math.max(limiteMosaicos,
+                    2 * (columnaFinal - columnaInicial + 1) * (filaFinal - filaInicial + 1));
+            for (int columna = columnaInicial; columna <= columnaFinal; columna++) {
+                for (int fila = filaInicial; fila <= filaFinal; fila++) {
+                    long clave = ((long) columna << 32) | (fila & 0xFFFFFFFFL);
+                    BufferedImage mosaico = mosaicos.get(clave);
+                    if (mosaico == null) {
+                        mosaico = crearMosaico(g2d);
+                        int dibujadosMosaico = dibujarMosaico(mosaico, columna, fila);
+                        if (dibujadosMosaico == 0) {
+                            mosaico = MOSAICO_VACIO;
+                        }
+                        dibujados += dibujadosMosaico;
+                        mosaicos.put(clave, mosaico);
+                    }
+                    if (mosaico == MOSAICO_VACIO) {
+                        // El fondo ya está pintado
+                        continue;
+                    }
+                    int x = columna * TAMANO_MOSAICO;
+                    int y = fila * TAMANO_MOSAICO;
+                    g2d.drawImage(mosaico, x, y, x + TAMANO_MOSAICO, y + TAMANO_MOSAICO,
+                            BORDE_MOSAICO, BORDE_MOSAICO, BORDE_MOSAICO + TAMANO_MOSAICO, BORDE_MOSAICO + TAMANO_MOSAICO, null);
+                }
             }
+            return dibujados;
+        }
 
-            g.drawString(texto, x - anchoTexto/2, y + altoTexto/4);
-
-            // Reducir offset para niveles más profundos, pero mantener un mínimo
-            int siguienteOffset = Math.max(offset / 2, MARGEN_HORIZONTAL);
-
-            // Posición y para hijos
-            int siguienteY = y + MARGEN_VERTICAL;
-
-            // Dibujar hijo izquierdo y conexión
-            if (nodo.getHijoIzquierdo() != null) {
-                int hijoX = x - offset;
-
-                g.setColor(COLOR_BORDE);
-                g.drawLine(x, y + ALTO_NODO/2, hijoX, siguienteY - ALTO_NODO/2);
+        /**
+         * Una imagen en el formato del destino, para que copiarla no convierta píxeles y Java2D
+         * pueda acelerarla. No se usa {@code VolatileImage} porque su contenido puede perderse
+         * en cualquier momento y habría que volver a dibujarlo.
+         */
+        private static BufferedImage crearMosaico(Graphics2D destino) {
+            int lado = TAMANO_MOSAICO + 2 * BORDE_MOSAICO;
+            return destino.getDeviceConfiguration().createCompatibleImage(lado, lado, Transparency.OPAQUE);
+        }
 
-                dibujarArbolBinario(g, nodo.getHijoIzquierdo(), hijoX, siguienteY, siguienteOffset, nivel + 1);
+        private int dibujarMosaico(BufferedImage mosaico, int columna, int fila) {
+            Graphics2D g = mosaico.createGraphics();
+            try {
+                int lado = TAMANO_MOSAICO + 2 * BORDE_MOSAICO;
+                g.setColor(getBackground());
+                g.fillRect(0, 0, lado, lado);
+                g.translate(BORDE_MOSAICO - columna * TAMANO_MOSAICO, BORDE_MOSAICO - fila * TAMANO_MOSAICO);
+                g.clipRect(columna * TAMANO_MOSAICO - BORDE_MOSAICO, fila * TAMANO_MOSAICO - BORDE_MOSAICO, lado, lado);
+                return dibujarArbol(g);
+            } finally {
+                g.dispose();
             }
+        }
 
-            // Dibujar hijo derecho y conexión
-            if (nodo.getHijoDerecho() != null) {
-                int hijoX = x + offset;
-
-                g.setColor(COLOR_BORDE);
-                g.drawLine(x, y + ALTO_NODO/2, hijoX, siguienteY - ALTO_NODO/2);
-
-                dibujarArbolBinario(g, nodo.getHijoDerecho(), hijoX, siguienteY, siguienteOffset, nivel + 1);
-            }
+        /**
+         * Los mosaicos solo coinciden píxel a píxel con el dibujo directo si el contexto no escala
+         * (por ejemplo, pantallas de alta densidad); en otro caso se dibuja sin ellos
+         */
+        private static boolean esTraslacionEntera(AffineTransform transformacion) {
+            return (transformacion.getType() & ~AffineTransform.TYPE_TRANSLATION) == 0
+                    && transformacion.getTranslateX() == Math.rint(transformacion.getTranslateX())
+                    && transformacion.getTranslateY() == Math.rint(transformacion.getTranslateY());
         }
 
         /**
-         * Encuentra el nodo padre para un nodo dado
+         * Dibuja el árbol sobre el área de recorte del contexto
+         * @return El número de nodos o formas dibujados
          */
-        private Nodo encontrarPadre(Nodo raiz, Nodo objetivo) {
-            if (raiz == null || objetivo == null) return null;
+        private int dibujarArbol(Graphics2D g2d) {
+            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
 
-            if ((raiz.getHijoIzquierdo() == objetivo) || (raiz.getHijoDerecho() == objetivo)) {
-                return raiz;
-            }
+            // Aplicar zoom manteniendo la transformación original
+            AffineTransform originalTransform = g2d.getTransform();
+            g2d.scale(zoom, zoom);
+
+            // Coordenadas iniciales para la raíz
+            int startX = (int) ((getWidth() / zoom) / 2);
+            int startY = DibujoArbol.Y_RAIZ;
 
-            Nodo encontradoIzq = encontrarPadre(raiz.getHijoIzquierdo(), objetivo);
-            if (encontradoIzq != null) return encontradoIzq;
+            try {
+                // Calculamos el offset inicial para dejar espacio suficiente
+                int offsetInicial = (int) (getWidth() / (zoom * 4));
 
-            return encontrarPadre(raiz.getHijoDerecho(), objetivo);
+                // Dibujar árbol desde la raíz; las posiciones solo se recalculan si cambia el punto de partida.
+                // Muy alejado, el árbol se resume en bandas y el costo ya no crece con su tamaño
+                disposicion.ubicar(startX, startY, offsetInicial);
+                return zoom < DibujoArbol.ZOOM_DETALLE
+                        ? dibujo.dibujarResumen(g2d, zoom)
+                        : dibujo.dibujar(g2d);
+            } finally {
+                // Restaurar transformación original
+                g2d.setTransform(originalTransform);
+            }
         }
     }
 